@@ -0,0 +1,63 @@
+package com.sarief.minesweeper.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs requests on virtual threads when minesweeper.execution.mode=virtual, instead of the Tomcat thread pool.
+ * Blocked request then doesn't hold a platform thread, so number of requests in flight is limited
+ * by minesweeper.execution.max-connections, not by size of the pool.
+ *
+ * Games are still changed one request at a time: each game has its own {@link java.util.concurrent.locks.Lock},
+ * which parks virtual thread without holding its carrier. Virtual threads need Java 21,
+ * on older runtime warning is logged and the usual pool is kept
+ */
+@Configuration
+@ConditionalOnProperty(name = "minesweeper.execution.mode", havingValue = "virtual")
+@Slf4j
+public class RequestExecutionConfiguration {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsCustomizer(
+            @Value("${minesweeper.execution.max-connections:50000}") int maxConnections) {
+        return factory -> {
+            ExecutorService requestExecutor = createVirtualThreadExecutor();
+            if (requestExecutor == null) {
+                return;
+            }
+            factory.addProtocolHandlerCustomizers(protocolHandler -> {
+                protocolHandler.setExecutor(requestExecutor);
+                if (protocolHandler instanceof AbstractProtocol) {
+                    ((AbstractProtocol<?>) protocolHandler).setMaxConnections(maxConnections);
+                }
+            });
+            log.info("Requests run on virtual threads, up to {} connections", maxConnections);
+        };
+    }
+
+    /**
+     * @return executor starting virtual thread for each task, null if runtime doesn't have virtual threads
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            // project is built for Java 11, so the factory method can only be looked up at runtime
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            log.warn("Virtual threads are not supported by Java {}, requests run on Tomcat thread pool",
+                    System.getProperty("java.version"));
+            return null;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+}
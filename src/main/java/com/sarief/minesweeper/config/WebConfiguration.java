@@ -0,0 +1,20 @@
+package com.sarief.minesweeper.config;
+
+import com.sarief.minesweeper.rest.converter.BoardBinaryHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web layer configuration
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BoardBinaryHttpMessageConverter());
+    }
+}
@@ -0,0 +1,17 @@
+package com.sarief.minesweeper.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * New mark of the cell that changed
+ */
+@Getter
+@Setter
+@Builder
+public class CellChange {
+    private int x;
+    private int y;
+    private char mark;
+}
@@ -10,6 +10,9 @@ import lombok.Setter;
 @Setter
 public class CellCoordinateRequest {
 
+    private String gameId; // null for default game
     private int x;
     private int y;
+    private ResponseMode responseMode; // null for whole map
+    private Viewport viewport; // null for whole map
 }
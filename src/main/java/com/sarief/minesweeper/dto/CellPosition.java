@@ -0,0 +1,16 @@
+package com.sarief.minesweeper.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Coordinates of the cell
+ */
+@Getter
+@Setter
+@Builder
+public class CellPosition {
+    private int x;
+    private int y;
+}
@@ -0,0 +1,26 @@
+package com.sarief.minesweeper.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sarief.minesweeper.entity.GameState;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Event pushed to subscribers of the game after every move that changed it
+ */
+@Getter
+@Setter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameEvent {
+
+    private String gameId;
+    private GameEventType type;
+    private GameState gameState;
+    private long version; // version of the map after the move
+    private List<CellChange> changes; // not set if too many cells changed or the game was reset
+    private boolean resyncRequired; // changes are unknown, client has to request whole game status
+}
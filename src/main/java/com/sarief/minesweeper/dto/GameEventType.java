@@ -0,0 +1,8 @@
+package com.sarief.minesweeper.dto;
+
+/**
+ * Kinds of events sent to game subscribers
+ */
+public enum GameEventType {
+    SUBSCRIBED, RESET, OPEN, FLAG, UNFLAG, CHORD, BATCH;
+}
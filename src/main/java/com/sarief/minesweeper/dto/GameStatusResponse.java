@@ -1,18 +1,30 @@
 package com.sarief.minesweeper.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.sarief.minesweeper.entity.GameState;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
+
 /**
  * Response that contains game status
  */
 @Getter
 @Setter
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class GameStatusResponse {
 
     private GameState gameState;
-    private String[] field;
+    private long version; // version of the map, see MinefieldMap.getVersion
+    private String tag; // unique across resets, viewports and representations, sent as ETag. Only for game status
+    private String[] field; // whole map or its viewport, not set for delta responses
+    private Boolean oddRowsShifted; // true for hexagonal maps: odd rows of the map are drawn half a cell to the right
+    private Viewport viewport; // part of the map in field and changes, cut to the map. Not set for whole map
+    private List<CellChange> changes; // cells changed by the request, only for delta responses
+    private Boolean resyncRequired; // delta response with too many changes to list, client requests status again
+    private Integer revealedCells; // number of cells opened by the request, if it opened any
+    private Integer appliedMoves; // number of moves applied by batch request, the rest is skipped once game is over
 }
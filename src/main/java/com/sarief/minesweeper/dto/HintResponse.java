@@ -0,0 +1,20 @@
+package com.sarief.minesweeper.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Cells that can be proven from what player sees
+ */
+@Getter
+@Setter
+@Builder
+public class HintResponse {
+
+    private long version; // version of the map the hint is for, see MinefieldMap.getVersion
+    private List<CellPosition> safeCells; // closed cells without mine
+    private List<CellPosition> mineCells; // closed unflagged cells with mine
+}
@@ -0,0 +1,17 @@
+package com.sarief.minesweeper.dto;
+
+import com.sarief.minesweeper.engine.MoveType;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Single move inside {@link MovesRequest}
+ */
+@Getter
+@Setter
+public class MoveRequest {
+
+    private MoveType type;
+    private int x;
+    private int y;
+}
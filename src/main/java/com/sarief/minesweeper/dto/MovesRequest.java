@@ -0,0 +1,19 @@
+package com.sarief.minesweeper.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Request with moves to apply in one go
+ */
+@Getter
+@Setter
+public class MovesRequest {
+
+    private String gameId; // null for default game
+    private List<MoveRequest> moves; // applied in order
+    private ResponseMode responseMode; // null for whole map
+    private Viewport viewport; // null for whole map
+}
@@ -0,0 +1,18 @@
+package com.sarief.minesweeper.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Probability of mine in every cell, from what player sees
+ */
+@Getter
+@Setter
+@Builder
+public class ProbabilityResponse {
+
+    private long version; // version of the map the probabilities are for, see MinefieldMap.getVersion
+    private boolean exact; // false if some cells were estimated instead of counted
+    private double[][] probabilities; // [y][x]. Open cells have 0, flagged cells have 1
+}
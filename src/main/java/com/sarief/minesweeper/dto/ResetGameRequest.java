@@ -1,5 +1,6 @@
 package com.sarief.minesweeper.dto;
 
+import com.sarief.minesweeper.entity.MinefieldType;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,8 +10,11 @@ import lombok.Setter;
 @Getter
 @Setter
 public class ResetGameRequest {
+    private String gameId; // null for default game
     private int height;
     private int width;
     private int mineCount;
     Long seed;
+    private MinefieldType mapType; // null for default squared map
+    private boolean noGuess; // place mines so that the game can be cleared without guessing
 }
@@ -0,0 +1,15 @@
+package com.sarief.minesweeper.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Reset game Response
+ */
+@Getter
+@Setter
+@Builder
+public class ResetGameResponse {
+    private String gameId;
+}
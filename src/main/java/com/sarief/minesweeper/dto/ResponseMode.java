@@ -0,0 +1,15 @@
+package com.sarief.minesweeper.dto;
+
+/**
+ * How much of the map is sent back after the move
+ */
+public enum ResponseMode {
+    /**
+     * Whole map
+     */
+    FULL,
+    /**
+     * Only cells changed by the move. Whole map is still sent if too many cells changed
+     */
+    DELTA;
+}
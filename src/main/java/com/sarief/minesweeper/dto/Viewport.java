@@ -0,0 +1,23 @@
+package com.sarief.minesweeper.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Rectangular part of the map client shows. Responses carry only cells inside it.
+ * Part that goes beyond the map is cut to the map
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Viewport {
+    private int x; // column of the top left cell
+    private int y; // row of the top left cell
+    private int width;
+    private int height;
+}
@@ -0,0 +1,256 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.MinefieldMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Closed cells next to open numbers, constraints over them and what is already known about them.
+ * Built from what player sees only: open numbers and flags, which are trusted to be mines.
+ *
+ * Each closed unflagged cell next to an open number is a variable, each open number is a {@link Constraint}
+ * on number of mines among its variables. Constraint keeps its few variables in a small sorted array,
+ * so memory follows number of open numbers even when the frontier has a hundred thousand variables
+ */
+final class Frontier {
+    final int[] cells; // cell index of each variable, ascending
+    final List<Constraint> constraints = new ArrayList<>();
+    final List<List<Constraint>> constraintsByVariable;
+    final BitSet safeVariables = new BitSet();
+    final BitSet mineVariables = new BitSet();
+    final int closedCells; // closed and not flagged, frontier or not
+    final int flags;
+
+    private Frontier(int[] cells, int closedCells, int flags) {
+        this.cells = cells;
+        this.closedCells = closedCells;
+        this.flags = flags;
+        this.constraintsByVariable = new ArrayList<>(cells.length);
+        for (int variable = 0; variable < cells.length; variable++) {
+            constraintsByVariable.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Read frontier of the map
+     *
+     * @param minefield map to read. Not changed
+     * @return frontier with nothing known yet
+     */
+    static Frontier read(MinefieldMap minefield) {
+        int numberOfCells = minefield.getHeight() * minefield.getWidth();
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+
+        // no per-cell structures are allocated, memory follows number of open numbers, not size of the board
+        IntList frontierCells = new IntList();
+        IntList numberCells = new IntList();
+        int closedCells = 0;
+        int flags = 0;
+        for (int index = 0; index < numberOfCells; index++) {
+            if (minefield.isFlagged(index)) {
+                flags++;
+                continue;
+            }
+            if (!minefield.isOpen(index)) {
+                closedCells++;
+                continue;
+            }
+            if (minefield.getNumberOfAdjacentMines(index) == 0) {
+                continue;
+            }
+
+            int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+            int sizeBefore = frontierCells.size;
+            for (int i = 0; i < numberOfAdjacentCells; i++) {
+                if (!minefield.isOpen(adjacentCells[i]) && !minefield.isFlagged(adjacentCells[i])) {
+                    frontierCells.add(adjacentCells[i]);
+                }
+            }
+            if (frontierCells.size != sizeBefore) {
+                numberCells.add(index);
+            }
+        }
+
+        Frontier frontier = new Frontier(frontierCells.toSortedDistinctArray(), closedCells, flags);
+        for (int n = 0; n < numberCells.size; n++) {
+            frontier.addConstraint(minefield, numberCells.values[n], adjacentCells);
+        }
+        return frontier;
+    }
+
+    private void addConstraint(MinefieldMap minefield, int index, int[] adjacentCells) {
+        int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+        int[] variables = new int[numberOfAdjacentCells];
+        int numberOfVariables = 0;
+        int mines = minefield.getNumberOfAdjacentMines(index);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            int adjacentCell = adjacentCells[i];
+            if (minefield.isFlagged(adjacentCell)) {
+                mines--;
+            } else if (!minefield.isOpen(adjacentCell)) {
+                variables[numberOfVariables++] = Arrays.binarySearch(cells, adjacentCell);
+            }
+        }
+
+        // wrong flags can make number impossible to satisfy, nothing can be proven from it then
+        if (mines < 0 || mines > numberOfVariables) {
+            return;
+        }
+
+        variables = Arrays.copyOf(variables, numberOfVariables);
+        Arrays.sort(variables);
+        Constraint constraint = new Constraint(variables, mines);
+        constraints.add(constraint);
+        for (int variable : variables) {
+            constraintsByVariable.get(variable).add(constraint);
+        }
+    }
+
+    /**
+     * Remember that variables are mines or safe and remove them from constraints
+     *
+     * @param variables variables to mark. Not changed, so variables of a constraint can be passed
+     * @param mine true for mines, false for safe cells
+     * @return true if any of variables wasn't known before
+     */
+    boolean markAll(int[] variables, boolean mine) {
+        boolean progress = false;
+        for (int variable : variables) {
+            if (safeVariables.get(variable) || mineVariables.get(variable)) {
+                continue;
+            }
+            (mine ? mineVariables : safeVariables).set(variable);
+            for (Constraint constraint : constraintsByVariable.get(variable)) {
+                constraint.remove(variable);
+                if (mine) {
+                    constraint.mines--;
+                }
+            }
+            progress = true;
+        }
+        return progress;
+    }
+
+    /**
+     * Split constraints that still have unknown variables into groups that share no variables
+     */
+    List<List<Constraint>> findConnectedGroups() {
+        int[] parents = new int[cells.length];
+        for (int variable = 0; variable < parents.length; variable++) {
+            parents[variable] = variable;
+        }
+        for (Constraint constraint : constraints) {
+            for (int variable : constraint.variables) {
+                parents[findRoot(parents, variable)] = findRoot(parents, constraint.variables[0]);
+            }
+        }
+
+        Map<Integer, List<Constraint>> groupsByRoot = new HashMap<>();
+        List<List<Constraint>> groups = new ArrayList<>();
+        for (Constraint constraint : constraints) {
+            if (constraint.variables.length == 0) {
+                continue;
+            }
+            int root = findRoot(parents, constraint.variables[0]);
+            groupsByRoot.computeIfAbsent(root, key -> {
+                List<Constraint> group = new ArrayList<>();
+                groups.add(group);
+                return group;
+            }).add(constraint);
+        }
+        return groups;
+    }
+
+    private static int findRoot(int[] parents, int variable) {
+        while (parents[variable] != variable) {
+            parents[variable] = parents[parents[variable]];
+            variable = parents[variable];
+        }
+        return variable;
+    }
+
+    /**
+     * Get all variables of constraints of the group
+     *
+     * @param group constraints
+     * @return variables, ascending
+     */
+    static int[] getVariables(List<Constraint> group) {
+        IntList variables = new IntList();
+        for (Constraint constraint : group) {
+            for (int variable : constraint.variables) {
+                variables.add(variable);
+            }
+        }
+        return variables.toSortedDistinctArray();
+    }
+
+    int[] getCells(BitSet variables) {
+        return variables.stream().map(variable -> cells[variable]).toArray();
+    }
+
+    boolean isDecided(int index) {
+        int variable = Arrays.binarySearch(cells, index);
+        return variable >= 0 && (safeVariables.get(variable) || mineVariables.get(variable));
+    }
+
+    /**
+     * Number of mines among set of frontier variables
+     */
+    static final class Constraint {
+        int[] variables; // ascending, replaced by a smaller array when variable is removed
+        int mines;
+
+        private Constraint(int[] variables, int mines) {
+            this.variables = variables;
+            this.mines = mines;
+        }
+
+        boolean contains(int variable) {
+            return Arrays.binarySearch(variables, variable) >= 0;
+        }
+
+        private void remove(int variable) {
+            int position = Arrays.binarySearch(variables, variable);
+            if (position < 0) {
+                return;
+            }
+            int[] remaining = new int[variables.length - 1];
+            System.arraycopy(variables, 0, remaining, 0, position);
+            System.arraycopy(variables, position + 1, remaining, position, remaining.length - position);
+            variables = remaining;
+        }
+    }
+
+    /**
+     * Growable array of ints
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toSortedDistinctArray() {
+            int[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int distinctCount = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinctCount++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, distinctCount);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Everything that decides how a game went: parameters of the reset and moves in the order they were made,
+ * together with the state the player claims the game ended in. Checked by {@link ReplayVerifier}
+ */
+@Getter
+@Builder
+public class GameLog {
+    private final int height;
+    private final int width;
+    private final int mineCount;
+    private final long seed;
+    private final MinefieldType mapType; // null for default squared map
+    private final boolean noGuess;
+    // seed mines of no-guess game were placed with, as kept in the map after the first click. Equal to seed
+    // if the search ran out of time, otherwise checked against the search. Ignored for other games, null if unknown
+    private final Long layoutSeed;
+    private final List<Move> moves;
+    private final GameState claimedState;
+}
@@ -0,0 +1,75 @@
+package com.sarief.minesweeper.engine;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Growable FIFO queue of primitive ints. Avoids boxing that {@link java.util.ArrayDeque} would need
+ */
+public class IntQueue {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] elements;
+    private int head; // index of the first element
+    private int size;
+
+    public IntQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntQueue(int initialCapacity) {
+        this.elements = new int[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Add value to the end of the queue
+     *
+     * @param value value to add
+     */
+    public void add(int value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) % elements.length] = value;
+        size++;
+    }
+
+    /**
+     * Remove value from the start of the queue
+     *
+     * @return removed value
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int value = elements[head];
+        head = (head + 1) % elements.length;
+        size--;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all values, capacity stays the same
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int[] grown = new int[elements.length * 2];
+        int firstPartLength = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, grown, 0, firstPartLength);
+        System.arraycopy(elements, 0, grown, firstPartLength, size - firstPartLength);
+        elements = grown;
+        head = 0;
+    }
+}
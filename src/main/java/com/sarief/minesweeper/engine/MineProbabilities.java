@@ -0,0 +1,14 @@
+package com.sarief.minesweeper.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Probability of mine in every cell, calculated by {@link MineProbabilityCalculator}
+ */
+@Getter
+@AllArgsConstructor
+public class MineProbabilities {
+    private final double[] probabilities; // by cell index. Open cells have 0, flagged cells have 1
+    private final boolean exact; // false if any part was estimated because it was too big to count
+}
@@ -0,0 +1,536 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.engine.Frontier.Constraint;
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calculates probability of mine in every closed cell from what player sees: open numbers and flags,
+ * which are trusted to be mines. Every layout consistent with the numbers is considered equally likely.
+ *
+ * Cells proven by {@link MinefieldSolver} rules are taken as known. The rest of the frontier is split
+ * into connected components that share no constraints. Valid layouts of each component are counted
+ * by backtracking, separately for each number of mines in the component, components are counted in parallel.
+ * Components are then combined: layout with M mines on the frontier leaves C(U, R - M) layouts
+ * for U closed cells away from the frontier and R remaining mines. Binomials are taken in log space,
+ * so they don't overflow on big boards.
+ *
+ * Work is capped. Components too big to enumerate, or taking too many search steps, are estimated
+ * from density of their constraints instead. Too many frontier cells to combine exactly are combined
+ * as if cells away from the frontier had fixed density. Result tells if any estimate was used
+ */
+public class MineProbabilityCalculator {
+    // 2^48 layouts is far beyond the step limit anyway, but keeps counts exact in doubles
+    private static final int MAXIMUM_ENUMERATED_VARIABLES = 48;
+    private static final long MAXIMUM_ENUMERATION_STEPS = 2_000_000;
+    // components * frontier cells^2 operations are needed to combine components exactly
+    private static final long MAXIMUM_COMBINATION_OPERATIONS = 50_000_000;
+    private static final double MINIMUM_DENSITY = 1e-9;
+
+    private final ForkJoinPool pool;
+
+    public MineProbabilityCalculator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Calculate probability of mine in every cell of the map
+     *
+     * @param minefield map to look at. Not changed
+     * @return probabilities by cell index. Open cells have 0, flagged cells have 1
+     */
+    public MineProbabilities calculate(MinefieldMap minefield) {
+        int numberOfCells = minefield.getHeight() * minefield.getWidth();
+        Frontier frontier = Frontier.read(minefield);
+
+        // finished game shows what it shouldn't, so only started games are reasoned about
+        List<ComponentCounts> components = new ArrayList<>();
+        if (minefield.getGameState() == GameState.STARTED) {
+            MinefieldSolver.propagate(frontier);
+            List<ComponentTask> tasks = new ArrayList<>();
+            for (List<Constraint> group : frontier.findConnectedGroups()) {
+                ComponentTask task = new ComponentTask(group);
+                pool.execute(task);
+                tasks.add(task);
+            }
+            for (ComponentTask task : tasks) {
+                components.add(task.join());
+            }
+        }
+
+        int knownMines = frontier.mineVariables.cardinality();
+        int knownSafeCells = frontier.safeVariables.cardinality();
+        int componentCells = components.stream().mapToInt(component -> component.variables.length).sum();
+        int remainingMines = minefield.getMineCount() - frontier.flags - knownMines;
+        int interiorCells = frontier.closedCells - knownMines - knownSafeCells - componentCells;
+
+        Combination combination = combine(components, remainingMines, interiorCells);
+
+        double[] probabilities = new double[numberOfCells];
+        for (int index = 0; index < numberOfCells; index++) {
+            if (minefield.isFlagged(index)) {
+                probabilities[index] = 1;
+            } else if (!minefield.isOpen(index)) {
+                probabilities[index] = combination.interiorProbability;
+            }
+        }
+        for (int variable = frontier.mineVariables.nextSetBit(0); variable >= 0;
+             variable = frontier.mineVariables.nextSetBit(variable + 1)) {
+            probabilities[frontier.cells[variable]] = 1;
+        }
+        for (int variable = frontier.safeVariables.nextSetBit(0); variable >= 0;
+             variable = frontier.safeVariables.nextSetBit(variable + 1)) {
+            probabilities[frontier.cells[variable]] = 0;
+        }
+        for (int c = 0; c < components.size(); c++) {
+            ComponentCounts component = components.get(c);
+            for (int v = 0; v < component.variables.length; v++) {
+                probabilities[frontier.cells[component.variables[v]]] = combination.componentProbabilities[c][v];
+            }
+        }
+
+        boolean exact = combination.exact && components.stream().allMatch(component -> component.exact);
+        return new MineProbabilities(probabilities, exact);
+    }
+
+    private static Combination combine(List<ComponentCounts> components, int remainingMines, int interiorCells) {
+        int frontierCells = components.stream().mapToInt(component -> component.variables.length).sum();
+        long operations = (long) components.size() * (frontierCells + 1) * (frontierCells + 1);
+        if (operations <= MAXIMUM_COMBINATION_OPERATIONS) {
+            Combination combination = combineExactly(components, remainingMines, interiorCells);
+            if (combination != null) {
+                return combination;
+            }
+        }
+        return combineWithFixedDensity(components, remainingMines, interiorCells, frontierCells);
+    }
+
+    /**
+     * @return probabilities, null if numbers can't be satisfied by remaining mines (wrong flags)
+     */
+    private static Combination combineExactly(List<ComponentCounts> components, int remainingMines,
+                                              int interiorCells) {
+        int numberOfComponents = components.size();
+
+        // prefixes[i] - combined weights of components before i, suffixes[i] - of components from i on.
+        // Every array is scaled so its biggest weight is 1, logarithm of the scale is kept next to it
+        double[][] prefixes = new double[numberOfComponents + 1][];
+        double[][] suffixes = new double[numberOfComponents + 1][];
+        double[] prefixLogScales = new double[numberOfComponents + 1];
+        double[] suffixLogScales = new double[numberOfComponents + 1];
+        prefixes[0] = new double[]{1};
+        suffixes[numberOfComponents] = new double[]{1};
+        for (int c = 0; c < numberOfComponents; c++) {
+            prefixes[c + 1] = convolve(prefixes[c], components.get(c).weights);
+            prefixLogScales[c + 1] = prefixLogScales[c] + normalize(prefixes[c + 1]);
+        }
+        for (int c = numberOfComponents - 1; c >= 0; c--) {
+            suffixes[c] = convolve(components.get(c).weights, suffixes[c + 1]);
+            suffixLogScales[c] = suffixLogScales[c + 1] + normalize(suffixes[c]);
+        }
+
+        double[] all = prefixes[numberOfComponents];
+        double[] interiorWeights = getInteriorWeights(all.length - 1, remainingMines, interiorCells);
+        double totalWeight = 0;
+        double interiorMines = 0;
+        for (int mines = 0; mines < all.length; mines++) {
+            double weight = all[mines] * interiorWeights[mines];
+            totalWeight += weight;
+            interiorMines += weight * (remainingMines - mines);
+        }
+        if (!(totalWeight > 0)) {
+            return null;
+        }
+
+        double[][] componentProbabilities = new double[numberOfComponents][];
+        for (int c = 0; c < numberOfComponents; c++) {
+            ComponentCounts component = components.get(c);
+            double[] others = convolve(prefixes[c], suffixes[c + 1]);
+            double othersLogScale = prefixLogScales[c] + suffixLogScales[c + 1] + normalize(others);
+            // everything is divided by total weight, which has scale of all components
+            double relativeScale = Math.exp(othersLogScale - prefixLogScales[numberOfComponents]);
+
+            // weight of everything outside the component, for each number of mines in it
+            double[] outsideWeights = new double[component.weights.length];
+            for (int mines = 0; mines < outsideWeights.length; mines++) {
+                for (int otherMines = 0; otherMines < others.length; otherMines++) {
+                    outsideWeights[mines] += others[otherMines] * interiorWeights[mines + otherMines];
+                }
+            }
+
+            componentProbabilities[c] = new double[component.variables.length];
+            for (int v = 0; v < component.variables.length; v++) {
+                double mineWeight = 0;
+                for (int mines = 0; mines < outsideWeights.length; mines++) {
+                    mineWeight += component.mineWeights[v][mines] * outsideWeights[mines];
+                }
+                componentProbabilities[c][v] = clamp(mineWeight * relativeScale / totalWeight);
+            }
+        }
+
+        double interiorProbability = interiorCells > 0 ? clamp(interiorMines / totalWeight / interiorCells) : 0;
+        return new Combination(componentProbabilities, interiorProbability, true);
+    }
+
+    /**
+     * Every extra mine on the frontier takes one from cells away from it. With fixed density d there,
+     * that changes weight of the layout d / (1 - d) times, so components can be weighted independently
+     */
+    private static Combination combineWithFixedDensity(List<ComponentCounts> components, int remainingMines,
+                                                       int interiorCells, int frontierCells) {
+        int undecidedCells = interiorCells + frontierCells;
+        double density = undecidedCells > 0 ? (double) remainingMines / undecidedCells : 0;
+        density = Math.min(Math.max(density, MINIMUM_DENSITY), 1 - MINIMUM_DENSITY);
+        double logOdds = Math.log(density / (1 - density));
+
+        double[][] componentProbabilities = new double[components.size()][];
+        for (int c = 0; c < components.size(); c++) {
+            ComponentCounts component = components.get(c);
+            double[] logWeights = new double[component.weights.length];
+            double maximumLogWeight = Double.NEGATIVE_INFINITY;
+            for (int mines = 0; mines < logWeights.length; mines++) {
+                logWeights[mines] = Math.log(component.weights[mines]) + mines * logOdds;
+                maximumLogWeight = Math.max(maximumLogWeight, logWeights[mines]);
+            }
+
+            double totalWeight = 0;
+            double[] scales = new double[logWeights.length];
+            for (int mines = 0; mines < logWeights.length; mines++) {
+                scales[mines] = Math.exp(logWeights[mines] - maximumLogWeight) / component.weights[mines];
+                if (component.weights[mines] > 0) {
+                    totalWeight += component.weights[mines] * scales[mines];
+                } else {
+                    scales[mines] = 0;
+                }
+            }
+
+            componentProbabilities[c] = new double[component.variables.length];
+            for (int v = 0; v < component.variables.length; v++) {
+                double mineWeight = 0;
+                for (int mines = 0; mines < scales.length; mines++) {
+                    mineWeight += component.mineWeights[v][mines] * scales[mines];
+                }
+                componentProbabilities[c][v] = totalWeight > 0 ? clamp(mineWeight / totalWeight) : density;
+            }
+        }
+        return new Combination(componentProbabilities, interiorCells > 0 ? density : 0, false);
+    }
+
+    /**
+     * Weights of layouts away from the frontier, C(interiorCells, remainingMines - mines) for each number
+     * of mines on the frontier, scaled so the biggest is 1
+     */
+    private static double[] getInteriorWeights(int maximumFrontierMines, int remainingMines, int interiorCells) {
+        double[] logWeights = new double[maximumFrontierMines + 1];
+        double maximumLogWeight = Double.NEGATIVE_INFINITY;
+        for (int mines = 0; mines <= maximumFrontierMines; mines++) {
+            int interiorMines = remainingMines - mines;
+            logWeights[mines] = interiorMines < 0 || interiorMines > interiorCells
+                    ? Double.NEGATIVE_INFINITY : logBinomial(interiorCells, interiorMines);
+            maximumLogWeight = Math.max(maximumLogWeight, logWeights[mines]);
+        }
+
+        double[] weights = new double[logWeights.length];
+        if (maximumLogWeight == Double.NEGATIVE_INFINITY) {
+            return weights;
+        }
+        for (int mines = 0; mines < weights.length; mines++) {
+            weights[mines] = Math.exp(logWeights[mines] - maximumLogWeight);
+        }
+        return weights;
+    }
+
+    private static double logBinomial(int n, int k) {
+        return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+    }
+
+    private static double logFactorial(int n) {
+        if (n < 2) {
+            return 0;
+        }
+        if (n < 256) {
+            double result = 0;
+            for (int i = 2; i <= n; i++) {
+                result += Math.log(i);
+            }
+            return result;
+        }
+        // Stirling series, error is far below double precision for such n
+        double x = n;
+        return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x) + 1 / (12 * x) - 1 / (360 * x * x * x);
+    }
+
+    /**
+     * Convolve two weight arrays
+     */
+    private static double[] convolve(double[] first, double[] second) {
+        double[] result = new double[first.length + second.length - 1];
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < second.length; j++) {
+                result[i + j] += first[i] * second[j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scale weights so the biggest is 1
+     *
+     * @return logarithm of the scale weights were divided by, 0 if all weights are 0
+     */
+    private static double normalize(double[] weights) {
+        double maximum = 0;
+        for (double weight : weights) {
+            maximum = Math.max(maximum, weight);
+        }
+        if (maximum == 0) {
+            return 0;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= maximum;
+        }
+        return Math.log(maximum);
+    }
+
+    private static double clamp(double probability) {
+        return Math.min(Math.max(probability, 0), 1);
+    }
+
+    /**
+     * Probabilities of all components and of cells away from the frontier
+     */
+    private static final class Combination {
+        private final double[][] componentProbabilities;
+        private final double interiorProbability;
+        private final boolean exact;
+
+        private Combination(double[][] componentProbabilities, double interiorProbability, boolean exact) {
+            this.componentProbabilities = componentProbabilities;
+            this.interiorProbability = interiorProbability;
+            this.exact = exact;
+        }
+    }
+
+    /**
+     * Number of valid layouts of a component, by number of mines in it
+     */
+    private static final class ComponentCounts {
+        private final int[] variables;
+        // weights[m] - layouts with m mines, mineWeights[v][m] - those of them with mine in variable v
+        private final double[] weights;
+        private final double[][] mineWeights;
+        private final boolean exact;
+
+        private ComponentCounts(int[] variables, double[] weights, double[][] mineWeights, boolean exact) {
+            this.variables = variables;
+            this.weights = weights;
+            this.mineWeights = mineWeights;
+            this.exact = exact;
+        }
+    }
+
+    /**
+     * Counts layouts of single component
+     */
+    private static final class ComponentTask extends RecursiveTask<ComponentCounts> {
+        private final List<Constraint> group;
+
+        private int[] sortedVariables; // ascending, to find position of variable by binary search
+        private int[][] constraintsOfSortedVariable; // by index in sortedVariables
+        private int[] variables; // in the order they are enumerated
+        private int[][] constraintsOfVariable; // by position of variable
+        private int[] targetMines; // by constraint
+        private int[] assignedMines;
+        private int[] unassignedVariables;
+        private boolean[] mines; // by position of variable
+        private double[] weights;
+        private double[][] mineWeights;
+        private long steps;
+
+        private ComponentTask(List<Constraint> group) {
+            this.group = group;
+        }
+
+        @Override
+        protected ComponentCounts compute() {
+            indexConstraints();
+            variables = orderVariables();
+            if (variables.length <= MAXIMUM_ENUMERATED_VARIABLES) {
+                prepare();
+                if (enumerate(0, 0)) {
+                    scaleWeights();
+                    return new ComponentCounts(variables, weights, mineWeights, true);
+                }
+            }
+            return estimate();
+        }
+
+        /**
+         * Find constraints of each variable once, so nothing below has to look through the whole group
+         */
+        private void indexConstraints() {
+            sortedVariables = Frontier.getVariables(group);
+            int[] numberOfConstraints = new int[sortedVariables.length];
+            for (Constraint constraint : group) {
+                for (int variable : constraint.variables) {
+                    numberOfConstraints[Arrays.binarySearch(sortedVariables, variable)]++;
+                }
+            }
+            constraintsOfSortedVariable = new int[sortedVariables.length][];
+            for (int i = 0; i < sortedVariables.length; i++) {
+                constraintsOfSortedVariable[i] = new int[numberOfConstraints[i]];
+                numberOfConstraints[i] = 0;
+            }
+            for (int c = 0; c < group.size(); c++) {
+                for (int variable : group.get(c).variables) {
+                    int i = Arrays.binarySearch(sortedVariables, variable);
+                    constraintsOfSortedVariable[i][numberOfConstraints[i]++] = c;
+                }
+            }
+        }
+
+        /**
+         * Order variables breadth-first over shared constraints, so constraints get fully assigned early
+         * and dead ends are cut close to where they start
+         */
+        private int[] orderVariables() {
+            int[] ordered = new int[sortedVariables.length];
+            int size = 0;
+            boolean[] visited = new boolean[sortedVariables.length];
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(0);
+            visited[0] = true;
+            while (!queue.isEmpty()) {
+                int i = queue.poll();
+                ordered[size++] = sortedVariables[i];
+                for (int c : constraintsOfSortedVariable[i]) {
+                    for (int next : group.get(c).variables) {
+                        int nextIndex = Arrays.binarySearch(sortedVariables, next);
+                        if (!visited[nextIndex]) {
+                            visited[nextIndex] = true;
+                            queue.add(nextIndex);
+                        }
+                    }
+                }
+            }
+            return ordered;
+        }
+
+        private void prepare() {
+            int numberOfVariables = variables.length;
+            targetMines = new int[group.size()];
+            assignedMines = new int[group.size()];
+            unassignedVariables = new int[group.size()];
+            for (int c = 0; c < group.size(); c++) {
+                Constraint constraint = group.get(c);
+                targetMines[c] = constraint.mines;
+                unassignedVariables[c] = constraint.variables.length;
+            }
+
+            constraintsOfVariable = new int[numberOfVariables][];
+            for (int position = 0; position < numberOfVariables; position++) {
+                constraintsOfVariable[position] =
+                        constraintsOfSortedVariable[Arrays.binarySearch(sortedVariables, variables[position])];
+            }
+            mines = new boolean[numberOfVariables];
+            weights = new double[numberOfVariables + 1];
+            mineWeights = new double[numberOfVariables][numberOfVariables + 1];
+        }
+
+        /**
+         * @return false if step limit was hit
+         */
+        private boolean enumerate(int position, int minesSoFar) {
+            if (++steps > MAXIMUM_ENUMERATION_STEPS) {
+                return false;
+            }
+            if (position == variables.length) {
+                weights[minesSoFar]++;
+                for (int p = 0; p < variables.length; p++) {
+                    if (mines[p]) {
+                        mineWeights[p][minesSoFar]++;
+                    }
+                }
+                return true;
+            }
+
+            for (int value = 0; value <= 1; value++) {
+                boolean feasible = true;
+                for (int c : constraintsOfVariable[position]) {
+                    unassignedVariables[c]--;
+                    assignedMines[c] += value;
+                    if (assignedMines[c] > targetMines[c]
+                            || assignedMines[c] + unassignedVariables[c] < targetMines[c]) {
+                        feasible = false;
+                    }
+                }
+                mines[position] = value == 1;
+
+                boolean completed = !feasible || enumerate(position + 1, minesSoFar + value);
+
+                for (int c : constraintsOfVariable[position]) {
+                    unassignedVariables[c]++;
+                    assignedMines[c] -= value;
+                }
+                if (!completed) {
+                    return false;
+                }
+            }
+            mines[position] = false;
+            return true;
+        }
+
+        /**
+         * Scale counts so the biggest weight is 1, same as all other weights during combination
+         */
+        private void scaleWeights() {
+            double logScale = normalize(weights);
+            double scale = Math.exp(logScale);
+            for (double[] variableWeights : mineWeights) {
+                for (int mines = 0; mines < variableWeights.length; mines++) {
+                    variableWeights[mines] /= scale;
+                }
+            }
+        }
+
+        /**
+         * Estimate probability of each variable as average density of its constraints.
+         * Component gets single number of mines, closest to the sum of estimates
+         */
+        private ComponentCounts estimate() {
+            double[] probabilities = new double[variables.length];
+            double expectedMines = 0;
+            for (int position = 0; position < variables.length; position++) {
+                double densities = 0;
+                int[] constraints =
+                        constraintsOfSortedVariable[Arrays.binarySearch(sortedVariables, variables[position])];
+                for (int c : constraints) {
+                    Constraint constraint = group.get(c);
+                    densities += (double) constraint.mines / constraint.variables.length;
+                }
+                probabilities[position] = densities / constraints.length;
+                expectedMines += probabilities[position];
+            }
+
+            int mineCount = (int) Math.round(expectedMines);
+            double[] estimatedWeights = new double[variables.length + 1];
+            estimatedWeights[mineCount] = 1;
+            double[][] estimatedMineWeights = new double[variables.length][variables.length + 1];
+            for (int position = 0; position < variables.length; position++) {
+                estimatedMineWeights[position][mineCount] = probabilities[position];
+            }
+            return new ComponentCounts(variables, estimatedWeights, estimatedMineWeights, false);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.engine.Frontier.Constraint;
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds closed cells that are certainly safe or certainly contain mine, using only what player sees:
+ * numbers of open cells and flags. Flags are trusted to be mines. Result depends only on the visible state,
+ * so same board always gives same answer.
+ *
+ * Only closed cells next to open numbers (frontier) take part in reasoning. Each of them is a variable,
+ * each open number is a constraint: number of mines among its closed unflagged neighbours.
+ * Rules are tried from the cheapest, until none finds anything new:
+ * <ul>
+ *     <li>single point: constraint without mines left, or with as many mines as cells</li>
+ *     <li>subset: constraint that contains another one leaves known number of mines for the difference</li>
+ *     <li>linear: Gaussian elimination over each connected group of constraints. Row that can only be satisfied
+ *     by its smallest or biggest possible sum decides all its cells</li>
+ * </ul>
+ * At the end total number of mines is used, if it decides all remaining closed cells at once
+ */
+public class MinefieldSolver {
+    // elimination is cubic, bigger groups are left to the cheaper rules
+    private static final int MAXIMUM_VARIABLES_FOR_ELIMINATION = 256;
+    private static final SolverResult NOTHING_FOUND = new SolverResult(new int[0], new int[0]);
+
+    /**
+     * Find cells that can be proven safe or mined
+     *
+     * @param minefield map to look at. Not changed
+     * @return proven cells. Flagged cells are not included
+     */
+    public SolverResult solve(MinefieldMap minefield) {
+        if (minefield.getGameState() != GameState.STARTED) {
+            return NOTHING_FOUND;
+        }
+
+        Frontier frontier = Frontier.read(minefield);
+        propagate(frontier);
+        return toResult(minefield, frontier);
+    }
+
+    /**
+     * Apply all rules until none finds anything new. Proven variables are marked in the frontier
+     * and removed from its constraints
+     *
+     * @param frontier frontier to reason about
+     */
+    static void propagate(Frontier frontier) {
+        boolean progress = true;
+        while (progress) {
+            progress = applySinglePointRule(frontier)
+                    || applySubsetRule(frontier)
+                    || applyLinearRule(frontier);
+        }
+    }
+
+    private static boolean applySinglePointRule(Frontier frontier) {
+        boolean progress = false;
+        for (Constraint constraint : frontier.constraints) {
+            int numberOfVariables = constraint.variables.length;
+            if (numberOfVariables == 0) {
+                continue;
+            }
+            if (constraint.mines == 0) {
+                progress |= frontier.markAll(constraint.variables, false);
+            } else if (constraint.mines == numberOfVariables) {
+                progress |= frontier.markAll(constraint.variables, true);
+            }
+        }
+        return progress;
+    }
+
+    private static boolean applySubsetRule(Frontier frontier) {
+        boolean progress = false;
+        for (Constraint smaller : frontier.constraints) {
+            int smallerSize = smaller.variables.length;
+            if (smallerSize == 0) {
+                continue;
+            }
+
+            // any constraint containing the smaller one also contains its first variable
+            for (Constraint larger : frontier.constraintsByVariable.get(smaller.variables[0])) {
+                if (larger == smaller || larger.variables.length <= smallerSize) {
+                    continue;
+                }
+
+                int[] difference = subtract(larger.variables, smaller.variables);
+                if (difference == null) {
+                    continue; // not a superset
+                }
+
+                int differenceMines = larger.mines - smaller.mines;
+                if (differenceMines == 0) {
+                    progress |= frontier.markAll(difference, false);
+                } else if (differenceMines == difference.length) {
+                    progress |= frontier.markAll(difference, true);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Remove variables of smaller set from the larger one
+     *
+     * @return variables of the larger set only, null if the smaller set is not contained in the larger one
+     */
+    private static int[] subtract(int[] larger, int[] smaller) {
+        int[] difference = new int[larger.length - smaller.length];
+        int size = 0;
+        int s = 0;
+        for (int variable : larger) {
+            if (s < smaller.length && smaller[s] == variable) {
+                s++;
+            } else if (size == difference.length) {
+                return null;
+            } else {
+                difference[size++] = variable;
+            }
+        }
+        return s == smaller.length ? difference : null;
+    }
+
+    private static boolean applyLinearRule(Frontier frontier) {
+        boolean progress = false;
+        for (List<Constraint> group : frontier.findConnectedGroups()) {
+            int[] variables = Frontier.getVariables(group);
+            if (variables.length > MAXIMUM_VARIABLES_FOR_ELIMINATION) {
+                continue;
+            }
+
+            long[][] rows;
+            try {
+                rows = eliminate(toRows(group, variables));
+            } catch (ArithmeticException e) {
+                // coefficients overflowed, this group is left to the other rules
+                continue;
+            }
+
+            for (long[] row : rows) {
+                progress |= applyBounds(frontier, row, variables);
+            }
+        }
+        return progress;
+    }
+
+    private static long[][] toRows(List<Constraint> group, int[] variables) {
+        long[][] rows = new long[group.size()][variables.length + 1];
+        for (int r = 0; r < rows.length; r++) {
+            Constraint constraint = group.get(r);
+            for (int variable : constraint.variables) {
+                rows[r][Arrays.binarySearch(variables, variable)] = 1;
+            }
+            rows[r][variables.length] = constraint.mines;
+        }
+        return rows;
+    }
+
+    /**
+     * Bring rows to reduced echelon form. Integer only, every row is divided by gcd of its coefficients
+     * after each step to keep numbers small
+     */
+    private static long[][] eliminate(long[][] rows) {
+        int numberOfColumns = rows.length == 0 ? 0 : rows[0].length - 1;
+        int pivotRow = 0;
+        for (int column = 0; column < numberOfColumns && pivotRow < rows.length; column++) {
+            int row = pivotRow;
+            while (row < rows.length && rows[row][column] == 0) {
+                row++;
+            }
+            if (row == rows.length) {
+                continue;
+            }
+
+            long[] pivot = rows[row];
+            rows[row] = rows[pivotRow];
+            rows[pivotRow] = pivot;
+
+            for (int r = 0; r < rows.length; r++) {
+                long factor = rows[r][column];
+                if (r == pivotRow || factor == 0) {
+                    continue;
+                }
+                long[] current = rows[r];
+                for (int k = 0; k <= numberOfColumns; k++) {
+                    current[k] = Math.subtractExact(Math.multiplyExact(current[k], pivot[column]),
+                            Math.multiplyExact(pivot[k], factor));
+                }
+                divideByGcd(current);
+            }
+            pivotRow++;
+        }
+        return rows;
+    }
+
+    private static void divideByGcd(long[] row) {
+        long gcd = 0;
+        for (long value : row) {
+            gcd = gcd(gcd, Math.abs(value));
+        }
+        if (gcd > 1) {
+            for (int k = 0; k < row.length; k++) {
+                row[k] /= gcd;
+            }
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * Every variable is 0 or 1, so sum of the row is between sum of its negative and sum of its positive
+     * coefficients. If right side equals one of the bounds, the only way to reach it decides every variable
+     */
+    private static boolean applyBounds(Frontier frontier, long[] row, int[] variables) {
+        long maximumSum = 0;
+        long minimumSum = 0;
+        for (int column = 0; column < variables.length; column++) {
+            if (row[column] > 0) {
+                maximumSum += row[column];
+            } else {
+                minimumSum += row[column];
+            }
+        }
+        long sum = row[variables.length];
+        if (maximumSum == minimumSum || sum != maximumSum && sum != minimumSum) {
+            return false;
+        }
+
+        int[] mines = new int[variables.length];
+        int numberOfMines = 0;
+        int[] safeCells = new int[variables.length];
+        int numberOfSafeCells = 0;
+        for (int column = 0; column < variables.length; column++) {
+            if (row[column] != 0) {
+                if (row[column] > 0 == (sum == maximumSum)) {
+                    mines[numberOfMines++] = variables[column];
+                } else {
+                    safeCells[numberOfSafeCells++] = variables[column];
+                }
+            }
+        }
+        boolean progress = frontier.markAll(Arrays.copyOf(mines, numberOfMines), true);
+        progress |= frontier.markAll(Arrays.copyOf(safeCells, numberOfSafeCells), false);
+        return progress;
+    }
+
+    private static SolverResult toResult(MinefieldMap minefield, Frontier frontier) {
+        int[] safeCells = frontier.getCells(frontier.safeVariables);
+        int[] mineCells = frontier.getCells(frontier.mineVariables);
+
+        // total number of mines can decide everything that is still unknown, including cells far from numbers
+        int remainingMines = minefield.getMineCount() - frontier.flags - mineCells.length;
+        int unknownCells = frontier.closedCells - mineCells.length - safeCells.length;
+        if (unknownCells > 0 && (remainingMines == 0 || remainingMines == unknownCells)) {
+            int[] unknown = new int[unknownCells];
+            int found = 0;
+            int numberOfCells = minefield.getHeight() * minefield.getWidth();
+            for (int index = 0; index < numberOfCells; index++) {
+                if (!minefield.isOpen(index) && !minefield.isFlagged(index) && !frontier.isDecided(index)) {
+                    unknown[found++] = index;
+                }
+            }
+            if (remainingMines == 0) {
+                safeCells = merge(safeCells, unknown);
+            } else {
+                mineCells = merge(mineCells, unknown);
+            }
+        }
+        return new SolverResult(safeCells, mineCells);
+    }
+
+    private static int[] merge(int[] first, int[] second) {
+        int[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        Arrays.sort(merged);
+        return merged;
+    }
+}
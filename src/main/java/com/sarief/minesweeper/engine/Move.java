@@ -0,0 +1,15 @@
+package com.sarief.minesweeper.engine;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Single move of the player
+ */
+@Getter
+@Builder
+public class Move {
+    private final MoveType type;
+    private final int x;
+    private final int y;
+}
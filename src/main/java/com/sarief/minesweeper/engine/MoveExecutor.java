@@ -0,0 +1,249 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.exception.MinesweeperException;
+import com.sarief.minesweeper.exception.MinesweeperGameLostException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies moves of the player to {@link MinefieldMap}.
+ *
+ * Executor keeps its {@link RevealEngine}, so a sequence of moves reuses the same buffers.
+ * Not thread safe, caller is expected to hold the lock of the game
+ */
+public class MoveExecutor {
+    public static final int MAXIMUM_NUMBER_OF_MOVES = 10_000;
+
+    private final RevealEngine revealEngine = new RevealEngine();
+    private final NoGuessGenerator noGuessGenerator;
+    private int revealedCells;
+    private int[] adjacentCells = new int[0];
+
+    public MoveExecutor() {
+        this(null);
+    }
+
+    /**
+     * @param noGuessGenerator places mines on the first click so the game can be cleared without guessing.
+     *                         null for plain random placement
+     */
+    public MoveExecutor(NoGuessGenerator noGuessGenerator) {
+        this.noGuessGenerator = noGuessGenerator;
+    }
+
+    /**
+     * Apply moves in order. Stops as soon as the game is over, remaining moves are ignored.
+     * All moves are checked before the first one is applied, so invalid move doesn't leave the batch half done.
+     * Check follows flags set and removed by the batch, but not cells opened by it: cell flagged by the batch
+     * can't be opened later in the same batch, even if an earlier move of the batch opened it anyway
+     *
+     * @param minefield map to apply moves to
+     * @param moves moves to apply
+     * @return number of applied moves
+     */
+    public int applyAll(MinefieldMap minefield, List<Move> moves) {
+        checkMovesValid(minefield, moves);
+
+        if (!moves.isEmpty() && minefield.isGameLost()) {
+            throw new MinesweeperGameLostException();
+        }
+
+        int appliedMoves = 0;
+        for (Move move : moves) {
+            if (minefield.isGameLost() || minefield.isGameWon()) {
+                break;
+            }
+            apply(minefield, move);
+            appliedMoves++;
+        }
+        return appliedMoves;
+    }
+
+    /**
+     * Apply single move
+     *
+     * @param minefield map to apply move to
+     * @param move move to apply
+     */
+    public void apply(MinefieldMap minefield, Move move) {
+        switch (move.getType()) {
+            case OPEN:
+                open(minefield, move.getX(), move.getY());
+                break;
+            case FLAG:
+                minefield.flagCell(move.getX(), move.getY());
+                break;
+            case UNFLAG:
+                minefield.unflagCell(move.getX(), move.getY());
+                break;
+            case CHORD:
+                chord(minefield, move.getX(), move.getY());
+                break;
+            default:
+                throw new MinesweeperException("Unknown move: " + move.getType(), "error.code.move.invalid");
+        }
+    }
+
+    /**
+     * Open cell by specific coordinates. Game lost if cell contains Mine.
+     * First opened cell places mines on the map
+     *
+     * @param minefield map to open cell on
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @return number of opened cells
+     */
+    public int open(MinefieldMap minefield, int x, int y) {
+        if (minefield.isGameLost()) {
+            throw new MinesweeperGameLostException();
+        }
+
+        if (!minefield.isWithinBounds(x, y)) {
+            throw new MinesweeperException("Coordinates out of bounds: " + x + ";" + y,
+                    "error.code.coordinates.invalid");
+        }
+
+        int index = minefield.toIndex(x, y);
+        if (minefield.isFlagged(index)) {
+            throw cellFlagged(x, y);
+        }
+
+        if (minefield.getGameState() == GameState.PREPARED) {
+            // initiate field, skip x,y point
+            initiate(minefield, x, y);
+        }
+
+        int revealedByMove = revealEngine.reveal(minefield, index);
+        revealedCells += revealedByMove;
+        return revealedByMove;
+    }
+
+    /**
+     * Open all unflagged neighbours of open cell, if number of flags around it equals number of adjacent mines.
+     * Neighbours without adjacent mines open their areas as usual. Nothing happens if cell is not open
+     * or flags don't match the number
+     *
+     * @param minefield map to open cells on
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @return number of opened cells
+     */
+    public int chord(MinefieldMap minefield, int x, int y) {
+        if (minefield.isGameLost()) {
+            throw new MinesweeperGameLostException();
+        }
+
+        if (!minefield.isWithinBounds(x, y)) {
+            throw new MinesweeperException("Coordinates out of bounds: " + x + ";" + y,
+                    "error.code.coordinates.invalid");
+        }
+
+        int index = minefield.toIndex(x, y);
+        if (!minefield.isOpen(index) || minefield.containsMine(index)) {
+            return 0;
+        }
+
+        if (adjacentCells.length < minefield.getMaximumNumberOfAdjacentCells()) {
+            adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+        }
+        int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+
+        int flags = 0;
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            if (minefield.isFlagged(adjacentCells[i])) {
+                flags++;
+            }
+        }
+        if (flags != minefield.getNumberOfAdjacentMines(index)) {
+            return 0;
+        }
+
+        int revealedByMove = 0;
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            // wrong flag means one of the neighbours is a mine, game ends on it and the rest stays closed
+            if (minefield.isGameLost() || minefield.isGameWon()) {
+                break;
+            }
+            int adjacentCell = adjacentCells[i];
+            if (!minefield.isFlagged(adjacentCell)) {
+                // reveal skips cells already opened by flood fill of previous neighbour
+                revealedByMove += revealEngine.reveal(minefield, adjacentCell);
+            }
+        }
+        revealedCells += revealedByMove;
+        return revealedByMove;
+    }
+
+    private void initiate(MinefieldMap minefield, int x, int y) {
+        Long noGuessSeed = null;
+        if (noGuessGenerator != null) {
+            noGuessSeed = noGuessGenerator.findSeed(() -> minefield.getType().createMap(), minefield.getHeight(),
+                    minefield.getWidth(), minefield.getMineCount(), minefield.getSeed(), x, y);
+        }
+
+        // if no candidate can be cleared without guessing, the game is played on the usual layout
+        if (noGuessSeed != null) {
+            minefield.initiate(x, y, noGuessSeed);
+        } else {
+            minefield.initiate(x, y);
+        }
+    }
+
+    /**
+     * Get number of cells opened by all moves applied by this executor
+     *
+     * @return number of opened cells
+     */
+    public int getRevealedCells() {
+        return revealedCells;
+    }
+
+    private static void checkMovesValid(MinefieldMap minefield, List<Move> moves) {
+        if (moves == null) {
+            throw new MinesweeperException("Moves not specified", "error.code.move.invalid");
+        }
+        if (moves.size() > MAXIMUM_NUMBER_OF_MOVES) {
+            throw new MinesweeperException("More moves than allowed: " + MAXIMUM_NUMBER_OF_MOVES,
+                    "error.code.limit.moves");
+        }
+        // flags as they are when the move is applied, only cells whose flag is changed by the batch
+        Map<Integer, Boolean> flagsSetByMoves = new HashMap<>();
+        for (Move move : moves) {
+            if (move == null || move.getType() == null) {
+                throw new MinesweeperException("Move type not specified", "error.code.move.invalid");
+            }
+            if (!minefield.isWithinBounds(move.getX(), move.getY())) {
+                throw new MinesweeperException("Coordinates out of bounds: " + move.getX() + ";" + move.getY(),
+                        "error.code.coordinates.invalid");
+            }
+
+            int index = minefield.toIndex(move.getX(), move.getY());
+            switch (move.getType()) {
+                case FLAG:
+                    // open cell can't be flagged, move does nothing
+                    if (!minefield.isOpen(index)) {
+                        flagsSetByMoves.put(index, true);
+                    }
+                    break;
+                case UNFLAG:
+                    flagsSetByMoves.put(index, false);
+                    break;
+                case OPEN:
+                    if (flagsSetByMoves.getOrDefault(index, minefield.isFlagged(index))) {
+                        throw cellFlagged(move.getX(), move.getY());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static MinesweeperException cellFlagged(int x, int y) {
+        return new MinesweeperException("Cannot open flagged cell: " + x + ";" + y, "error.code.cell.flagged");
+    }
+}
@@ -0,0 +1,8 @@
+package com.sarief.minesweeper.engine;
+
+/**
+ * Kinds of moves player can make on the map
+ */
+public enum MoveType {
+    OPEN, FLAG, UNFLAG, CHORD;
+}
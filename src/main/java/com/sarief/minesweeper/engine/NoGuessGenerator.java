@@ -0,0 +1,200 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Looks for mine layout that can be cleared from the first click without guessing.
+ *
+ * Candidate layouts come from seeds derived from the seed of the game, candidate 0 uses the seed itself.
+ * Each candidate is played by {@link MinefieldSolver} on a scratch map, the first one it clears wins.
+ * Candidates are checked in parallel on a {@link ForkJoinPool}, in rounds of a few candidates per thread.
+ * Once a candidate is cleared, candidates after it are cancelled, but the ones before it still finish,
+ * so the lowest cleared candidate always wins and the result doesn't depend on timing of threads.
+ *
+ * Search can be bounded by time. When the time is out, candidates that are still played are cancelled
+ * and no new ones are started. Cleared candidate wins only if every candidate before it was played to the end,
+ * otherwise no seed is found and the game gets the plain layout of its seed. So the result depends only on
+ * the seed, except that a slower machine can fall back to the plain layout more often
+ */
+public class NoGuessGenerator {
+    public static final int MAXIMUM_NUMBER_OF_CANDIDATES = 4096;
+    public static final long NO_TIMEOUT = 0;
+
+    private static final int NO_CANDIDATE = Integer.MAX_VALUE;
+
+    // odd constant with well mixed bits, same as used for chunk seeds
+    private static final long CANDIDATE_SEED_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int CANDIDATES_PER_THREAD_IN_ROUND = 2;
+
+    private final ForkJoinPool pool;
+    private final long timeoutNanos;
+
+    public NoGuessGenerator(ForkJoinPool pool) {
+        this(pool, NO_TIMEOUT);
+    }
+
+    /**
+     * @param pool pool to play candidates on
+     * @param timeoutMillis time limit of a single search, {@link #NO_TIMEOUT} to check all candidates
+     */
+    public NoGuessGenerator(ForkJoinPool pool, long timeoutMillis) {
+        this.pool = pool;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Find seed of the first candidate layout that can be cleared without guessing
+     *
+     * @param mapFactory creates empty scratch maps of the same type as the game
+     * @param height number of rows
+     * @param width number of columns
+     * @param mineCount number of mines
+     * @param seed seed of the game
+     * @param xStart x coordinate of the first click
+     * @param yStart y coordinate of the first click
+     * @return seed to initiate the game with, null if none of candidates can be cleared
+     * or the time ran out before the winner was known
+     */
+    public Long findSeed(Supplier<MinefieldMap> mapFactory, int height, int width, int mineCount, long seed,
+                         int xStart, int yStart) {
+        Search search = new Search(new Deadline(timeoutNanos));
+        Supplier<MinefieldMap> preparedMapFactory = () -> {
+            MinefieldMap minefield = mapFactory.get();
+            minefield.reset(height, width, mineCount, seed);
+            return minefield;
+        };
+        int roundSize = pool.getParallelism() * CANDIDATES_PER_THREAD_IN_ROUND;
+
+        for (int roundStart = 0; roundStart < MAXIMUM_NUMBER_OF_CANDIDATES
+                && search.winner.get() == NO_CANDIDATE && search.firstCancelled.get() == NO_CANDIDATE;
+                roundStart += roundSize) {
+            int roundEnd = Math.min(roundStart + roundSize, MAXIMUM_NUMBER_OF_CANDIDATES);
+            pool.invoke(new Candidates(roundStart, roundEnd, search, preparedMapFactory, xStart, yStart));
+        }
+
+        // cancelled candidate could have been cleared, then the winner would be another one without the timeout
+        int winner = search.winner.get();
+        return winner < search.firstCancelled.get() ? getCandidateSeed(seed, winner) : null;
+    }
+
+    private static long getCandidateSeed(long seed, int candidate) {
+        return seed + candidate * CANDIDATE_SEED_GAMMA;
+    }
+
+    /**
+     * Play the map with solver only. Candidate cancelled by the timeout is recorded in the search
+     *
+     * @return true if solver opened every cell without mine
+     */
+    private static boolean isClearedBySolver(MinefieldMap minefield, int xStart, int yStart, int candidate,
+                                             Search search) {
+        MoveExecutor moveExecutor = new MoveExecutor();
+        MinefieldSolver solver = new MinefieldSolver();
+        moveExecutor.open(minefield, xStart, yStart);
+
+        while (minefield.getGameState() == GameState.STARTED) {
+            // lower candidate is already cleared, this one can't win anymore
+            if (search.winner.get() < candidate || search.cancelIfTimedOut(candidate)) {
+                return false;
+            }
+
+            SolverResult result = solver.solve(minefield);
+            if (result.getSafeCells().length == 0) {
+                return false;
+            }
+            int width = minefield.getWidth();
+            for (int index : result.getSafeCells()) {
+                moveExecutor.open(minefield, index % width, index / width);
+            }
+        }
+        return minefield.isGameWon();
+    }
+
+    /**
+     * Range of candidates, split in halves until single candidate is left
+     */
+    private static final class Candidates extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final Search search;
+        private final Supplier<MinefieldMap> preparedMapFactory;
+        private final int xStart;
+        private final int yStart;
+
+        private Candidates(int from, int to, Search search, Supplier<MinefieldMap> preparedMapFactory,
+                           int xStart, int yStart) {
+            this.from = from;
+            this.to = to;
+            this.search = search;
+            this.preparedMapFactory = preparedMapFactory;
+            this.xStart = xStart;
+            this.yStart = yStart;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Candidates(from, middle, search, preparedMapFactory, xStart, yStart),
+                        new Candidates(middle, to, search, preparedMapFactory, xStart, yStart));
+                return;
+            }
+
+            if (search.winner.get() < from || search.cancelIfTimedOut(from)) {
+                return;
+            }
+
+            MinefieldMap minefield = preparedMapFactory.get();
+            minefield.initiate(xStart, yStart, getCandidateSeed(minefield.getSeed(), from));
+            if (isClearedBySolver(minefield, xStart, yStart, from, search)) {
+                search.winner.accumulateAndGet(from, Math::min);
+            }
+        }
+    }
+
+    /**
+     * Candidates decided so far, shared by all of them
+     */
+    private static final class Search {
+        private final Deadline deadline;
+        // lowest cleared candidate
+        private final AtomicInteger winner = new AtomicInteger(NO_CANDIDATE);
+        // lowest candidate stopped by the timeout before it was decided
+        private final AtomicInteger firstCancelled = new AtomicInteger(NO_CANDIDATE);
+
+        private Search(Deadline deadline) {
+            this.deadline = deadline;
+        }
+
+        private boolean cancelIfTimedOut(int candidate) {
+            if (!deadline.isPassed()) {
+                return false;
+            }
+            firstCancelled.accumulateAndGet(candidate, Math::min);
+            return true;
+        }
+    }
+
+    /**
+     * Moment when search stops, never passed if there is no timeout
+     */
+    private static final class Deadline {
+        private final long timeoutNanos;
+        private final long startTime = System.nanoTime();
+
+        private Deadline(long timeoutNanos) {
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        private boolean isPassed() {
+            return timeoutNanos != NO_TIMEOUT && System.nanoTime() - startTime > timeoutNanos;
+        }
+    }
+}
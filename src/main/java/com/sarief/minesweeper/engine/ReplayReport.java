@@ -0,0 +1,17 @@
+package com.sarief.minesweeper.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Result of verifying a list of {@link GameLog}s by {@link ReplayVerifier}.
+ * Only logs that don't match are kept, so a report of many logs stays small
+ */
+@Getter
+@AllArgsConstructor
+public class ReplayReport {
+    private final int verifiedLogs;
+    private final List<ReplayResult> mismatches; // ordered by index of the log
+}
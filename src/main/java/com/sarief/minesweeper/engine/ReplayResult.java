@@ -0,0 +1,27 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of replaying a single {@link GameLog}
+ */
+@Getter
+@AllArgsConstructor
+public class ReplayResult {
+    private final int logIndex; // position of the log in the verified list
+    private final GameState claimedState;
+    private final GameState actualState; // state after the last applied move, null if the game couldn't be created
+    private final int appliedMoves; // moves after the end of the game are not applied
+    private final String error; // why replay stopped early, null if all moves were valid
+
+    /**
+     * Check if the log is consistent: every move could be made and the game ended in the claimed state
+     *
+     * @return true if the claim is confirmed
+     */
+    public boolean isMatching() {
+        return error == null && actualState == claimedState;
+    }
+}
@@ -0,0 +1,157 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import com.sarief.minesweeper.exception.MinesweeperException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Checks claimed results of games by playing them again. Game with known seed is fully decided by its moves,
+ * so replaying {@link GameLog} must end in the state player claims, e.g. a win.
+ *
+ * Logs are replayed in parallel on a {@link ForkJoinPool}, split in halves until few enough are left for one task.
+ * Each task reuses its {@link MoveExecutor}s for all of its logs. Squared, dense and off-heap maps place mines
+ * the same way, so their games are replayed on dense map, which is the fastest one for small boards.
+ * Games reset without seed can't be replayed, their seed was random.
+ *
+ * No-guess game is replayed with the search of {@link NoGuessGenerator} run again without time limit.
+ * It takes tens to hundreds of milliseconds for an expert board instead of microseconds. Layout seed comes from
+ * the log, so it is never trusted: it can only tell that the game's search ran out of time and mines were placed
+ * with the seed of the game, any other layout seed has to be the one the search finds
+ */
+public class ReplayVerifier {
+    public static final long MAXIMUM_NUMBER_OF_CELLS = 1_000_000;
+
+    // replay of an expert game takes microseconds, smaller tasks would cost more to fork than to run
+    private static final int LOGS_PER_TASK = 64;
+
+    private final ForkJoinPool pool;
+    private final NoGuessGenerator noGuessGenerator;
+
+    public ReplayVerifier(ForkJoinPool pool) {
+        this.pool = pool;
+        this.noGuessGenerator = new NoGuessGenerator(pool);
+    }
+
+    /**
+     * Replay all logs and find the ones that don't end in the claimed state
+     *
+     * @param logs logs to verify
+     * @return report with mismatching logs
+     */
+    public ReplayReport verify(List<GameLog> logs) {
+        List<ReplayResult> mismatches = logs.isEmpty() ? Collections.emptyList()
+                : pool.invoke(new ReplayTask(logs, 0, logs.size()));
+        return new ReplayReport(logs.size(), mismatches);
+    }
+
+    /**
+     * Replay single log in the calling thread
+     *
+     * @param log log to replay
+     * @return result of the replay, index of the log is 0
+     */
+    public ReplayResult replay(GameLog log) {
+        return replay(log, 0, new MoveExecutor(), new MoveExecutor(noGuessGenerator));
+    }
+
+    private static ReplayResult replay(GameLog log, int logIndex, MoveExecutor moveExecutor,
+                                       MoveExecutor noGuessMoveExecutor) {
+        MinefieldMap minefield;
+        try {
+            if ((long) log.getHeight() * log.getWidth() > MAXIMUM_NUMBER_OF_CELLS) {
+                throw new MinesweeperException("Too many cells to replay: " + MAXIMUM_NUMBER_OF_CELLS,
+                        "error.code.limit.replay");
+            }
+            minefield = createMap(log.getMapType());
+            minefield.reset(log.getHeight(), log.getWidth(), log.getMineCount(), log.getSeed());
+        } catch (RuntimeException e) {
+            return new ReplayResult(logIndex, log.getClaimedState(), null, 0, describe(e));
+        }
+
+        Long layoutSeed = log.isNoGuess() ? log.getLayoutSeed() : null;
+        // search that ran out of time places mines with the seed of the map, same as without search
+        boolean searchTimedOut = layoutSeed != null && layoutSeed == log.getSeed();
+        MoveExecutor executor = log.isNoGuess() && !searchTimedOut ? noGuessMoveExecutor : moveExecutor;
+        List<Move> moves = log.getMoves() != null ? log.getMoves() : Collections.emptyList();
+        int appliedMoves = 0;
+        String error = null;
+        try {
+            for (Move move : moves) {
+                // the game accepted no moves after it ended, so they can't change the result
+                if (minefield.isGameLost() || minefield.isGameWon()) {
+                    break;
+                }
+                if (move == null || move.getType() == null) {
+                    throw new MinesweeperException("Move type not specified", "error.code.move.invalid");
+                }
+                executor.apply(minefield, move);
+                appliedMoves++;
+            }
+        } catch (RuntimeException e) {
+            error = describe(e);
+        }
+        if (error == null && layoutSeed != null && !layoutSeed.equals(minefield.getSeed())) {
+            error = "Layout seed " + layoutSeed + " is not the one found by no-guess search";
+        }
+        return new ReplayResult(logIndex, log.getClaimedState(), minefield.getGameState(), appliedMoves, error);
+    }
+
+    private static MinefieldMap createMap(MinefieldType mapType) {
+        if (mapType == null || mapType == MinefieldType.SQUARED || mapType == MinefieldType.OFF_HEAP) {
+            return MinefieldType.DENSE.createMap();
+        }
+        return mapType.createMap();
+    }
+
+    private static String describe(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * Range of logs, split in halves until at most LOGS_PER_TASK are left
+     */
+    private final class ReplayTask extends RecursiveTask<List<ReplayResult>> {
+        private final List<GameLog> logs;
+        private final int from;
+        private final int to;
+
+        private ReplayTask(List<GameLog> logs, int from, int to) {
+            this.logs = logs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ReplayResult> compute() {
+            if (to - from > LOGS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                ReplayTask second = new ReplayTask(logs, middle, to);
+                second.fork();
+                List<ReplayResult> mismatches = new ReplayTask(logs, from, middle).compute();
+                List<ReplayResult> secondMismatches = second.join();
+                if (mismatches.isEmpty()) {
+                    return secondMismatches;
+                }
+                mismatches.addAll(secondMismatches);
+                return mismatches;
+            }
+
+            MoveExecutor moveExecutor = new MoveExecutor();
+            MoveExecutor noGuessMoveExecutor = new MoveExecutor(noGuessGenerator);
+            List<ReplayResult> mismatches = new ArrayList<>();
+            for (int logIndex = from; logIndex < to; logIndex++) {
+                ReplayResult result = replay(logs.get(logIndex), logIndex, moveExecutor, noGuessMoveExecutor);
+                if (!result.isMatching()) {
+                    mismatches.add(result);
+                }
+            }
+            return mismatches;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.exception.MinesweeperGameLostException;
+
+/**
+ * Opens cells of {@link MinefieldMap}. Cells without adjacent mines open their neighbours as well.
+ *
+ * Area is opened breadth-first with explicit queue of cell indexes instead of recursion,
+ * so even huge empty areas don't grow the call stack. Queue only keeps border of the opened area.
+ */
+public class RevealEngine {
+
+    private final IntQueue queue = new IntQueue();
+    private int[] adjacentCells = new int[0];
+
+    /**
+     * Open cell with specified index. Game lost if cell contains Mine.
+     * Will open nearby cells if there are no mine nearby
+     *
+     * @param minefield map to open cell on
+     * @param index index of the cell
+     * @return number of opened cells
+     */
+    public int reveal(MinefieldMap minefield, int index) {
+        if (minefield.isOpen(index) || minefield.isGameWon()) {
+            return 0;
+        }
+
+        if (minefield.isGameLost()) {
+            throw new MinesweeperGameLostException();
+        }
+
+        minefield.openCell(index);
+
+        if (minefield.containsMine(index)) {
+            minefield.finishGameLost();
+            return 1;
+        }
+
+        minefield.addToCountOfOpenCells();
+        int revealedCells = 1;
+
+        if (minefield.getNumberOfAdjacentMines(index) != 0) {
+            return revealedCells;
+        }
+
+        int maximumNumberOfAdjacentCells = minefield.getMaximumNumberOfAdjacentCells();
+        if (adjacentCells.length < maximumNumberOfAdjacentCells) {
+            adjacentCells = new int[maximumNumberOfAdjacentCells];
+        }
+
+        queue.clear();
+        queue.add(index);
+        while (!queue.isEmpty()) {
+            int numberOfAdjacentCells = minefield.getAdjacentCells(queue.poll(), adjacentCells);
+            for (int i = 0; i < numberOfAdjacentCells; i++) {
+                int adjacentCell = adjacentCells[i];
+                // cell is opened before it is queued, so every cell gets into queue only once.
+                // Neighbours of the cell without adjacent mines can't contain mine either
+                if (minefield.isOpen(adjacentCell)) {
+                    continue;
+                }
+
+                minefield.openCell(adjacentCell);
+                minefield.addToCountOfOpenCells();
+                revealedCells++;
+
+                if (minefield.getNumberOfAdjacentMines(adjacentCell) == 0) {
+                    queue.add(adjacentCell);
+                }
+            }
+        }
+
+        return revealedCells;
+    }
+}
@@ -0,0 +1,14 @@
+package com.sarief.minesweeper.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Cells {@link MinefieldSolver} could prove from what player sees
+ */
+@Getter
+@AllArgsConstructor
+public class SolverResult {
+    private final int[] safeCells; // indexes of closed cells without mine, ascending
+    private final int[] mineCells; // indexes of closed unflagged cells with mine, ascending
+}
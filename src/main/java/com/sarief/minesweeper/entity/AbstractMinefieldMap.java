@@ -0,0 +1,434 @@
+package com.sarief.minesweeper.entity;
+
+
+import com.sarief.minesweeper.exception.MinesweeperException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Base for {@link MinefieldMap} implementations. Keeps game state, counters and parameter checks,
+ * so implementations only need to decide how cells are stored
+ */
+@Getter
+@Setter
+public abstract class AbstractMinefieldMap implements MinefieldMap {
+    protected static final char FLAG_MARK = '⚑';
+    protected static final char MINE_MARK = '*';
+    protected static final char UNKNOWN_MARK = '?';
+
+    private static final int MINIMUM_NUMBER_OF_MINELESS_CELLS = 9;
+    private static final int MINIMUM_NUMBER_OF_MINES = 1;
+    private static final int MINIMUM_ALLOWED_HEIGHT = 5;
+    private static final int MINIMUM_ALLOWED_WIDTH = 5;
+    // cells are addressed by int index, and some arrays can't be as big as Integer.MAX_VALUE
+    private static final long MAXIMUM_NUMBER_OF_CELLS = Integer.MAX_VALUE - 8;
+    // changes of more than quarter of the map are sent as whole map anyway
+    private static final int MINIMUM_CHANGE_JOURNAL_LIMIT = 64;
+    private static final int CHANGE_JOURNAL_LIMIT_DIVISOR = 4;
+    // journal is on heap even for off-heap maps, flood fill of a giant map must not make it as big as the map
+    private static final int MAXIMUM_CHANGE_JOURNAL_LIMIT = 16_384;
+
+    protected GameState gameState = GameState.INITIAL;
+
+    private Long seed;
+
+    protected int openedCells;
+
+    private int minelessCells;
+    private int mineCount;
+    private int height;
+    private int width;
+
+    protected int flagsUsed;
+
+    private Long startingTimeInMillis;
+
+    @Setter(AccessLevel.NONE)
+    private BoardTopology topology = BoardTopology.square(0, 0);
+
+    private long version;
+    private CellChangeJournal changeJournal = new CellChangeJournal(MINIMUM_CHANGE_JOURNAL_LIMIT);
+
+    @Override
+    public boolean isGameLost() {
+        return gameState == GameState.FINISHED_LOST;
+    }
+
+    @Override
+    public boolean isGameWon() {
+        return gameState == GameState.FINISHED_WON;
+    }
+
+    @Override
+    public void finishGameLost() {
+        gameState = GameState.FINISHED_LOST;
+    }
+
+    @Override
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    @Override
+    public void addToCountOfOpenCells() {
+        openedCells++;
+
+        if (openedCells == minelessCells) {
+            gameState = GameState.FINISHED_WON;
+        }
+    }
+
+    @Override
+    public void initiate(int xStart, int yStart) {
+
+        if (gameState != GameState.PREPARED) {
+            throw new MinesweeperException("Game already initiated", "error.code.game.state.lost");
+        }
+
+        this.startingTimeInMillis = System.currentTimeMillis();
+
+        placeMines(xStart, yStart);
+
+        this.gameState = GameState.STARTED;
+    }
+
+    @Override
+    public void initiate(int xStart, int yStart, long seed) {
+        if (gameState != GameState.PREPARED) {
+            throw new MinesweeperException("Game already initiated", "error.code.game.state.lost");
+        }
+
+        this.seed = seed;
+        initiate(xStart, yStart);
+    }
+
+    /**
+     * Place all mines of the map, keeping starting point free
+     *
+     * @param xStart - x coordinate of the starting point
+     * @param yStart - y coordinate of the starting point
+     */
+    protected void placeMines(int xStart, int yStart) {
+        placeMinesAvoiding(toIndex(xStart, yStart));
+    }
+
+    /**
+     * Place all mines of the map, keeping one cell free
+     *
+     * @param startIndex - index of the cell that stays free, negative if mines can be anywhere
+     */
+    protected void placeMinesAvoiding(int startIndex) {
+        // Selection sampling: every cell is visited once and becomes a mine with probability
+        // (mines still to place) / (cells still to visit), so exactly mineCount cells are chosen without retries.
+        // Unlike drawing random coordinates until a free cell is hit, cost doesn't grow with density of the map
+        SplittableRandom rand = new SplittableRandom(this.seed);
+        int numberOfCells = height * width;
+
+        int minesToPlace = mineCount;
+        int cellsToVisit = startIndex >= 0 ? numberOfCells - 1 : numberOfCells; // starting point never gets a mine
+        for (int index = 0; index < numberOfCells && minesToPlace > 0; index++) {
+            if (index == startIndex) {
+                continue;
+            }
+            if (rand.nextInt(cellsToVisit) < minesToPlace) {
+                placeMine(index);
+                minesToPlace--;
+            }
+            cellsToVisit--;
+        }
+
+        onMinesPlaced();
+    }
+
+    /**
+     * Place mine in the cell. Used only during mine placement, every cell gets at most one call
+     *
+     * @param index index of the cell
+     */
+    protected abstract void placeMine(int index);
+
+    /**
+     * Set open and flag state of the cell while map is restored. Counters are restored separately
+     *
+     * @param index index of the cell
+     * @param open true if cell is open
+     * @param flagged true if cell is flagged
+     */
+    protected abstract void restoreCell(int index, boolean open, boolean flagged);
+
+    /**
+     * Called once all mines are placed, before game is started
+     */
+    protected void onMinesPlaced() {
+        // nothing to do by default
+    }
+
+    /**
+     * Count adjacent mines of every cell of square board in one pass over the whole map, right after mines are placed.
+     * Counts are a 3x3 box sum over the mines, done as sum of each row triple first and then sum of three
+     * row sums, so every cell is read a constant number of times and nothing is allocated per cell
+     *
+     * @param cells - state of cells indexed by y * width + x, lowest bit is set for mines.
+     *              Count is added to each cell, shifted by countShift
+     * @param height - number of rows
+     * @param width - number of columns
+     * @param countShift - position of the count in the cell state, count takes 4 bits
+     */
+    protected static void countAdjacentMines(byte[] cells, int height, int width, int countShift) {
+        // only sums of the row above, current row and row below are needed at once
+        byte[] previousRowSums = new byte[width];
+        byte[] currentRowSums = new byte[width];
+        byte[] nextRowSums = new byte[width];
+        sumRowTriples(cells, 0, width, currentRowSums);
+
+        for (int y = 0; y < height; y++) {
+            boolean hasNextRow = y + 1 < height;
+            if (hasNextRow) {
+                // next row is still untouched, counts are only written to the current row
+                sumRowTriples(cells, (y + 1) * width, width, nextRowSums);
+            }
+
+            int rowStart = y * width;
+            for (int x = 0; x < width; x++) {
+                int count = currentRowSums[x] - (cells[rowStart + x] & 1);
+                if (y > 0) {
+                    count += previousRowSums[x];
+                }
+                if (hasNextRow) {
+                    count += nextRowSums[x];
+                }
+                cells[rowStart + x] |= count << countShift;
+            }
+
+            byte[] rowSums = previousRowSums;
+            previousRowSums = currentRowSums;
+            currentRowSums = nextRowSums;
+            nextRowSums = rowSums;
+        }
+    }
+
+    private static void sumRowTriples(byte[] cells, int rowStart, int width, byte[] rowSums) {
+        for (int x = 0; x < width; x++) {
+            int sum = cells[rowStart + x] & 1;
+            if (x > 0) {
+                sum += cells[rowStart + x - 1] & 1;
+            }
+            if (x + 1 < width) {
+                sum += cells[rowStart + x + 1] & 1;
+            }
+            rowSums[x] = (byte) sum;
+        }
+    }
+
+    /**
+     * Validate and remember parameters of the new game. Counters are reset as well
+     *
+     * @param height - number of rows
+     * @param width - number of columns
+     * @param mineCount - number of mines
+     * @param seed - seed for mine placement algorithm. null for random
+     */
+    protected void resetParameters(int height, int width, int mineCount, Long seed) {
+
+        checkInitialParametersValid(height, width, mineCount);
+
+        this.height = height;
+        this.width = width;
+        this.mineCount = mineCount;
+        this.topology = createTopology(height, width);
+        this.minelessCells = height * width - mineCount;
+        this.openedCells = 0;
+        this.flagsUsed = 0;
+        this.startingTimeInMillis = null;
+        this.version = 0;
+        this.changeJournal = new CellChangeJournal(Math.min(
+                Math.max(height * width / CHANGE_JOURNAL_LIMIT_DIVISOR, MINIMUM_CHANGE_JOURNAL_LIMIT),
+                MAXIMUM_CHANGE_JOURNAL_LIMIT));
+
+        this.seed = seed != null ? seed : System.currentTimeMillis();
+    }
+
+    @Override
+    public MinefieldSnapshot createSnapshot() {
+        return MinefieldSnapshot.builder()
+                .type(getType())
+                .gameState(gameState)
+                .height(height)
+                .width(width)
+                .mineCount(mineCount)
+                .seed(seed)
+                .openedCells(openedCells)
+                .flagsUsed(flagsUsed)
+                .startingTimeInMillis(startingTimeInMillis)
+                .version(version)
+                .build();
+    }
+
+    @Override
+    public void restore(MinefieldSnapshot snapshot, IntUnaryOperator cellStates) {
+        reset(snapshot.getHeight(), snapshot.getWidth(), snapshot.getMineCount(), snapshot.getSeed());
+
+        int numberOfCells = height * width;
+        // mines are placed first, so counts of adjacent mines are ready before cells are opened
+        for (int index = 0; index < numberOfCells; index++) {
+            if ((cellStates.applyAsInt(index) & MinefieldSnapshot.CELL_MINE) != 0) {
+                placeMine(index);
+            }
+        }
+        if (snapshot.getGameState() != GameState.PREPARED) {
+            onMinesPlaced();
+        }
+
+        for (int index = 0; index < numberOfCells; index++) {
+            int cellState = cellStates.applyAsInt(index);
+            boolean open = (cellState & MinefieldSnapshot.CELL_OPEN) != 0;
+            boolean flagged = (cellState & MinefieldSnapshot.CELL_FLAGGED) != 0;
+            if (open || flagged) {
+                restoreCell(index, open, flagged);
+            }
+        }
+
+        this.gameState = snapshot.getGameState();
+        this.openedCells = snapshot.getOpenedCells();
+        this.flagsUsed = snapshot.getFlagsUsed();
+        this.startingTimeInMillis = snapshot.getStartingTimeInMillis();
+        this.version = snapshot.getVersion();
+    }
+
+    @Override
+    public boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Create topology of the board. Square by default
+     *
+     * @param height - number of rows
+     * @param width - number of columns
+     * @return topology of the board
+     */
+    protected BoardTopology createTopology(int height, int width) {
+        return BoardTopology.square(height, width);
+    }
+
+    @Override
+    public int getAdjacentCells(int index, int[] adjacentCells) {
+        return topology.getAdjacentCells(index, adjacentCells);
+    }
+
+    @Override
+    public int getMaximumNumberOfAdjacentCells() {
+        return topology.getMaximumNumberOfAdjacentCells();
+    }
+
+    /**
+     * Throw if coordinates are outside of the map
+     *
+     * @param x - x coordinate
+     * @param y - y coordinate
+     */
+    protected void checkCoordinatesValid(int x, int y) {
+        if (!isWithinBounds(x, y)) {
+            throw new MinesweeperException("Coordinates out of bounds: " + x + ";" + y,
+                    "error.code.coordinates.invalid");
+        }
+    }
+
+    @Override
+    public void startRecordingChanges() {
+        changeJournal.clear();
+    }
+
+    @Override
+    public CellChangeJournal finishRecordingChanges() {
+        if (!changeJournal.isEmpty()) {
+            version++;
+        }
+        return changeJournal;
+    }
+
+    /**
+     * Must be called by implementations whenever cell changes the way player can see
+     *
+     * @param index index of the cell
+     */
+    protected void onCellChanged(int index) {
+        changeJournal.record(index);
+    }
+
+    @Override
+    public char[][] getField() {
+        char[][] field = new char[height][width];
+        for (int y = 0; y < height; y++) {
+            char[] marks = field[y];
+            for (int x = 0; x < width; x++) {
+                marks[x] = getMark(toIndex(x, y));
+            }
+        }
+        return field;
+    }
+
+    @Override
+    public String[] getDisplayField() {
+        return getDisplayField(0, 0, width, height);
+    }
+
+    @Override
+    public String[] getDisplayField(int xStart, int yStart, int regionWidth, int regionHeight) {
+        if (xStart < 0 || yStart < 0 || regionWidth < 1 || regionHeight < 1
+                || xStart + regionWidth > width || yStart + regionHeight > height) {
+            throw new MinesweeperException("Region is outside of the map", "error.code.viewport.invalid");
+        }
+
+        String[] rows = new String[regionHeight];
+        char[] row = new char[regionWidth * 2 - 1];
+        for (int x = 1; x < row.length; x += 2) {
+            row[x] = ' ';
+        }
+
+        for (int y = 0; y < regionHeight; y++) {
+            int rowStart = toIndex(xStart, yStart + y);
+            for (int x = 0; x < regionWidth; x++) {
+                row[x * 2] = getMark(rowStart + x);
+            }
+            rows[y] = new String(row);
+        }
+        return rows;
+    }
+
+    private static void checkInitialParametersValid(int height, int width, int mineCount) {
+        if (height < MINIMUM_ALLOWED_HEIGHT) {
+            throw new MinesweeperException("Height less than allowed: " + MINIMUM_ALLOWED_HEIGHT,
+                    "error.code.limit.height");
+        }
+
+        if (width < MINIMUM_ALLOWED_WIDTH) {
+            throw new MinesweeperException("Width less than allowed: " + MINIMUM_ALLOWED_WIDTH,
+                    "error.code.limit.height");
+        }
+
+        long numberOfCells = (long) height * width;
+        if (numberOfCells > MAXIMUM_NUMBER_OF_CELLS) {
+            throw new MinesweeperException("More cells than allowed: " + MAXIMUM_NUMBER_OF_CELLS,
+                    "error.code.limit.height");
+        }
+
+        // Original has bug where you actually can add more mines than fields if you type the number
+        // (there is counter that has up and down arrows, there check works, the typing is the problem)
+        if (mineCount < MINIMUM_NUMBER_OF_MINES) {
+            throw new MinesweeperException("Less mines than allowed. " +
+                    "Allowed minimum of mines: " + MINIMUM_NUMBER_OF_MINES, "error.code.limit.height");
+        }
+
+        long maximumAllowedNumberOfMines = numberOfCells - MINIMUM_NUMBER_OF_MINELESS_CELLS;
+        if (mineCount > maximumAllowedNumberOfMines) {
+            throw new MinesweeperException("More mines than allowed. " +
+                    "Allowed maximum of mines for this field: " + maximumAllowedNumberOfMines
+                    , "error.code.limit.height");
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.sarief.minesweeper.entity;
+
+/**
+ * Shape of the board: which cells are adjacent to each other.
+ *
+ * Neighbors are found by adding precomputed offsets to the index of the cell, so nothing is allocated per lookup.
+ * Each offset has a mask of board edges that block it (neighbor to the left doesn't exist in the first column),
+ * and cells on the edge skip blocked offsets. Offsets may depend on parity of the row, which is how hexagonal
+ * boards are laid out
+ */
+public final class BoardTopology {
+    private static final int LEFT_EDGE = 1;
+    private static final int RIGHT_EDGE = 1 << 1;
+    private static final int TOP_EDGE = 1 << 2;
+    private static final int BOTTOM_EDGE = 1 << 3;
+
+    // {x, y} adjustments of every direction, row by row, same order as in MinefieldSquaredMap.findAllAdjacentCells
+    private static final int[][] SQUARE_DIRECTIONS = {
+            {-1, -1}, {0, -1}, {1, -1},
+            {-1, 0}, {1, 0},
+            {-1, 1}, {0, 1}, {1, 1}};
+    // hexagonal rows are "odd-r": every odd row is shifted half a cell to the right
+    private static final int[][] HEXAGONAL_EVEN_ROW_DIRECTIONS = {
+            {-1, -1}, {0, -1},
+            {-1, 0}, {1, 0},
+            {-1, 1}, {0, 1}};
+    private static final int[][] HEXAGONAL_ODD_ROW_DIRECTIONS = {
+            {0, -1}, {1, -1},
+            {-1, 0}, {1, 0},
+            {0, 1}, {1, 1}};
+
+    private final int height;
+    private final int width;
+    private final boolean square;
+    // [parity of the row][direction]
+    private final int[][] offsets;
+    private final int[][] blockingEdges;
+
+    private BoardTopology(int height, int width, boolean square, int[][] evenRowDirections, int[][] oddRowDirections) {
+        this.height = height;
+        this.width = width;
+        this.square = square;
+        this.offsets = new int[][]{toOffsets(evenRowDirections, width), toOffsets(oddRowDirections, width)};
+        this.blockingEdges = new int[][]{toBlockingEdges(evenRowDirections), toBlockingEdges(oddRowDirections)};
+    }
+
+    /**
+     * Board of squares, every cell has up to 8 neighbors
+     *
+     * @param height - number of rows
+     * @param width - number of columns
+     * @return topology of the board
+     */
+    public static BoardTopology square(int height, int width) {
+        return new BoardTopology(height, width, true, SQUARE_DIRECTIONS, SQUARE_DIRECTIONS);
+    }
+
+    /**
+     * Board of hexagons in rows, every odd row shifted half a cell to the right. Every cell has up to 6 neighbors
+     *
+     * @param height - number of rows
+     * @param width - number of columns
+     * @return topology of the board
+     */
+    public static BoardTopology hexagonal(int height, int width) {
+        return new BoardTopology(height, width, false, HEXAGONAL_EVEN_ROW_DIRECTIONS, HEXAGONAL_ODD_ROW_DIRECTIONS);
+    }
+
+    private static int[] toOffsets(int[][] directions, int width) {
+        int[] offsets = new int[directions.length];
+        for (int direction = 0; direction < directions.length; direction++) {
+            offsets[direction] = directions[direction][1] * width + directions[direction][0];
+        }
+        return offsets;
+    }
+
+    private static int[] toBlockingEdges(int[][] directions) {
+        int[] blockingEdges = new int[directions.length];
+        for (int direction = 0; direction < directions.length; direction++) {
+            int xAdjustment = directions[direction][0];
+            int yAdjustment = directions[direction][1];
+            blockingEdges[direction] = (xAdjustment < 0 ? LEFT_EDGE : 0) | (xAdjustment > 0 ? RIGHT_EDGE : 0)
+                    | (yAdjustment < 0 ? TOP_EDGE : 0) | (yAdjustment > 0 ? BOTTOM_EDGE : 0);
+        }
+        return blockingEdges;
+    }
+
+    /**
+     * Get maximum number of neighbors single cell can have
+     *
+     * @return maximum number of neighbors
+     */
+    public int getMaximumNumberOfAdjacentCells() {
+        return offsets[0].length;
+    }
+
+    /**
+     * Find indexes of adjacent cells
+     *
+     * @param index index of the cell
+     * @param adjacentCells array to put indexes into, at least {@link #getMaximumNumberOfAdjacentCells()} long
+     * @return number of found adjacent cells
+     */
+    public int getAdjacentCells(int index, int[] adjacentCells) {
+        int x = index % width;
+        int y = index / width;
+        int edges = (x == 0 ? LEFT_EDGE : 0) | (x == width - 1 ? RIGHT_EDGE : 0)
+                | (y == 0 ? TOP_EDGE : 0) | (y == height - 1 ? BOTTOM_EDGE : 0);
+
+        int[] rowOffsets = offsets[y & 1];
+        int[] rowBlockingEdges = blockingEdges[y & 1];
+        int numberOfAdjacentCells = 0;
+        for (int direction = 0; direction < rowOffsets.length; direction++) {
+            if ((edges & rowBlockingEdges[direction]) == 0) {
+                adjacentCells[numberOfAdjacentCells++] = index + rowOffsets[direction];
+            }
+        }
+        return numberOfAdjacentCells;
+    }
+
+    /**
+     * Count adjacent mines of every cell in one pass over the board
+     *
+     * @param cells - state of cells indexed by y * width + x, lowest bit is set for mines.
+     *              Count is added to each cell, shifted by countShift
+     * @param countShift - position of the count in the cell state, count takes 4 bits
+     */
+    public void countAdjacentMines(byte[] cells, int countShift) {
+        if (square) {
+            AbstractMinefieldMap.countAdjacentMines(cells, height, width, countShift);
+            return;
+        }
+
+        // every mine adds one to each of its neighbors
+        int[] adjacentCells = new int[getMaximumNumberOfAdjacentCells()];
+        int numberOfCells = height * width;
+        for (int index = 0; index < numberOfCells; index++) {
+            if ((cells[index] & 1) == 0) {
+                continue;
+            }
+            int numberOfAdjacentCells = getAdjacentCells(index, adjacentCells);
+            for (int i = 0; i < numberOfAdjacentCells; i++) {
+                cells[adjacentCells[i]] += 1 << countShift;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.sarief.minesweeper.entity;
+
+import java.util.Arrays;
+
+/**
+ * Indexes of cells that changed during single operation on the map.
+ *
+ * Journal has a limit: once more cells changed than it allows, it only remembers that it overflowed.
+ * Such big change is not sent cell by cell, clients request the map again
+ */
+public class CellChangeJournal {
+    private static final int INITIAL_CAPACITY = 16;
+    // journal can grow to its limit on one flood fill, most moves change a few cells
+    private static final int MAXIMUM_RETAINED_CAPACITY = 4096;
+
+    private final int limit;
+    private int[] changedCells = new int[INITIAL_CAPACITY];
+    private int size;
+    private boolean overflowed;
+
+    public CellChangeJournal(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Remember that cell changed. Same cell can be recorded multiple times
+     *
+     * @param index index of the cell
+     */
+    public void record(int index) {
+        if (overflowed) {
+            return;
+        }
+        if (size == limit) {
+            overflowed = true;
+            return;
+        }
+        if (size == changedCells.length) {
+            changedCells = Arrays.copyOf(changedCells, Math.min(changedCells.length * 2, limit));
+        }
+        changedCells[size++] = index;
+    }
+
+    /**
+     * Forget all recorded changes. Array grown by a big change is dropped, so it isn't kept for the life of the map
+     */
+    public void clear() {
+        size = 0;
+        overflowed = false;
+        if (changedCells.length > MAXIMUM_RETAINED_CAPACITY) {
+            changedCells = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Check if anything changed since journal was cleared
+     *
+     * @return true if nothing changed
+     */
+    public boolean isEmpty() {
+        return size == 0 && !overflowed;
+    }
+
+    /**
+     * Check if more cells changed than journal can remember
+     *
+     * @return true if changed cells are not known anymore
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Get changed cells, each cell once, in ascending order. Meaningless if journal overflowed
+     *
+     * @return indexes of changed cells
+     */
+    public int[] getChangedCells() {
+        int[] sortedCells = Arrays.copyOf(changedCells, size);
+        Arrays.sort(sortedCells);
+
+        int distinctCount = 0;
+        for (int i = 0; i < sortedCells.length; i++) {
+            if (i == 0 || sortedCells[i] != sortedCells[i - 1]) {
+                sortedCells[distinctCount++] = sortedCells[i];
+            }
+        }
+        return Arrays.copyOf(sortedCells, distinctCount);
+    }
+}
@@ -18,7 +18,6 @@ public class MineCell {
     private boolean marked; // marked with "flag"
     @Getter(AccessLevel.NONE)
     private boolean containsMine;
-    private MineCellAdjacentInfo mineCellAdjacentInfo; // adjacent mine cells pointers
 
     // just sugar instead of lombok autogenerated name, because isContainsMine doesn't sound correct
     // and lombok won't do it either... https://github.com/projectlombok/lombok/issues/836
@@ -0,0 +1,431 @@
+package com.sarief.minesweeper.entity;
+
+
+import com.sarief.minesweeper.exception.MinesweeperNotImplementedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
+
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.ADJACENT_MINES_SHIFT;
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.FLAG_BIT;
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.MINE_BIT;
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.OPEN_BIT;
+
+/**
+ * Squared implementation of {@link MinefieldMap} for very big boards. Cells are kept in chunks of 64x64 cells,
+ * and chunk is created only when one of its cells is touched, so memory depends on explored area, not on size of the map.
+ *
+ * Mines of the chunk are derived from the seed, the starting point and index of the chunk, so chunks can be created
+ * in any order and always get the same mines. Number of mines of each chunk is decided once the game starts:
+ * every chunk gets its share proportional to its number of cells, and mines left over after rounding down
+ * are given one per chunk in order of a permutation derived from the seed. Total number of mines is exactly mineCount.
+ *
+ * Cells use the same byte layout as {@link MinefieldDenseMap}
+ */
+public class MinefieldChunkedMap extends AbstractMinefieldMap {
+    private static final int CHUNK_SIZE_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SIZE_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CELLS_PER_CHUNK = CHUNK_SIZE * CHUNK_SIZE;
+    private static final long CHUNK_SEED_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int NO_START = -1;
+
+    private int chunksPerRow;
+    private int numberOfChunks;
+    // null until any cell of the chunk is touched
+    private byte[][] chunks = new byte[0][];
+    private int createdChunks;
+
+    // set once the game starts, mines of the chunk are known only after that
+    private int[] mineQuotas;
+    private int startIndex = NO_START;
+
+    @Override
+    public MinefieldType getType() {
+        return MinefieldType.CHUNKED;
+    }
+
+    @Override
+    public void reset(int height, int width, int mineCount, Long seed) {
+
+        resetParameters(height, width, mineCount, seed);
+
+        chunksPerRow = (width + CHUNK_MASK) >>> CHUNK_SIZE_BITS;
+        numberOfChunks = chunksPerRow * ((height + CHUNK_MASK) >>> CHUNK_SIZE_BITS);
+        chunks = new byte[numberOfChunks][];
+        createdChunks = 0;
+        mineQuotas = null;
+        startIndex = NO_START;
+
+        gameState = GameState.PREPARED;
+    }
+
+    @Override
+    protected void placeMines(int xStart, int yStart) {
+        // nothing is placed here, chunks get their mines when they are created
+        startIndex = toIndex(xStart, yStart);
+        mineQuotas = calculateMineQuotas(getChunkIndex(xStart, yStart));
+
+        // chunks touched before the start only have flags so far
+        for (int chunkIndex = 0; chunkIndex < numberOfChunks; chunkIndex++) {
+            if (chunks[chunkIndex] != null) {
+                addMines(chunkIndex, chunks[chunkIndex]);
+            }
+        }
+        for (int chunkIndex = 0; chunkIndex < numberOfChunks; chunkIndex++) {
+            if (chunks[chunkIndex] != null) {
+                addAdjacentMineCounts(chunkIndex, chunks[chunkIndex]);
+            }
+        }
+    }
+
+    private int[] calculateMineQuotas(int startChunkIndex) {
+        long numberOfCells = (long) getHeight() * getWidth();
+        int[] quotas = new int[numberOfChunks];
+        long minesLeft = getMineCount();
+        for (int chunkIndex = 0; chunkIndex < numberOfChunks; chunkIndex++) {
+            quotas[chunkIndex] = (int) (getMineCount() * (long) getNumberOfCellsInChunk(chunkIndex) / numberOfCells);
+            minesLeft -= quotas[chunkIndex];
+        }
+
+        // rounding down loses less than one mine per chunk, so left over mines are given one per chunk.
+        // (order * step + offset) % numberOfChunks visits every chunk once if step is coprime with number of chunks
+        SplittableRandom rand = new SplittableRandom(getSeed());
+        long step = rand.nextLong(numberOfChunks) + 1;
+        while (gcd(step, numberOfChunks) != 1) {
+            step++;
+        }
+        long offset = rand.nextLong(numberOfChunks);
+        for (long order = 0; minesLeft > 0; order++) {
+            int chunkIndex = (int) ((order * step + offset) % numberOfChunks);
+            // starting point is never a mine, so starting chunk can't be filled completely
+            int capacity = getNumberOfCellsInChunk(chunkIndex) - (chunkIndex == startChunkIndex ? 1 : 0);
+            if (quotas[chunkIndex] < capacity) {
+                quotas[chunkIndex]++;
+                minesLeft--;
+            }
+        }
+        return quotas;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * Add mines of the chunk, same as if chunk was created from scratch
+     */
+    private void addMines(int chunkIndex, byte[] chunk) {
+        byte[] mines = generateMines(chunkIndex);
+        for (int localIndex = 0; localIndex < CELLS_PER_CHUNK; localIndex++) {
+            chunk[localIndex] |= mines[localIndex];
+        }
+    }
+
+    /**
+     * Place mines of the chunk with selection sampling, same as {@link AbstractMinefieldMap} does for the whole map
+     *
+     * @param chunkIndex index of the chunk
+     * @return mine bits of the chunk cells
+     */
+    private byte[] generateMines(int chunkIndex) {
+        byte[] mines = new byte[CELLS_PER_CHUNK];
+        int chunkX = chunkIndex % chunksPerRow << CHUNK_SIZE_BITS;
+        int chunkY = chunkIndex / chunksPerRow << CHUNK_SIZE_BITS;
+        int chunkWidth = Math.min(CHUNK_SIZE, getWidth() - chunkX);
+        int chunkHeight = Math.min(CHUNK_SIZE, getHeight() - chunkY);
+        int localStart = startIndex != NO_START && getChunkIndex(startIndex) == chunkIndex
+                ? getLocalIndex(startIndex) : NO_START;
+
+        SplittableRandom rand = new SplittableRandom(getSeed() + chunkIndex * CHUNK_SEED_GAMMA);
+        int minesToPlace = mineQuotas[chunkIndex];
+        int cellsToVisit = chunkWidth * chunkHeight - (localStart != NO_START ? 1 : 0);
+        for (int y = 0; y < chunkHeight && minesToPlace > 0; y++) {
+            for (int x = 0; x < chunkWidth && minesToPlace > 0; x++) {
+                int localIndex = y << CHUNK_SIZE_BITS | x;
+                if (localIndex == localStart) {
+                    continue;
+                }
+                if (rand.nextInt(cellsToVisit) < minesToPlace) {
+                    mines[localIndex] = MINE_BIT;
+                    minesToPlace--;
+                }
+                cellsToVisit--;
+            }
+        }
+        return mines;
+    }
+
+    /**
+     * Count adjacent mines of the chunk cells. Cells on the border of the chunk need mines of neighbor chunks,
+     * those are generated again if neighbor chunk doesn't exist yet, but not kept
+     */
+    private void addAdjacentMineCounts(int chunkIndex, byte[] chunk) {
+        int chunkX = chunkIndex % chunksPerRow << CHUNK_SIZE_BITS;
+        int chunkY = chunkIndex / chunksPerRow << CHUNK_SIZE_BITS;
+        int chunkWidth = Math.min(CHUNK_SIZE, getWidth() - chunkX);
+        int chunkHeight = Math.min(CHUNK_SIZE, getHeight() - chunkY);
+
+        // chunk with one cell of every neighbor around it
+        int paddedWidth = chunkWidth + 2;
+        int paddedHeight = chunkHeight + 2;
+        byte[] padded = new byte[paddedWidth * paddedHeight];
+        byte[][] neighborMines = new byte[9][];
+        for (int paddedY = 0; paddedY < paddedHeight; paddedY++) {
+            int y = chunkY + paddedY - 1;
+            for (int paddedX = 0; paddedX < paddedWidth; paddedX++) {
+                int x = chunkX + paddedX - 1;
+                if (!isWithinBounds(x, y)) {
+                    continue;
+                }
+                int neighborIndex = getChunkIndex(x, y);
+                byte[] mines;
+                if (neighborIndex == chunkIndex) {
+                    mines = chunk;
+                } else {
+                    // 3x3 chunks around this one, numbered row by row
+                    int slot = ((y >> CHUNK_SIZE_BITS) - (chunkY >> CHUNK_SIZE_BITS) + 1) * 3
+                            + (x >> CHUNK_SIZE_BITS) - (chunkX >> CHUNK_SIZE_BITS) + 1;
+                    if (neighborMines[slot] == null) {
+                        neighborMines[slot] = chunks[neighborIndex] != null
+                                ? chunks[neighborIndex] : generateMines(neighborIndex);
+                    }
+                    mines = neighborMines[slot];
+                }
+                padded[paddedY * paddedWidth + paddedX] = (byte) (mines[(y & CHUNK_MASK) << CHUNK_SIZE_BITS | (x & CHUNK_MASK)] & MINE_BIT);
+            }
+        }
+
+        countAdjacentMines(padded, paddedHeight, paddedWidth, ADJACENT_MINES_SHIFT);
+        for (int y = 0; y < chunkHeight; y++) {
+            for (int x = 0; x < chunkWidth; x++) {
+                int count = (padded[(y + 1) * paddedWidth + x + 1] & 0xFF) >>> ADJACENT_MINES_SHIFT;
+                chunk[y << CHUNK_SIZE_BITS | x] |= count << ADJACENT_MINES_SHIFT;
+            }
+        }
+    }
+
+    private int getNumberOfCellsInChunk(int chunkIndex) {
+        int chunkX = chunkIndex % chunksPerRow << CHUNK_SIZE_BITS;
+        int chunkY = chunkIndex / chunksPerRow << CHUNK_SIZE_BITS;
+        return Math.min(CHUNK_SIZE, getWidth() - chunkX) * Math.min(CHUNK_SIZE, getHeight() - chunkY);
+    }
+
+    private int getChunkIndex(int x, int y) {
+        return (y >>> CHUNK_SIZE_BITS) * chunksPerRow + (x >>> CHUNK_SIZE_BITS);
+    }
+
+    private int getChunkIndex(int index) {
+        return getChunkIndex(index % getWidth(), index / getWidth());
+    }
+
+    private int getLocalIndex(int index) {
+        int x = index % getWidth();
+        int y = index / getWidth();
+        return (y & CHUNK_MASK) << CHUNK_SIZE_BITS | (x & CHUNK_MASK);
+    }
+
+    /**
+     * Find chunk of the cell, creating it if needed
+     */
+    private byte[] getOrCreateChunk(int index) {
+        int chunkIndex = getChunkIndex(index);
+        byte[] chunk = chunks[chunkIndex];
+        if (chunk == null) {
+            chunk = new byte[CELLS_PER_CHUNK];
+            if (mineQuotas != null) {
+                addMines(chunkIndex, chunk);
+                addAdjacentMineCounts(chunkIndex, chunk);
+            }
+            chunks[chunkIndex] = chunk;
+            createdChunks++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Get state of the cell without creating its chunk. Untouched chunk has all cells closed and not flagged
+     */
+    private int getStateIfCreated(int index) {
+        byte[] chunk = chunks[getChunkIndex(index)];
+        return chunk != null ? chunk[getLocalIndex(index)] : 0;
+    }
+
+    private void setBit(int index, int bit, boolean value) {
+        byte[] chunk = getOrCreateChunk(index);
+        int localIndex = getLocalIndex(index);
+        if (value) {
+            chunk[localIndex] |= bit;
+        } else {
+            chunk[localIndex] &= ~bit;
+        }
+    }
+
+    @Override
+    public boolean containsMine(int index) {
+        return (getOrCreateChunk(index)[getLocalIndex(index)] & MINE_BIT) != 0;
+    }
+
+    @Override
+    public boolean isOpen(int index) {
+        return (getStateIfCreated(index) & OPEN_BIT) != 0;
+    }
+
+    @Override
+    public boolean isFlagged(int index) {
+        return (getStateIfCreated(index) & FLAG_BIT) != 0;
+    }
+
+    @Override
+    public int getNumberOfAdjacentMines(int index) {
+        return (getOrCreateChunk(index)[getLocalIndex(index)] & 0xFF) >>> ADJACENT_MINES_SHIFT;
+    }
+
+    @Override
+    public void openCell(int index) {
+        if (isFlagged(index)) {
+            setBit(index, FLAG_BIT, false);
+            flagsUsed--;
+        }
+        setBit(index, OPEN_BIT, true);
+        onCellChanged(index);
+    }
+
+    @Override
+    public void flagCell(int x, int y) {
+        checkCoordinatesValid(x, y);
+        int index = toIndex(x, y);
+        if (!isOpen(index) && !isFlagged(index)) {
+            setBit(index, FLAG_BIT, true);
+            flagsUsed++;
+            onCellChanged(index);
+        }
+    }
+
+    @Override
+    public void unflagCell(int x, int y) {
+        checkCoordinatesValid(x, y);
+        int index = toIndex(x, y);
+        if (isFlagged(index)) {
+            setBit(index, FLAG_BIT, false);
+            flagsUsed--;
+            onCellChanged(index);
+        }
+    }
+
+    @Override
+    public char getMark(int index) {
+        return MinefieldDenseMap.toMark((byte) getStateIfCreated(index));
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        // array of chunk references plus created chunks
+        return (long) numberOfChunks * Long.BYTES + (long) createdChunks * CELLS_PER_CHUNK;
+    }
+
+    @Override
+    protected void placeMine(int index) {
+        throw new UnsupportedOperationException("Mines of chunked map are derived from the seed");
+    }
+
+    @Override
+    protected void restoreCell(int index, boolean open, boolean flagged) {
+        setBit(index, OPEN_BIT, open);
+        setBit(index, FLAG_BIT, flagged);
+    }
+
+    @Override
+    public MinefieldSnapshot createSnapshot() {
+        // snapshot keeps state of every cell, which would create every chunk
+        throw new MinesweeperNotImplementedException();
+    }
+
+    @Override
+    public void restore(MinefieldSnapshot snapshot, IntUnaryOperator cellStates) {
+        throw new MinesweeperNotImplementedException();
+    }
+
+    @Override
+    public MineCell findByCoordinates(MineCellCoordinates mineCellCoordinate) {
+        return findByCoordinates(mineCellCoordinate.getXCoordinate(), mineCellCoordinate.getYCoordinate());
+    }
+
+    @Override
+    public MineCell findByCoordinates(int x, int y) {
+        if (!isWithinBounds(x, y)) {
+            return null;
+        }
+        return new ChunkedMineCell(x, y);
+    }
+
+    @Override
+    public List<MineCell> getAdjacentCells(MineCellCoordinates mineCellCoordinate) {
+        int[] adjacentIndexes = new int[getMaximumNumberOfAdjacentCells()];
+        int numberOfAdjacentCells = getAdjacentCells(
+                toIndex(mineCellCoordinate.getXCoordinate(), mineCellCoordinate.getYCoordinate()), adjacentIndexes);
+
+        List<MineCell> adjacentCells = new ArrayList<>(numberOfAdjacentCells);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            adjacentCells.add(new ChunkedMineCell(adjacentIndexes[i] % getWidth(), adjacentIndexes[i] / getWidth()));
+        }
+        return adjacentCells;
+    }
+
+    @Override
+    public int getNumberOfAdjecentMines(MineCell selectedMineCell) {
+        MineCellCoordinates coordinates = selectedMineCell.getCoordinates();
+        return getNumberOfAdjacentMines(toIndex(coordinates.getXCoordinate(), coordinates.getYCoordinate()));
+    }
+
+    /**
+     * {@link MineCell} that reads and writes state straight to the chunk of the map
+     */
+    private final class ChunkedMineCell extends MineCell {
+        private final int index;
+
+        private ChunkedMineCell(int x, int y) {
+            super(MineCellCoordinates.builder().xCoordinate(x).yCoordinate(y).build(), false, false, false);
+            this.index = toIndex(x, y);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return MinefieldChunkedMap.this.isOpen(index);
+        }
+
+        @Override
+        public void setOpen(boolean open) {
+            setBit(index, OPEN_BIT, open);
+            onCellChanged(index);
+        }
+
+        @Override
+        public boolean isMarked() {
+            return isFlagged(index);
+        }
+
+        @Override
+        public void setMarked(boolean marked) {
+            setBit(index, FLAG_BIT, marked);
+            onCellChanged(index);
+        }
+
+        @Override
+        public boolean containsMine() {
+            return MinefieldChunkedMap.this.containsMine(index);
+        }
+
+        @Override
+        public void setContainsMine(boolean containsMine) {
+            throw new UnsupportedOperationException("Mines of chunked map are derived from the seed");
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.sarief.minesweeper.entity;
+
+
+import com.sarief.minesweeper.exception.MinesweeperException;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Implementation of {@link MinefieldMap} that keeps whole state of the cell packed in a single byte.
+ * Board is square by default, shape of the board comes from {@link #createTopology(int, int)}.
+ *
+ * Cells are stored in one array indexed by y * width + x, so looking up a cell doesn't create any objects.
+ * {@link MineCell} instances returned by this map are just views over that array.
+ */
+@Getter
+@Setter
+public class MinefieldDenseMap extends AbstractMinefieldMap {
+    // cell byte layout: bits 0-2 are mine/open/flag, bits 4-7 keep number of adjacent mines (0-8).
+    // MinefieldChunkedMap uses the same layout
+    static final int MINE_BIT = 1; // must stay the lowest bit, see countAdjacentMines
+    static final int OPEN_BIT = 1 << 1;
+    static final int FLAG_BIT = 1 << 2;
+    static final int ADJACENT_MINES_SHIFT = 4;
+    private static final int NUMBER_OF_CELL_STATES = 256;
+
+    // state byte already has everything needed to show the cell, so marks for each of 256 states are prepared once
+    private static final char[] MARKS_BY_STATE = new char[NUMBER_OF_CELL_STATES];
+
+    static {
+        for (int state = 0; state < NUMBER_OF_CELL_STATES; state++) {
+            MARKS_BY_STATE[state] = buildMark(state);
+        }
+    }
+
+    private byte[] cells = new byte[0];
+    // mines were placed before the first click, see placeMinesInAdvance
+    private boolean minesPlacedInAdvance;
+
+    @Override
+    public MineCell findByCoordinates(MineCellCoordinates mineCellCoordinate) {
+        return findByCoordinates(mineCellCoordinate.getXCoordinate(), mineCellCoordinate.getYCoordinate());
+    }
+
+    @Override
+    public MineCell findByCoordinates(int x, int y) {
+        if (!isWithinBounds(x, y)) {
+            return null;
+        }
+        return new DenseMineCell(x, y);
+    }
+
+    @Override
+    public List<MineCell> getAdjacentCells(MineCellCoordinates mineCellCoordinate) {
+        int[] adjacentIndexes = new int[getMaximumNumberOfAdjacentCells()];
+        int numberOfAdjacentCells = getAdjacentCells(
+                toIndex(mineCellCoordinate.getXCoordinate(), mineCellCoordinate.getYCoordinate()), adjacentIndexes);
+
+        List<MineCell> adjacentCells = new ArrayList<>(numberOfAdjacentCells);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            adjacentCells.add(new DenseMineCell(adjacentIndexes[i] % getWidth(), adjacentIndexes[i] / getWidth()));
+        }
+        return adjacentCells;
+    }
+
+    @Override
+    public int getNumberOfAdjecentMines(MineCell selectedMineCell) {
+        MineCellCoordinates coordinates = selectedMineCell.getCoordinates();
+        return getNumberOfAdjacentMines(toIndex(coordinates.getXCoordinate(), coordinates.getYCoordinate()));
+    }
+
+    @Override
+    public boolean containsMine(int index) {
+        return (cells[index] & MINE_BIT) != 0;
+    }
+
+    @Override
+    public boolean isOpen(int index) {
+        return (cells[index] & OPEN_BIT) != 0;
+    }
+
+    @Override
+    public boolean isFlagged(int index) {
+        return (cells[index] & FLAG_BIT) != 0;
+    }
+
+    @Override
+    public int getNumberOfAdjacentMines(int index) {
+        return (cells[index] & 0xFF) >>> ADJACENT_MINES_SHIFT;
+    }
+
+    @Override
+    public void openCell(int index) {
+        if (isFlagged(index)) {
+            setBit(index, FLAG_BIT, false);
+            flagsUsed--;
+        }
+        setBit(index, OPEN_BIT, true);
+        onCellChanged(index);
+    }
+
+    private void setBit(int index, int bit, boolean value) {
+        if (value) {
+            cells[index] |= bit;
+        } else {
+            cells[index] &= ~bit;
+        }
+    }
+
+    @Override
+    protected void placeMine(int index) {
+        setBit(index, MINE_BIT, true);
+    }
+
+    @Override
+    protected void restoreCell(int index, boolean open, boolean flagged) {
+        setBit(index, OPEN_BIT, open);
+        setBit(index, FLAG_BIT, flagged);
+    }
+
+    @Override
+    protected void onMinesPlaced() {
+        getTopology().countAdjacentMines(cells, ADJACENT_MINES_SHIFT);
+    }
+
+    /**
+     * Place mines while the game is still prepared, so that ready map can wait for its player.
+     * Mines can be anywhere: if the first click hits a mine, that mine is moved to a random free cell,
+     * so every layout with free starting point stays as likely as when mines are placed on the first click
+     */
+    public void placeMinesInAdvance() {
+        if (gameState != GameState.PREPARED || minesPlacedInAdvance) {
+            throw new MinesweeperException("Game already initiated", "error.code.game.state.lost");
+        }
+
+        placeMinesAvoiding(-1);
+        minesPlacedInAdvance = true;
+    }
+
+    @Override
+    protected void placeMines(int xStart, int yStart) {
+        if (!minesPlacedInAdvance) {
+            super.placeMines(xStart, yStart);
+            return;
+        }
+
+        minesPlacedInAdvance = false;
+        int startIndex = toIndex(xStart, yStart);
+        if (containsMine(startIndex)) {
+            moveMine(startIndex, findRandomFreeCell());
+        }
+    }
+
+    private int findRandomFreeCell() {
+        // split, so the stream doesn't repeat the one that placed mines. Starting point has a mine, it is never hit
+        SplittableRandom rand = new SplittableRandom(getSeed()).split();
+        int index;
+        do {
+            index = rand.nextInt(cells.length);
+        } while (containsMine(index));
+        return index;
+    }
+
+    private void moveMine(int fromIndex, int toIndex) {
+        int[] adjacentCells = new int[getMaximumNumberOfAdjacentCells()];
+
+        setBit(fromIndex, MINE_BIT, false);
+        int numberOfAdjacentCells = getAdjacentCells(fromIndex, adjacentCells);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            cells[adjacentCells[i]] -= 1 << ADJACENT_MINES_SHIFT;
+        }
+
+        setBit(toIndex, MINE_BIT, true);
+        numberOfAdjacentCells = getAdjacentCells(toIndex, adjacentCells);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            cells[adjacentCells[i]] += 1 << ADJACENT_MINES_SHIFT;
+        }
+    }
+
+    @Override
+    public void restore(MinefieldSnapshot snapshot, IntUnaryOperator cellStates) {
+        super.restore(snapshot, cellStates);
+
+        // prepared map with mines was placed in advance, its mines keep waiting for the first click
+        if (gameState == GameState.PREPARED && hasMines()) {
+            onMinesPlaced();
+            minesPlacedInAdvance = true;
+        }
+    }
+
+    private boolean hasMines() {
+        for (byte cell : cells) {
+            if ((cell & MINE_BIT) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void reset(int height, int width, int mineCount, Long seed) {
+
+        resetParameters(height, width, mineCount, seed);
+
+        cells = new byte[height * width];
+        minesPlacedInAdvance = false;
+
+        gameState = GameState.PREPARED;
+    }
+
+    @Override
+    public void flagCell(int x, int y) {
+        checkCoordinatesValid(x, y);
+        int index = toIndex(x, y);
+        if (!isOpen(index) && !isFlagged(index)) {
+            setBit(index, FLAG_BIT, true);
+            flagsUsed++;
+            onCellChanged(index);
+        }
+    }
+
+    @Override
+    public void unflagCell(int x, int y) {
+        checkCoordinatesValid(x, y);
+        int index = toIndex(x, y);
+        if (isFlagged(index)) {
+            setBit(index, FLAG_BIT, false);
+            flagsUsed--;
+            onCellChanged(index);
+        }
+    }
+
+    @Override
+    public MinefieldType getType() {
+        return MinefieldType.DENSE;
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        return cells.length;
+    }
+
+    @Override
+    public char getMark(int index) {
+        return toMark(cells[index]);
+    }
+
+    /**
+     * Get mark of the cell as player sees it
+     *
+     * @param state state byte of the cell
+     * @return mark of the cell
+     */
+    static char toMark(byte state) {
+        return MARKS_BY_STATE[state & 0xFF];
+    }
+
+    private static char buildMark(int state) {
+        if ((state & FLAG_BIT) != 0) {
+            return FLAG_MARK;
+        }
+        if ((state & OPEN_BIT) == 0) {
+            return UNKNOWN_MARK;
+        }
+        if ((state & MINE_BIT) != 0) {
+            return MINE_MARK;
+        }
+        return Character.forDigit(state >>> ADJACENT_MINES_SHIFT, 10);
+    }
+
+    /**
+     * {@link MineCell} that reads and writes state straight to the array of the map
+     */
+    private final class DenseMineCell extends MineCell {
+        private final int index;
+
+        private DenseMineCell(int x, int y) {
+            super(MineCellCoordinates.builder().xCoordinate(x).yCoordinate(y).build(), false, false, false);
+            this.index = toIndex(x, y);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return MinefieldDenseMap.this.isOpen(index);
+        }
+
+        @Override
+        public void setOpen(boolean open) {
+            setBit(index, OPEN_BIT, open);
+            onCellChanged(index);
+        }
+
+        @Override
+        public boolean isMarked() {
+            return isFlagged(index);
+        }
+
+        @Override
+        public void setMarked(boolean marked) {
+            setBit(index, FLAG_BIT, marked);
+            onCellChanged(index);
+        }
+
+        @Override
+        public boolean containsMine() {
+            return MinefieldDenseMap.this.containsMine(index);
+        }
+
+        @Override
+        public void setContainsMine(boolean containsMine) {
+            setBit(index, MINE_BIT, containsMine);
+        }
+    }
+}
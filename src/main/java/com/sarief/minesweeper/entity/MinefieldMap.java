@@ -2,6 +2,7 @@ package com.sarief.minesweeper.entity;
 
 
 import java.util.List;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Interface for Minefield maps. Map store state of the current game
@@ -82,6 +83,23 @@ public interface MinefieldMap {
      */
     void initiate(int xStart, int yStart);
 
+    /**
+     * Initiate map using another seed for mine placement. Seed of the map is replaced,
+     * so the map looks as if it was reset with that seed
+     *
+     * @param xStart x coordinate
+     * @param yStart y coordinate
+     * @param seed seed for mine placement algorithm
+     */
+    void initiate(int xStart, int yStart, long seed);
+
+    /**
+     * Get seed used for mine placement
+     *
+     * @return seed of the map
+     */
+    Long getSeed();
+
     /**
      * Set or reset game state with specific parameters
      *
@@ -122,4 +140,188 @@ public interface MinefieldMap {
      */
     char[][] getField();
 
+    /**
+     * Get map in form of rows, where marks of the cells are separated by spaces.
+     * Takes time proportional to the size of the result, map is not traversed cell by cell to build it
+     *
+     * @return rows of the map
+     */
+    String[] getDisplayField();
+
+    /**
+     * Get rectangular part of the map in the same form as {@link #getDisplayField()}.
+     * Takes time proportional to the size of the part, not of the whole map
+     *
+     * @param xStart x coordinate of the top left cell
+     * @param yStart y coordinate of the top left cell
+     * @param width number of columns, region must fit into the map
+     * @param height number of rows, region must fit into the map
+     * @return rows of the region, top to bottom
+     */
+    String[] getDisplayField(int xStart, int yStart, int width, int height);
+
+    /**
+     * Get number of rows
+     *
+     * @return number of rows
+     */
+    int getHeight();
+
+    /**
+     * Get number of columns
+     *
+     * @return number of columns
+     */
+    int getWidth();
+
+    /**
+     * Get number of mines on the map
+     *
+     * @return number of mines
+     */
+    int getMineCount();
+
+    /**
+     * Check that cell with such coordinates exists on the map
+     *
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @return true if coordinates are within the map
+     */
+    boolean isWithinBounds(int x, int y);
+
+    // Methods below address cells by single int index (y * width + x) instead of coordinates objects,
+    // so hot paths like opening big areas don't need to create objects for every visited cell
+
+    /**
+     * Convert coordinates to index of the cell
+     *
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @return index of the cell
+     */
+    default int toIndex(int x, int y) {
+        return y * getWidth() + x;
+    }
+
+    /**
+     * Check if cell contains mine
+     *
+     * @param index index of the cell
+     * @return true if cell contains mine
+     */
+    boolean containsMine(int index);
+
+    /**
+     * Check if cell is open
+     *
+     * @param index index of the cell
+     * @return true if cell is open
+     */
+    boolean isOpen(int index);
+
+    /**
+     * Check if cell is flagged
+     *
+     * @param index index of the cell
+     * @return true if cell is flagged
+     */
+    boolean isFlagged(int index);
+
+    /**
+     * Find number of adjacent mines to specified cell
+     *
+     * @param index index of the cell
+     * @return number of adjacent mines. 0 means no mines
+     */
+    int getNumberOfAdjacentMines(int index);
+
+    /**
+     * Find indexes of adjacent cells. Number of neighbors depends on Map.
+     *
+     * @param index index of the cell
+     * @param adjacentCells array to put indexes into, at least {@link #getMaximumNumberOfAdjacentCells()} long
+     * @return number of found adjacent cells
+     */
+    int getAdjacentCells(int index, int[] adjacentCells);
+
+    /**
+     * Get maximum number of neighbors single cell can have on this map
+     *
+     * @return maximum number of neighbors
+     */
+    int getMaximumNumberOfAdjacentCells();
+
+    /**
+     * Mark cell as open. Flag is removed if cell was flagged. Doesn't change counters of open cells
+     *
+     * @param index index of the cell
+     */
+    void openCell(int index);
+
+    /**
+     * Get implementation type of the map
+     *
+     * @return type of the map
+     */
+    MinefieldType getType();
+
+    /**
+     * Take everything except cells needed to restore the map. Cells are read with
+     * {@link #containsMine(int)}, {@link #isOpen(int)} and {@link #isFlagged(int)}
+     *
+     * @return parameters and counters of the map
+     */
+    MinefieldSnapshot createSnapshot();
+
+    /**
+     * Replace whole state of the map with the one from snapshot
+     *
+     * @param snapshot parameters and counters of the map
+     * @param cellStates state of the cell by its index, combination of MinefieldSnapshot.CELL_ bits
+     */
+    void restore(MinefieldSnapshot snapshot, IntUnaryOperator cellStates);
+
+    /**
+     * Estimate memory taken by cells of the map. Only meant for monitoring, so it is not exact
+     *
+     * @return estimated size in bytes
+     */
+    long estimateMemoryBytes();
+
+    /**
+     * Free memory the map keeps outside of the heap, without waiting for garbage collector.
+     * Map must not be used after that, until it is reset. Nothing to free by default
+     */
+    default void release() {
+    }
+
+    /**
+     * Start recording which cells change during the next operation. Changes recorded before are dropped
+     */
+    void startRecordingChanges();
+
+    /**
+     * Finish recording changes of the operation. Version of the map is increased if anything changed
+     *
+     * @return cells that changed since {@link #startRecordingChanges()}
+     */
+    CellChangeJournal finishRecordingChanges();
+
+    /**
+     * Get version of the map. Version increases with every operation that changed anything on the map,
+     * so clients can tell if their copy of the map is up to date
+     *
+     * @return version of the map
+     */
+    long getVersion();
+
+    /**
+     * Get mark of the cell as it should be shown to the player
+     *
+     * @param index index of the cell
+     * @return single character mark
+     */
+    char getMark(int index);
+
 }
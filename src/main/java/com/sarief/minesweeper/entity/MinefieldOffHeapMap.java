@@ -0,0 +1,256 @@
+package com.sarief.minesweeper.entity;
+
+
+import com.sarief.minesweeper.exception.MinesweeperNotImplementedException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.ADJACENT_MINES_SHIFT;
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.FLAG_BIT;
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.MINE_BIT;
+import static com.sarief.minesweeper.entity.MinefieldDenseMap.OPEN_BIT;
+
+/**
+ * Squared implementation of {@link MinefieldMap} for giant boards, with cells kept outside of the heap
+ * (see {@link OffHeapCellStorage}). Heap use doesn't depend on size of the board.
+ * Boards up to {@link #MAXIMUM_DIRECT_CELLS} cells are kept in direct memory, bigger ones or ones that
+ * don't fit into direct memory are mapped to a temporary file in java.io.tmpdir.
+ *
+ * Memory is freed when the map is reset or {@link #release() released}, not when map is garbage collected.
+ * Cells use the same byte layout as {@link MinefieldDenseMap}
+ */
+public class MinefieldOffHeapMap extends AbstractMinefieldMap {
+    private static final int MAXIMUM_DIRECT_CELLS = 1 << 28;
+    // rows counted at once, only they are copied to the heap
+    private static final int ROWS_PER_STRIP = 64;
+
+    private OffHeapCellStorage cells;
+
+    @Override
+    public MinefieldType getType() {
+        return MinefieldType.OFF_HEAP;
+    }
+
+    @Override
+    public void reset(int height, int width, int mineCount, Long seed) {
+
+        resetParameters(height, width, mineCount, seed);
+
+        release();
+        cells = allocate(height * width);
+
+        gameState = GameState.PREPARED;
+    }
+
+    private static OffHeapCellStorage allocate(int numberOfCells) {
+        Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+        if (numberOfCells > MAXIMUM_DIRECT_CELLS) {
+            return OffHeapCellStorage.map(directory, numberOfCells);
+        }
+        try {
+            return OffHeapCellStorage.allocateDirect(numberOfCells);
+        } catch (OutOfMemoryError e) {
+            // direct memory is limited by -XX:MaxDirectMemorySize, file has no such limit
+            return OffHeapCellStorage.map(directory, numberOfCells);
+        }
+    }
+
+    @Override
+    public void release() {
+        if (cells != null) {
+            cells.release();
+            cells = null;
+        }
+    }
+
+    @Override
+    public boolean containsMine(int index) {
+        return (cells.get(index) & MINE_BIT) != 0;
+    }
+
+    @Override
+    public boolean isOpen(int index) {
+        return (cells.get(index) & OPEN_BIT) != 0;
+    }
+
+    @Override
+    public boolean isFlagged(int index) {
+        return (cells.get(index) & FLAG_BIT) != 0;
+    }
+
+    @Override
+    public int getNumberOfAdjacentMines(int index) {
+        return (cells.get(index) & 0xFF) >>> ADJACENT_MINES_SHIFT;
+    }
+
+    private void setBit(int index, int bit, boolean value) {
+        byte state = cells.get(index);
+        cells.set(index, (byte) (value ? state | bit : state & ~bit));
+    }
+
+    @Override
+    public void openCell(int index) {
+        if (isFlagged(index)) {
+            setBit(index, FLAG_BIT, false);
+            flagsUsed--;
+        }
+        setBit(index, OPEN_BIT, true);
+        onCellChanged(index);
+    }
+
+    @Override
+    public void flagCell(int x, int y) {
+        checkCoordinatesValid(x, y);
+        int index = toIndex(x, y);
+        if (!isOpen(index) && !isFlagged(index)) {
+            setBit(index, FLAG_BIT, true);
+            flagsUsed++;
+            onCellChanged(index);
+        }
+    }
+
+    @Override
+    public void unflagCell(int x, int y) {
+        checkCoordinatesValid(x, y);
+        int index = toIndex(x, y);
+        if (isFlagged(index)) {
+            setBit(index, FLAG_BIT, false);
+            flagsUsed--;
+            onCellChanged(index);
+        }
+    }
+
+    @Override
+    protected void placeMine(int index) {
+        setBit(index, MINE_BIT, true);
+    }
+
+    /**
+     * Count adjacent mines strip by strip. Each strip is copied to the heap with one row above and below it,
+     * counted as a small map, and its own rows are copied back
+     */
+    @Override
+    protected void onMinesPlaced() {
+        int width = getWidth();
+        int height = getHeight();
+        byte[] strip = new byte[(ROWS_PER_STRIP + 2) * width];
+        for (int yStart = 0; yStart < height; yStart += ROWS_PER_STRIP) {
+            int yEnd = Math.min(yStart + ROWS_PER_STRIP, height);
+            int copyStart = Math.max(yStart - 1, 0);
+            int copyEnd = Math.min(yEnd + 1, height);
+            int copiedRows = copyEnd - copyStart;
+            // row above the strip already has its counts, only mine bits of neighbor rows are looked at
+            cells.read(copyStart * width, strip, 0, copiedRows * width);
+            countAdjacentMines(strip, copiedRows, width, ADJACENT_MINES_SHIFT);
+            cells.write(yStart * width, strip, (yStart - copyStart) * width, (yEnd - yStart) * width);
+        }
+    }
+
+    @Override
+    protected void restoreCell(int index, boolean open, boolean flagged) {
+        setBit(index, OPEN_BIT, open);
+        setBit(index, FLAG_BIT, flagged);
+    }
+
+    @Override
+    public char getMark(int index) {
+        return MinefieldDenseMap.toMark(cells.get(index));
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        // off-heap memory, map takes almost nothing on the heap
+        return cells != null ? cells.size() : 0;
+    }
+
+    @Override
+    public MinefieldSnapshot createSnapshot() {
+        // snapshot keeps every cell on the heap, which is what this map avoids
+        throw new MinesweeperNotImplementedException();
+    }
+
+    @Override
+    public void restore(MinefieldSnapshot snapshot, IntUnaryOperator cellStates) {
+        throw new MinesweeperNotImplementedException();
+    }
+
+    @Override
+    public MineCell findByCoordinates(MineCellCoordinates mineCellCoordinate) {
+        return findByCoordinates(mineCellCoordinate.getXCoordinate(), mineCellCoordinate.getYCoordinate());
+    }
+
+    @Override
+    public MineCell findByCoordinates(int x, int y) {
+        if (!isWithinBounds(x, y)) {
+            return null;
+        }
+        return new OffHeapMineCell(x, y);
+    }
+
+    @Override
+    public List<MineCell> getAdjacentCells(MineCellCoordinates mineCellCoordinate) {
+        int[] adjacentIndexes = new int[getMaximumNumberOfAdjacentCells()];
+        int numberOfAdjacentCells = getAdjacentCells(
+                toIndex(mineCellCoordinate.getXCoordinate(), mineCellCoordinate.getYCoordinate()), adjacentIndexes);
+
+        List<MineCell> adjacentCells = new ArrayList<>(numberOfAdjacentCells);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            adjacentCells.add(new OffHeapMineCell(adjacentIndexes[i] % getWidth(), adjacentIndexes[i] / getWidth()));
+        }
+        return adjacentCells;
+    }
+
+    @Override
+    public int getNumberOfAdjecentMines(MineCell selectedMineCell) {
+        MineCellCoordinates coordinates = selectedMineCell.getCoordinates();
+        return getNumberOfAdjacentMines(toIndex(coordinates.getXCoordinate(), coordinates.getYCoordinate()));
+    }
+
+    /**
+     * {@link MineCell} that reads and writes state straight to the storage of the map
+     */
+    private final class OffHeapMineCell extends MineCell {
+        private final int index;
+
+        private OffHeapMineCell(int x, int y) {
+            super(MineCellCoordinates.builder().xCoordinate(x).yCoordinate(y).build(), false, false, false);
+            this.index = toIndex(x, y);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return MinefieldOffHeapMap.this.isOpen(index);
+        }
+
+        @Override
+        public void setOpen(boolean open) {
+            setBit(index, OPEN_BIT, open);
+            onCellChanged(index);
+        }
+
+        @Override
+        public boolean isMarked() {
+            return isFlagged(index);
+        }
+
+        @Override
+        public void setMarked(boolean marked) {
+            setBit(index, FLAG_BIT, marked);
+            onCellChanged(index);
+        }
+
+        @Override
+        public boolean containsMine() {
+            return MinefieldOffHeapMap.this.containsMine(index);
+        }
+
+        @Override
+        public void setContainsMine(boolean containsMine) {
+            setBit(index, MINE_BIT, containsMine);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.sarief.minesweeper.entity;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Everything about the map except its cells. Together with state of every cell it is enough
+ * to restore the game exactly as it was
+ */
+@Getter
+@Builder
+public class MinefieldSnapshot {
+    /**
+     * Bit of the cell state that is set if cell contains mine
+     */
+    public static final int CELL_MINE = 1;
+    /**
+     * Bit of the cell state that is set if cell is open
+     */
+    public static final int CELL_OPEN = 1 << 1;
+    /**
+     * Bit of the cell state that is set if cell is flagged
+     */
+    public static final int CELL_FLAGGED = 1 << 2;
+
+    private MinefieldType type;
+    private GameState gameState;
+    private int height;
+    private int width;
+    private int mineCount;
+    private long seed;
+    private int openedCells;
+    private int flagsUsed;
+    private Long startingTimeInMillis;
+    private long version;
+}
@@ -1,52 +1,33 @@
 package com.sarief.minesweeper.entity;
 
 
-import com.sarief.minesweeper.exception.MinesweeperException;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * Squared implementation of {@link MinefieldMap}
  */
 @Getter
 @Setter
-public class MinefieldSquaredMap implements MinefieldMap {
+public class MinefieldSquaredMap extends AbstractMinefieldMap {
     private static final int NUMBER_OF_DIRECTIONS_TO_ADJACENT_CELLS = 8;
-    private static final int MINIMUM_NUMBER_OF_MINELESS_CELLS = 9;
-    private static final int MINIMUM_NUMBER_OF_MINES = 1;
-    private static final int MINIMUM_ALLOWED_HEIGHT = 5;
-    private static final int MINIMUM_ALLOWED_WIDTH = 5;
-    private GameState gameState = GameState.INITIAL;
+    private static final byte MINE_BIT = 1;
+    private static final int ADJACENT_MINES_SHIFT = 1;
+    // with compressed oops: HashMap node 32 + table slot ~8, MineCellCoordinates 24, MineCell 24,
+    // rendered mark 2 and adjacent mines 1
+    private static final long ESTIMATED_BYTES_PER_CELL = 91;
     private Map<MineCellCoordinates, MineCell> minefield = new HashMap<>();
-
-    private Long seed;
-
-    private int openedCells;
-
-    private int minelessCells;
-    private int mineCount;
-    private int height;
-    private int width;
-
-    private int flagsUsed;
-
-    private Long startingTimeInMillis;
-
-    @Override
-    public boolean isGameLost() {
-        return gameState == GameState.FINISHED_LOST;
-    }
-
-    @Override
-    public void finishGameLost() {
-        gameState = GameState.FINISHED_LOST;
-    }
+    // marks of all cells as player sees them. Kept up to date on every change, so showing the map
+    // doesn't need to look up every cell in the minefield
+    private char[] renderedMarks = new char[0];
+    // mine in the lowest bit and number of adjacent mines above it, counted for all cells once mines are placed
+    private byte[] adjacentMines = new byte[0];
 
     public MineCell findByCoordinates(MineCellCoordinates mineCellCoordinate) {
         return minefield.get(mineCellCoordinate);
@@ -54,20 +35,7 @@ public class MinefieldSquaredMap implements MinefieldMap {
 
     @Override
     public List<MineCell> getAdjacentCells(MineCellCoordinates mineCellCoordinates) {
-
-        MineCell minecell = findByCoordinates(mineCellCoordinates);
-        MineCellAdjacentInfo cachedAdjacentInfo = minecell.getMineCellAdjacentInfo();
-        if (cachedAdjacentInfo != null && cachedAdjacentInfo.getAdjacentCells() != null) {
-            return cachedAdjacentInfo.getAdjacentCells();
-        }
-
-        List<MineCell> pointersToAdjacentCells = findAllAdjacentCells(mineCellCoordinates);
-
-        // there is no need to search for the cells multiple times, so let's just cache
-        MineCellAdjacentInfo adjacentInfo = MineCellAdjacentInfo.builder().adjacentCells(pointersToAdjacentCells).build();
-        minecell.setMineCellAdjacentInfo(adjacentInfo);
-
-        return pointersToAdjacentCells;
+        return findAllAdjacentCells(mineCellCoordinates);
     }
 
     private List<MineCell> findAllAdjacentCells(MineCellCoordinates mineCellCoordinates) {
@@ -121,85 +89,73 @@ public class MinefieldSquaredMap implements MinefieldMap {
 
     @Override
     public int getNumberOfAdjecentMines(MineCell selectedMineCell) {
-        MineCellAdjacentInfo cachedAdjacentInfo = selectedMineCell.getMineCellAdjacentInfo();
-        if (cachedAdjacentInfo != null && cachedAdjacentInfo.getNumberOfAdjacentMines() != null) {
-            return cachedAdjacentInfo.getNumberOfAdjacentMines();
-        }
-
-        // getAdjacentCell should create cached MineCellAdjacentInfo instance,
-        // so afterwards only numberOfAdjacentMines needs to be populated
-        List<MineCell> adjacentCells = getAdjacentCells(selectedMineCell.getCoordinates());
-
-        int mineCounter = 0;
-
-        for (MineCell adjacentCell : adjacentCells) {
-            if (adjacentCell.containsMine()) {
-                mineCounter++;
-            }
-        }
+        MineCellCoordinates coordinates = selectedMineCell.getCoordinates();
+        return getNumberOfAdjacentMines(toIndex(coordinates.getXCoordinate(), coordinates.getYCoordinate()));
+    }
 
-        // if we didn't have cache instance before we started, we will have after method getAdjacentCells
-        // but we still need to get it if we want to set numberOfAdjacentMines
-        if (cachedAdjacentInfo == null) {
-            cachedAdjacentInfo = selectedMineCell.getMineCellAdjacentInfo();
-        }
+    private MineCell findByIndex(int index) {
+        return findByCoordinates(index % getWidth(), index / getWidth());
+    }
 
-        cachedAdjacentInfo.setNumberOfAdjacentMines(mineCounter);
+    @Override
+    public boolean containsMine(int index) {
+        return findByIndex(index).containsMine();
+    }
 
-        return mineCounter;
+    @Override
+    public boolean isOpen(int index) {
+        return findByIndex(index).isOpen();
     }
 
     @Override
-    public GameState getGameState() {
-        return gameState;
+    public boolean isFlagged(int index) {
+        return findByIndex(index).isMarked();
     }
 
     @Override
-    public void initiate(int xStart, int yStart) {
+    public int getNumberOfAdjacentMines(int index) {
+        return adjacentMines[index] >>> ADJACENT_MINES_SHIFT;
+    }
 
-        if (gameState != GameState.PREPARED) {
-            throw new MinesweeperException("Game already initiated", "error.code.game.state.lost");
+    @Override
+    public void openCell(int index) {
+        MineCell mineCell = findByIndex(index);
+        if (mineCell.isMarked()) { // remove flag if opened from nearby cell
+            mineCell.setMarked(false);
+            flagsUsed--;
         }
+        mineCell.setOpen(true);
+        onCellChanged(index);
+    }
 
-        this.startingTimeInMillis = System.currentTimeMillis();
-
-        Random rand = new Random(this.seed);
-
-        int currentMineCount = 0;
-        while (currentMineCount < mineCount) {
-            int yCoordinate = rand.nextInt(height);
-            int xCoordinate = rand.nextInt(width);
-
-            if (xCoordinate == xStart && yCoordinate == yStart) {
-                continue; // skip if this is starting point, starting point always mineless
-                // we trust that number of mines < number of fields due to previous checks
-            }
-
-            MineCell mineCell = minefield.get(MineCellCoordinates.builder()
-                    .xCoordinate(xCoordinate)
-                    .yCoordinate(yCoordinate).build());
-
-            if (!mineCell.containsMine()) {
-                mineCell.setContainsMine(true);
-                currentMineCount++;
-            }
-        }
+    @Override
+    protected void placeMine(int index) {
+        findByIndex(index).setContainsMine(true);
+        adjacentMines[index] = MINE_BIT;
+    }
 
-        this.gameState = GameState.STARTED;
+    @Override
+    protected void restoreCell(int index, boolean open, boolean flagged) {
+        MineCell mineCell = findByIndex(index);
+        mineCell.setOpen(open);
+        mineCell.setMarked(flagged);
+        renderedMarks[index] = renderMark(mineCell);
+    }
 
+    @Override
+    protected void onMinesPlaced() {
+        getTopology().countAdjacentMines(adjacentMines, ADJACENT_MINES_SHIFT);
     }
 
+    @Override
     public void reset(int height, int width, int mineCount, Long seed) {
 
-        checkInitialParametersValid(height, width, mineCount);
+        resetParameters(height, width, mineCount, seed);
 
         minefield = new HashMap<>();
-        this.height = height;
-        this.width = width;
-        this.mineCount = mineCount;
-        this.minelessCells = height * width - mineCount;
-
-        this.seed = seed != null ? seed : System.currentTimeMillis();
+        renderedMarks = new char[height * width];
+        Arrays.fill(renderedMarks, UNKNOWN_MARK);
+        adjacentMines = new byte[height * width];
 
         // We don't have to do this, but this way it's much easier to keep track of what is going on and place mines
         // rather than having separate map for mines or initiating Cells while calculating adjacent cells
@@ -225,9 +181,8 @@ public class MinefieldSquaredMap implements MinefieldMap {
         MineCell mineCell = findByCoordinates(x, y);
         if (!mineCell.isOpen() && !mineCell.isMarked()) {
             mineCell.setMarked(true);
-            // concurrency can be a problem, but for the purposes of simplifying we assume there is only one player
-            // that only makes requests after previous requests finished...
             flagsUsed++;
+            onCellChanged(toIndex(x, y));
         }
 
     }
@@ -237,77 +192,43 @@ public class MinefieldSquaredMap implements MinefieldMap {
         MineCell byCoordinates = findByCoordinates(x, y);
         if (byCoordinates.isMarked()) {
             byCoordinates.setMarked(false);
-            // concurrency can be a problem, but for the purposes of simplifying we assume there is only one player
-            // that only makes requests after previous requests finished...
             flagsUsed--;
+            onCellChanged(toIndex(x, y));
         }
     }
 
     @Override
-    public void addToCountOfOpenCells() {
-        openedCells++;
-
-        if (openedCells == minelessCells) {
-            gameState = GameState.FINISHED_WON;
-        }
+    public MinefieldType getType() {
+        return MinefieldType.SQUARED;
     }
 
     @Override
-    public boolean isGameWon() {
-        return gameState == GameState.FINISHED_WON;
+    public long estimateMemoryBytes() {
+        return renderedMarks.length * ESTIMATED_BYTES_PER_CELL;
     }
 
     @Override
-    public char[][] getField() {
-        char[][] field = new char[height][width];
-        for (int y = 0; y < height; y++) {
-            char[] marks = new char[width];
-            for (int x = 0; x < width; x++) {
-                MineCell minecell = findByCoordinates(x, y);
-                if (minecell.isMarked()) {
-                    marks[x] = '⚑';
-                    continue;
-
-                }
-                if (minecell.isOpen() && minecell.containsMine()) {
-                    marks[x] = '*';
-                    continue;
-                }
-                MineCellAdjacentInfo adjacentInfo = minecell.getMineCellAdjacentInfo();
-                Integer numberOfAdjacentMines = adjacentInfo != null ? adjacentInfo.getNumberOfAdjacentMines() : null;
-                char mark = numberOfAdjacentMines != null ?
-                        Character.forDigit(numberOfAdjacentMines, 10) : '?';
-                marks[x] = mark;
-            }
-            field[y] = marks;
-        }
-        return field;
+    public char getMark(int index) {
+        return renderedMarks[index];
     }
 
-    private static void checkInitialParametersValid(int height, int width, int mineCount) {
-        if (height < MINIMUM_ALLOWED_HEIGHT) {
-            throw new MinesweeperException("Height less than allowed: " + MINIMUM_ALLOWED_HEIGHT,
-                    "error.code.limit.height");
-        }
+    @Override
+    protected void onCellChanged(int index) {
+        renderedMarks[index] = renderMark(findByIndex(index));
+        super.onCellChanged(index);
+    }
 
-        if (width < MINIMUM_ALLOWED_WIDTH) {
-            throw new MinesweeperException("Width less than allowed: " + MINIMUM_ALLOWED_WIDTH,
-                    "error.code.limit.height");
+    private char renderMark(MineCell minecell) {
+        if (minecell.isMarked()) {
+            return FLAG_MARK;
         }
-
-        // Original has bug where you actually can add more mines than fields if you type the number
-        // (there is counter that has up and down arrows, there check works, the typing is the problem)
-        if (mineCount < MINIMUM_NUMBER_OF_MINES) {
-            throw new MinesweeperException("Less mines than allowed. " +
-                    "Allowed minimum of mines: " + MINIMUM_NUMBER_OF_MINES, "error.code.limit.height");
+        if (!minecell.isOpen()) {
+            return UNKNOWN_MARK;
         }
-
-        int maximumAllowedNumberOfMines = height * width - MINIMUM_NUMBER_OF_MINELESS_CELLS;
-        if (mineCount > maximumAllowedNumberOfMines) {
-            throw new MinesweeperException("More mines than allowed. " +
-                    "Allowed maximum of mines for this field: " + maximumAllowedNumberOfMines
-                    , "error.code.limit.height");
+        if (minecell.containsMine()) {
+            return MINE_MARK;
         }
+        return Character.forDigit(getNumberOfAdjecentMines(minecell), 10);
     }
 
 }
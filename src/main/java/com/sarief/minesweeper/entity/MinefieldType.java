@@ -0,0 +1,64 @@
+package com.sarief.minesweeper.entity;
+
+/**
+ * Available implementations of {@link MinefieldMap}
+ */
+public enum MinefieldType {
+    /**
+     * {@link MinefieldSquaredMap}, every cell is separate object
+     */
+    SQUARED(true),
+    /**
+     * {@link MinefieldDenseMap}, cells are packed in primitive array. Preferred for big boards
+     */
+    DENSE(true),
+    /**
+     * {@link MinefieldChunkedMap}, cells are created in chunks when touched. For boards too big to keep whole
+     */
+    CHUNKED(false),
+    /**
+     * {@link MinefieldHexagonalMap}, board of hexagons with up to 6 neighbors per cell
+     */
+    HEXAGONAL(true),
+    /**
+     * {@link MinefieldOffHeapMap}, cells are kept outside of the heap. For giant boards
+     */
+    OFF_HEAP(false);
+
+    private final boolean snapshotSupported;
+
+    MinefieldType(boolean snapshotSupported) {
+        this.snapshotSupported = snapshotSupported;
+    }
+
+    /**
+     * Check if map of this type can be saved to a snapshot. Snapshot keeps every cell, so it doesn't suit
+     * maps that create cells only when needed
+     *
+     * @return true if snapshots are supported
+     */
+    public boolean isSnapshotSupported() {
+        return snapshotSupported;
+    }
+
+    /**
+     * Create empty map of this type. Map has to be reset before use
+     *
+     * @return new map
+     */
+    public MinefieldMap createMap() {
+        switch (this) {
+            case DENSE:
+                return new MinefieldDenseMap();
+            case CHUNKED:
+                return new MinefieldChunkedMap();
+            case HEXAGONAL:
+                return new MinefieldHexagonalMap();
+            case OFF_HEAP:
+                return new MinefieldOffHeapMap();
+            case SQUARED:
+            default:
+                return new MinefieldSquaredMap();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.sarief.minesweeper.entity;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * State bytes of cells kept outside of the heap, so that giant board doesn't make garbage collection slower
+ * for every other game. Memory is either direct buffer or file mapped into memory, the latter can be bigger than RAM.
+ *
+ * Memory is freed by {@link #release()} right away, without waiting for garbage collector. Storage must not be used
+ * after that
+ */
+@Slf4j
+final class OffHeapCellStorage {
+    // direct buffers are freed by Unsafe.invokeCleaner, found at runtime since it is not part of public API
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Off-heap memory will be freed by garbage collector only", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int size;
+    private final Path file; // null for direct buffer
+    private ByteBuffer buffer;
+
+    private OffHeapCellStorage(ByteBuffer buffer, int size, Path file) {
+        this.buffer = buffer;
+        this.size = size;
+        this.file = file;
+    }
+
+    /**
+     * Allocate storage in direct memory. All cells are 0
+     *
+     * @param size number of cells
+     * @return new storage
+     */
+    static OffHeapCellStorage allocateDirect(int size) {
+        return new OffHeapCellStorage(ByteBuffer.allocateDirect(size), size, null);
+    }
+
+    /**
+     * Allocate storage in a new temporary file mapped into memory. All cells are 0.
+     * File is deleted when storage is released
+     *
+     * @param directory directory for the file
+     * @param size number of cells
+     * @return new storage
+     */
+    static OffHeapCellStorage map(Path directory, int size) {
+        Path file = null;
+        try {
+            file = Files.createTempFile(directory, "minefield-", ".cells");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // mapping outlives the channel, new file is sparse and reads as zeros
+                return new OffHeapCellStorage(channel.map(FileChannel.MapMode.READ_WRITE, 0, size), size, file);
+            }
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Cannot map cells to file in " + directory, e);
+        }
+    }
+
+    byte get(int index) {
+        return buffer.get(index);
+    }
+
+    void set(int index, byte state) {
+        buffer.put(index, state);
+    }
+
+    /**
+     * Copy states of consecutive cells to the heap
+     *
+     * @param index index of the first cell
+     * @param destination array to copy to
+     * @param offset position in the array for the first cell
+     * @param length number of cells
+     */
+    void read(int index, byte[] destination, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(index);
+        view.get(destination, offset, length);
+    }
+
+    /**
+     * Copy states of consecutive cells from the heap
+     *
+     * @param index index of the first cell
+     * @param source array to copy from
+     * @param offset position in the array of the first cell
+     * @param length number of cells
+     */
+    void write(int index, byte[] source, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(index);
+        view.put(source, offset, length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isMapped() {
+        return file != null;
+    }
+
+    /**
+     * Free memory of the storage and delete its file. Nothing happens if already released
+     */
+    void release() {
+        if (buffer == null) {
+            return;
+        }
+        ByteBuffer released = buffer;
+        // any later access fails on null instead of touching freed memory
+        buffer = null;
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, released);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Cannot free off-heap memory, it is left to garbage collector", e);
+            }
+        }
+        deleteQuietly(file);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete file of the map {}", file, e);
+        }
+    }
+}
@@ -2,22 +2,43 @@ package com.sarief.minesweeper.rest;
 
 import com.sarief.minesweeper.dto.CellCoordinateRequest;
 import com.sarief.minesweeper.dto.GameStatusResponse;
+import com.sarief.minesweeper.dto.HintResponse;
+import com.sarief.minesweeper.dto.MovesRequest;
+import com.sarief.minesweeper.dto.ProbabilityResponse;
 import com.sarief.minesweeper.dto.ResetGameRequest;
+import com.sarief.minesweeper.dto.ResetGameResponse;
+import com.sarief.minesweeper.dto.Viewport;
+import com.sarief.minesweeper.engine.Move;
+import com.sarief.minesweeper.rest.converter.BoardBinaryHttpMessageConverter;
 import com.sarief.minesweeper.service.MinefieldService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Rest controller for minesweeper
+ *
+ * Game status can be sent in compact binary form (see {@link BoardBinaryHttpMessageConverter}),
+ * if client asks for it in Accept header
  */
 @RequestMapping(value = "/api/v1/minesweeper", produces = MediaType.APPLICATION_JSON_VALUE)
 @RestController
 public class GameplayRestController {
+    private static final String BINARY_TAG_SUFFIX = ":binary";
+
     @Autowired
     private MinefieldService minefieldService;
 
@@ -25,55 +46,216 @@ public class GameplayRestController {
      * Set or reset game state
      *
      * @param resetGameRequest parameters
+     * @return id of the game
      */
     @RequestMapping(value = "/resetGame", method = RequestMethod.POST)
-    public void resetGame(@RequestBody @Validated ResetGameRequest resetGameRequest) {
-        minefieldService.reset(resetGameRequest.getHeight(), resetGameRequest.getWidth(),
-                resetGameRequest.getMineCount(), resetGameRequest.getSeed());
+    public ResetGameResponse resetGame(@RequestBody @Validated ResetGameRequest resetGameRequest) {
+        String gameId = minefieldService.reset(resetGameRequest.getGameId(), resetGameRequest.getHeight(),
+                resetGameRequest.getWidth(), resetGameRequest.getMineCount(), resetGameRequest.getSeed(),
+                resetGameRequest.getMapType(), resetGameRequest.isNoGuess());
+        return ResetGameResponse.builder().gameId(gameId).build();
+    }
+
+    /**
+     * Get current game status. Status is sent with ETag, if it matches If-None-Match header
+     * nothing is sent back. Map can be limited to a viewport: if any of x, y, width, height is given,
+     * missing x and y are 0 and missing width and height reach the edge of the map
+     *
+     * @param gameId id of the game. Default game if not specified
+     * @param x column of the top left cell of the viewport
+     * @param y row of the top left cell of the viewport
+     * @param width number of columns of the viewport
+     * @param height number of rows of the viewport
+     * @param ifNoneMatch tag of the status client already has
+     * @param accept accepted representations, binary and JSON status of the same game have different tags
+     * @return current game status or Not Modified
+     */
+    @RequestMapping(value = "/gameStatus", method = RequestMethod.GET, produces = {MediaType.APPLICATION_JSON_VALUE,
+            BoardBinaryHttpMessageConverter.MEDIA_TYPE_VALUE})
+    public ResponseEntity<GameStatusResponse> getGameStatus(@RequestParam(required = false) String gameId,
+                                                            @RequestParam(required = false) Integer x,
+                                                            @RequestParam(required = false) Integer y,
+                                                            @RequestParam(required = false) Integer width,
+                                                            @RequestParam(required = false) Integer height,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                    required = false) String ifNoneMatch,
+                                                            @RequestHeader(value = HttpHeaders.ACCEPT,
+                                                                    required = false) String accept) {
+        Viewport viewport = null;
+        if (x != null || y != null || width != null || height != null) {
+            viewport = Viewport.builder()
+                    .x(x != null ? x : 0)
+                    .y(y != null ? y : 0)
+                    .width(width != null ? width : Integer.MAX_VALUE)
+                    .height(height != null ? height : Integer.MAX_VALUE)
+                    .build();
+        }
+
+        boolean binary = isBinaryPreferred(accept);
+        String knownTag = toTag(ifNoneMatch, binary);
+        GameStatusResponse gameStatus = minefieldService.getGameStatus(gameId, viewport, knownTag);
+        boolean notModified = gameStatus.getTag().equals(knownTag);
+        if (binary) {
+            gameStatus.setTag(gameStatus.getTag() + BINARY_TAG_SUFFIX);
+        }
+        if (notModified) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(gameStatus.getTag())
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(gameStatus.getTag()).varyBy(HttpHeaders.ACCEPT).body(gameStatus);
+    }
+
+    /**
+     * Get tag out of If-None-Match header. Only the first tag is used, client keeps one status per game
+     *
+     * @return tag as service knows it, without suffix of the representation. null if it is for other representation
+     */
+    private static String toTag(String ifNoneMatch, boolean binary) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        String tag = ifNoneMatch.split(",")[0].trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        if (tag.endsWith(BINARY_TAG_SUFFIX) != binary) {
+            return null;
+        }
+        return binary ? tag.substring(0, tag.length() - BINARY_TAG_SUFFIX.length()) : tag;
+    }
+
+    /**
+     * Check which representation content negotiation picks. JSON is listed first in produces,
+     * so it wins when client accepts both equally
+     */
+    private static boolean isBinaryPreferred(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.includes(BoardBinaryHttpMessageConverter.MEDIA_TYPE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get cells that can be proven safe or mined from open numbers and flags
+     *
+     * @param gameId id of the game. Default game if not specified
+     * @return proven cells
+     */
+    @RequestMapping(value = "/hint", method = RequestMethod.GET)
+    public HintResponse getHint(@RequestParam(required = false) String gameId) {
+        return minefieldService.getHint(gameId);
     }
 
     /**
-     * Get current game status
+     * Get probability of mine in every cell, from open numbers and flags
      *
-     * @return current game status
+     * @param gameId id of the game. Default game if not specified
+     * @return probabilities by row, then column
      */
-    @RequestMapping(value = "/gameStatus", method = RequestMethod.GET)
-    public GameStatusResponse getGameStatus() {
-        return minefieldService.getGameStatus();
+    @RequestMapping(value = "/probabilities", method = RequestMethod.GET)
+    public ProbabilityResponse getProbabilities(@RequestParam(required = false) String gameId) {
+        return minefieldService.getProbabilities(gameId);
     }
 
     /**
      * Open cell in specific coordinates. Flagged cells cannot be open
      *
-     * @param request cell coordinates
+     * @param request cell coordinates and response mode
      * @return current game state
      */
-    @RequestMapping(value = "/openCell", method = RequestMethod.POST)
+    @RequestMapping(value = "/openCell", method = RequestMethod.POST, produces = {MediaType.APPLICATION_JSON_VALUE,
+            BoardBinaryHttpMessageConverter.MEDIA_TYPE_VALUE})
     public GameStatusResponse openCell(@RequestBody @Validated CellCoordinateRequest request) {
-        return minefieldService.openCell(request.getX(), request.getY());
+        return minefieldService.openCell(request.getGameId(), request.getX(), request.getY(),
+                request.getResponseMode(), request.getViewport());
     }
 
     /**
      * Flag cell by specific coordinates. Flagged cells cannot be open
      *
-     * @param request cell coordinates
+     * @param request cell coordinates and response mode
      * @return current game state
      */
-    @RequestMapping(value = "/flagCell", method = RequestMethod.POST)
+    @RequestMapping(value = "/flagCell", method = RequestMethod.POST, produces = {MediaType.APPLICATION_JSON_VALUE,
+            BoardBinaryHttpMessageConverter.MEDIA_TYPE_VALUE})
     public GameStatusResponse flagCell(@RequestBody @Validated CellCoordinateRequest request) {
-        return minefieldService.flagCell(request.getX(), request.getY());
+        return minefieldService.flagCell(request.getGameId(), request.getX(), request.getY(),
+                request.getResponseMode(), request.getViewport());
     }
 
     /**
      * Unflag flagged cell by specific coordinates. Flagged cells cannot be open
      *
-     * @param request cell coordinates
+     * @param request cell coordinates and response mode
      * @return current game state
      */
-    @RequestMapping(value = "/unflagCell", method = RequestMethod.POST)
+    @RequestMapping(value = "/unflagCell", method = RequestMethod.POST, produces = {MediaType.APPLICATION_JSON_VALUE,
+            BoardBinaryHttpMessageConverter.MEDIA_TYPE_VALUE})
     public GameStatusResponse unflagCell(@RequestBody @Validated CellCoordinateRequest request) {
-        return minefieldService.unflagCell(request.getX(), request.getY());
+        return minefieldService.unflagCell(request.getGameId(), request.getX(), request.getY(),
+                request.getResponseMode(), request.getViewport());
+    }
+
+    /**
+     * Open all unflagged neighbours of open cell, if number of flags around it equals number of adjacent mines
+     *
+     * @param request cell coordinates and response mode
+     * @return current game state
+     */
+    @RequestMapping(value = "/chordCell", method = RequestMethod.POST, produces = {MediaType.APPLICATION_JSON_VALUE,
+            BoardBinaryHttpMessageConverter.MEDIA_TYPE_VALUE})
+    public GameStatusResponse chordCell(@RequestBody @Validated CellCoordinateRequest request) {
+        return minefieldService.chordCell(request.getGameId(), request.getX(), request.getY(),
+                request.getResponseMode(), request.getViewport());
     }
 
+    /**
+     * Apply several moves in one request. Moves are applied in order without other requests to the same game
+     * in between, moves after the end of the game are skipped
+     *
+     * @param request moves and response mode
+     * @return game state after all applied moves
+     */
+    @RequestMapping(value = "/applyMoves", method = RequestMethod.POST, produces = {MediaType.APPLICATION_JSON_VALUE,
+            BoardBinaryHttpMessageConverter.MEDIA_TYPE_VALUE})
+    public GameStatusResponse applyMoves(@RequestBody @Validated MovesRequest request) {
+        List<Move> moves = null;
+        if (request.getMoves() != null) {
+            moves = request.getMoves().stream()
+                    .map(move -> move == null ? null : Move.builder()
+                            .type(move.getType())
+                            .x(move.getX())
+                            .y(move.getY())
+                            .build())
+                    .collect(Collectors.toList());
+        }
+        return minefieldService.applyMoves(request.getGameId(), moves, request.getResponseMode(),
+                request.getViewport());
+    }
 
+    /**
+     * Subscribe to events of the game. First event carries current state and version,
+     * after that every move that changes the game is pushed as Server-Sent Event named after the kind of the move.
+     * Clients that can't keep up are disconnected
+     *
+     * @param gameId id of the game. Default game if not specified
+     * @return stream of events
+     */
+    @RequestMapping(value = "/events", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToEvents(@RequestParam(required = false) String gameId) {
+        return minefieldService.subscribeToEvents(gameId);
+    }
 }
@@ -0,0 +1,122 @@
+package com.sarief.minesweeper.rest;
+
+import com.sarief.minesweeper.service.GameMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records size of bodies of game responses. Body is counted while it is written, not buffered,
+ * so big boards don't need a second copy in memory
+ */
+@Component
+public class ResponseSizeMetricsFilter extends OncePerRequestFilter {
+    private static final String API_PATH = "/api/v1/minesweeper/";
+    private static final Map<String, String> OPERATIONS_BY_ENDPOINT = Map.of(
+            "openCell", GameMetrics.OPERATION_OPEN,
+            "flagCell", GameMetrics.OPERATION_FLAG,
+            "unflagCell", GameMetrics.OPERATION_UNFLAG,
+            "chordCell", GameMetrics.OPERATION_CHORD,
+            "applyMoves", GameMetrics.OPERATION_BATCH,
+            "resetGame", GameMetrics.OPERATION_RESET,
+            "gameStatus", GameMetrics.OPERATION_STATUS,
+            "hint", GameMetrics.OPERATION_HINT,
+            "probabilities", GameMetrics.OPERATION_PROBABILITIES);
+
+    private final GameMetrics gameMetrics;
+
+    public ResponseSizeMetricsFilter(GameMetrics gameMetrics) {
+        this.gameMetrics = gameMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // event stream never finishes while the filter waits, so it is not counted
+        return findOperation(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingResponse countingResponse = new CountingResponse(response);
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            gameMetrics.recordResponseSize(findOperation(request), countingResponse.getNumberOfBytesWritten());
+        }
+    }
+
+    private static String findOperation(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(API_PATH)) {
+            return null;
+        }
+        return OPERATIONS_BY_ENDPOINT.get(path.substring(API_PATH.length()));
+    }
+
+    /**
+     * Response that counts bytes written to its output stream
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream countingOutputStream;
+        private long numberOfBytesWritten;
+
+        private CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (countingOutputStream == null) {
+                ServletOutputStream outputStream = super.getOutputStream();
+                countingOutputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        outputStream.write(b);
+                        numberOfBytesWritten++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        outputStream.write(b, off, len);
+                        numberOfBytesWritten += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        outputStream.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        outputStream.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return outputStream.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        outputStream.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return countingOutputStream;
+        }
+
+        private long getNumberOfBytesWritten() {
+            return numberOfBytesWritten;
+        }
+    }
+}
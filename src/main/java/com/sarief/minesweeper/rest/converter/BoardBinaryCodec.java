@@ -0,0 +1,304 @@
+package com.sarief.minesweeper.rest.converter;
+
+import com.sarief.minesweeper.dto.CellChange;
+import com.sarief.minesweeper.dto.GameStatusResponse;
+import com.sarief.minesweeper.dto.Viewport;
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.exception.MinesweeperException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary form of {@link GameStatusResponse}. Each cell is a nibble, long runs of equal cells are compressed.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * 'M' 'S'            magic
+ * format             1 byte, {@link #FORMAT_VERSION}
+ * gameState          1 byte, ordinal of {@link GameState}
+ * version            8 bytes
+ * revealedCells      varint, 0 if not set, otherwise revealedCells + 1
+ * flags              1 byte, {@link #FLAG_ODD_ROWS_SHIFTED} if odd rows of the map are drawn shifted (hexagonal map),
+ *                    {@link #FLAG_RESYNC_REQUIRED} if changes were too many to list, then no changes follow,
+ *                    {@link #FLAG_VIEWPORT} if only part of the map is sent
+ * viewport           only with {@link #FLAG_VIEWPORT}: x varint, y varint, width varint, height varint
+ * kind               1 byte, {@link #KIND_FIELD} or {@link #KIND_CHANGES}
+ * field:   height varint, width varint, cells as tokens (see below) row by row
+ * changes: count varint, then x varint, y varint, cell code byte for each change. Coordinates are on the whole map
+ * </pre>
+ * Cell codes: 0-8 number of adjacent mines, 9 unknown, 10 flag, 11 mine.
+ * Token is single byte:
+ * <ul>
+ *     <li>0xxxxxxx - literal of (x + 1) cells, followed by that many nibbles, two per byte, high nibble first</li>
+ *     <li>1lllcccc - run of cells with code c. Length is l + 3, or if l is 7 - varint that follows + 10</li>
+ * </ul>
+ */
+public final class BoardBinaryCodec {
+
+    public static final int FORMAT_VERSION = 2;
+    public static final int FLAG_ODD_ROWS_SHIFTED = 1;
+    public static final int FLAG_RESYNC_REQUIRED = 1 << 1;
+    public static final int FLAG_VIEWPORT = 1 << 2;
+    public static final int KIND_FIELD = 0;
+    public static final int KIND_CHANGES = 1;
+
+    private static final int MAGIC_FIRST = 'M';
+    private static final int MAGIC_SECOND = 'S';
+
+    private static final char[] MARKS_BY_CODE = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '?', '⚑', '*'};
+
+    private static final int RUN_TOKEN_BIT = 0x80;
+    private static final int MAXIMUM_LITERAL_LENGTH = 128;
+    private static final int MINIMUM_RUN_LENGTH = 3;
+    private static final int EXTENDED_RUN_MARKER = 7;
+    private static final int MINIMUM_EXTENDED_RUN_LENGTH = MINIMUM_RUN_LENGTH + EXTENDED_RUN_MARKER;
+
+    private BoardBinaryCodec() {
+    }
+
+    /**
+     * Write game status in binary form
+     *
+     * @param gameStatus game status to write
+     * @param outputStream stream to write into
+     * @throws IOException if writing fails
+     */
+    public static void encode(GameStatusResponse gameStatus, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeByte(MAGIC_FIRST);
+        output.writeByte(MAGIC_SECOND);
+        output.writeByte(FORMAT_VERSION);
+        output.writeByte(gameStatus.getGameState().ordinal());
+        output.writeLong(gameStatus.getVersion());
+        writeVarint(output, gameStatus.getRevealedCells() != null ? gameStatus.getRevealedCells() + 1 : 0);
+        Viewport viewport = gameStatus.getViewport();
+        output.writeByte((Boolean.TRUE.equals(gameStatus.getOddRowsShifted()) ? FLAG_ODD_ROWS_SHIFTED : 0)
+                | (Boolean.TRUE.equals(gameStatus.getResyncRequired()) ? FLAG_RESYNC_REQUIRED : 0)
+                | (viewport != null ? FLAG_VIEWPORT : 0));
+        if (viewport != null) {
+            writeVarint(output, viewport.getX());
+            writeVarint(output, viewport.getY());
+            writeVarint(output, viewport.getWidth());
+            writeVarint(output, viewport.getHeight());
+        }
+
+        if (gameStatus.getField() != null) {
+            output.writeByte(KIND_FIELD);
+            encodeField(gameStatus.getField(), output);
+        } else {
+            output.writeByte(KIND_CHANGES);
+            encodeChanges(gameStatus.getChanges() != null ? gameStatus.getChanges() : Collections.emptyList(), output);
+        }
+        output.flush();
+    }
+
+    private static void encodeField(String[] field, DataOutputStream output) throws IOException {
+        int height = field.length;
+        int width = height > 0 ? (field[0].length() + 1) / 2 : 0;
+        writeVarint(output, height);
+        writeVarint(output, width);
+
+        // rows are compressed as one stream, so runs can continue from one row to the next one
+        int cellCount = height * width;
+        byte[] literal = new byte[MAXIMUM_LITERAL_LENGTH];
+        int literalLength = 0;
+        int position = 0;
+        while (position < cellCount) {
+            int code = codeAt(field, width, position);
+            int runLength = 1;
+            while (position + runLength < cellCount && codeAt(field, width, position + runLength) == code) {
+                runLength++;
+            }
+
+            if (runLength >= MINIMUM_RUN_LENGTH) {
+                literalLength = flushLiteral(literal, literalLength, output);
+                writeRun(code, runLength, output);
+            } else {
+                for (int i = 0; i < runLength; i++) {
+                    literal[literalLength++] = (byte) code;
+                    if (literalLength == MAXIMUM_LITERAL_LENGTH) {
+                        literalLength = flushLiteral(literal, literalLength, output);
+                    }
+                }
+            }
+            position += runLength;
+        }
+        flushLiteral(literal, literalLength, output);
+    }
+
+    private static int codeAt(String[] field, int width, int position) {
+        return toCode(field[position / width].charAt(position % width * 2));
+    }
+
+    private static void writeRun(int code, int runLength, DataOutputStream output) throws IOException {
+        int lengthBits = runLength - MINIMUM_RUN_LENGTH;
+        if (lengthBits < EXTENDED_RUN_MARKER) {
+            output.writeByte(RUN_TOKEN_BIT | lengthBits << 4 | code);
+        } else {
+            output.writeByte(RUN_TOKEN_BIT | EXTENDED_RUN_MARKER << 4 | code);
+            writeVarint(output, runLength - MINIMUM_EXTENDED_RUN_LENGTH);
+        }
+    }
+
+    private static int flushLiteral(byte[] literal, int literalLength, DataOutputStream output) throws IOException {
+        if (literalLength == 0) {
+            return 0;
+        }
+        output.writeByte(literalLength - 1);
+        for (int i = 0; i < literalLength; i += 2) {
+            int low = i + 1 < literalLength ? literal[i + 1] : 0;
+            output.writeByte(literal[i] << 4 | low);
+        }
+        return 0;
+    }
+
+    private static void encodeChanges(List<CellChange> changes, DataOutputStream output) throws IOException {
+        writeVarint(output, changes.size());
+        for (CellChange change : changes) {
+            writeVarint(output, change.getX());
+            writeVarint(output, change.getY());
+            output.writeByte(toCode(change.getMark()));
+        }
+    }
+
+    /**
+     * Read game status written by {@link #encode(GameStatusResponse, OutputStream)}
+     *
+     * @param inputStream stream to read from
+     * @return read game status
+     * @throws IOException if reading fails
+     */
+    public static GameStatusResponse decode(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readUnsignedByte() != MAGIC_FIRST || input.readUnsignedByte() != MAGIC_SECOND
+                || input.readUnsignedByte() != FORMAT_VERSION) {
+            throw new MinesweeperException("Unsupported binary board format", "error.code.format.invalid");
+        }
+
+        GameStatusResponse gameStatus = GameStatusResponse.builder()
+                .gameState(GameState.values()[input.readUnsignedByte()])
+                .version(input.readLong())
+                .build();
+        int revealedCells = readVarint(input);
+        if (revealedCells != 0) {
+            gameStatus.setRevealedCells(revealedCells - 1);
+        }
+        int flags = input.readUnsignedByte();
+        if ((flags & FLAG_ODD_ROWS_SHIFTED) != 0) {
+            gameStatus.setOddRowsShifted(true);
+        }
+        if ((flags & FLAG_VIEWPORT) != 0) {
+            gameStatus.setViewport(Viewport.builder()
+                    .x(readVarint(input))
+                    .y(readVarint(input))
+                    .width(readVarint(input))
+                    .height(readVarint(input))
+                    .build());
+        }
+
+        if (input.readUnsignedByte() == KIND_FIELD) {
+            gameStatus.setField(decodeField(input));
+        } else if ((flags & FLAG_RESYNC_REQUIRED) != 0) {
+            readVarint(input);
+            gameStatus.setResyncRequired(true);
+        } else {
+            gameStatus.setChanges(decodeChanges(input));
+        }
+        return gameStatus;
+    }
+
+    private static String[] decodeField(DataInputStream input) throws IOException {
+        int height = readVarint(input);
+        int width = readVarint(input);
+        char[] marks = new char[height * width];
+
+        int position = 0;
+        while (position < marks.length) {
+            int token = input.readUnsignedByte();
+            if ((token & RUN_TOKEN_BIT) == 0) {
+                int literalLength = token + 1;
+                for (int i = 0; i < literalLength; i += 2) {
+                    int pair = input.readUnsignedByte();
+                    marks[position++] = MARKS_BY_CODE[pair >>> 4];
+                    if (i + 1 < literalLength) {
+                        marks[position++] = MARKS_BY_CODE[pair & 0x0F];
+                    }
+                }
+            } else {
+                int lengthBits = (token >>> 4) & EXTENDED_RUN_MARKER;
+                int runLength = lengthBits < EXTENDED_RUN_MARKER ?
+                        lengthBits + MINIMUM_RUN_LENGTH : readVarint(input) + MINIMUM_EXTENDED_RUN_LENGTH;
+                char mark = MARKS_BY_CODE[token & 0x0F];
+                for (int i = 0; i < runLength; i++) {
+                    marks[position++] = mark;
+                }
+            }
+        }
+
+        String[] field = new String[height];
+        char[] row = new char[Math.max(width * 2 - 1, 0)];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x * 2] = marks[y * width + x];
+                if (x > 0) {
+                    row[x * 2 - 1] = ' ';
+                }
+            }
+            field[y] = new String(row);
+        }
+        return field;
+    }
+
+    private static List<CellChange> decodeChanges(DataInputStream input) throws IOException {
+        int count = readVarint(input);
+        List<CellChange> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            changes.add(CellChange.builder()
+                    .x(readVarint(input))
+                    .y(readVarint(input))
+                    .mark(MARKS_BY_CODE[input.readUnsignedByte()])
+                    .build());
+        }
+        return changes;
+    }
+
+    private static int toCode(char mark) {
+        switch (mark) {
+            case '?':
+                return 9;
+            case '⚑':
+                return 10;
+            case '*':
+                return 11;
+            default:
+                return mark - '0';
+        }
+    }
+
+    private static void writeVarint(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream input) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int current;
+        do {
+            current = input.readUnsignedByte();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
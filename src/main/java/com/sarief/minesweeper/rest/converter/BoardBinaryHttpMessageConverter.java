@@ -0,0 +1,45 @@
+package com.sarief.minesweeper.rest.converter;
+
+import com.sarief.minesweeper.dto.GameStatusResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link GameStatusResponse} with {@link BoardBinaryCodec}, when client accepts {@link #MEDIA_TYPE_VALUE}
+ */
+public class BoardBinaryHttpMessageConverter extends AbstractHttpMessageConverter<GameStatusResponse> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-minesweeper-board";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    public BoardBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GameStatusResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false; // only responses are sent in binary form
+    }
+
+    @Override
+    protected GameStatusResponse readInternal(Class<? extends GameStatusResponse> clazz,
+                                              HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Binary board can't be read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(GameStatusResponse gameStatus, HttpOutputMessage outputMessage)
+            throws IOException {
+        BoardBinaryCodec.encode(gameStatus, outputMessage.getBody());
+    }
+}
@@ -0,0 +1,155 @@
+package com.sarief.minesweeper.service;
+
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps ready dense maps for popular board configurations, so resetting such game doesn't allocate the map
+ * and place mines on the request thread. Mines of pooled maps are placed in advance,
+ * the mine under the first click is moved away when the game starts (see {@link MinefieldDenseMap#placeMinesInAdvance}).
+ *
+ * Only games without seed can be served from the pool, seeded games have to get their own layout.
+ * Pool is refilled by a single low priority thread. Configurations are listed in minesweeper.pool.configurations
+ * as comma separated heightxwidthxmineCount, pool is empty if none are listed
+ */
+@Component
+@Slf4j
+public class BoardPool {
+
+    private final Map<String, PooledConfiguration> configurations = new ConcurrentHashMap<>();
+    private final GameMetrics gameMetrics;
+    // used only by the refill thread
+    private final SplittableRandom seeds = new SplittableRandom();
+    private ExecutorService refillExecutor;
+
+    public BoardPool(GameMetrics gameMetrics,
+                     @Value("${minesweeper.pool.configurations:}") String configurations,
+                     @Value("${minesweeper.pool.boards-per-configuration:2}") int boardsPerConfiguration) {
+        this.gameMetrics = gameMetrics;
+        for (String configuration : configurations.split(",")) {
+            if (configuration.isBlank()) {
+                continue;
+            }
+            String[] parameters = configuration.trim().split("x");
+            if (parameters.length != 3) {
+                throw new IllegalArgumentException("Pool configuration is not heightxwidthxmineCount: "
+                        + configuration);
+            }
+            PooledConfiguration pooledConfiguration = new PooledConfiguration(Integer.parseInt(parameters[0]),
+                    Integer.parseInt(parameters[1]), Integer.parseInt(parameters[2]), boardsPerConfiguration);
+            this.configurations.put(pooledConfiguration.getKey(), pooledConfiguration);
+        }
+        gameMetrics.monitorBoardPool(this);
+    }
+
+    @PostConstruct
+    public void start() {
+        refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "board-pool");
+            thread.setDaemon(true);
+            // boards are prepared ahead of time, they must not compete with requests
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        configurations.values().forEach(this::scheduleRefill);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refillExecutor != null) {
+            refillExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Take ready map with specified parameters
+     *
+     * @param height number of rows
+     * @param width number of columns
+     * @param mineCount number of mines
+     * @return prepared map with mines placed in advance, null if there is no ready map of such configuration
+     */
+    public MinefieldDenseMap take(int height, int width, int mineCount) {
+        PooledConfiguration configuration = configurations.get(toKey(height, width, mineCount));
+        if (configuration == null) {
+            return null;
+        }
+
+        MinefieldDenseMap minefield = configuration.boards.poll();
+        gameMetrics.recordPoolRequest(minefield != null);
+        scheduleRefill(configuration);
+        return minefield;
+    }
+
+    /**
+     * Get number of ready maps of all configurations
+     *
+     * @return number of ready maps
+     */
+    public int size() {
+        return configurations.values().stream().mapToInt(configuration -> configuration.boards.size()).sum();
+    }
+
+    private void scheduleRefill(PooledConfiguration configuration) {
+        // one refill per configuration is enough, it fills the pool up to the limit
+        if (configuration.refillScheduled.compareAndSet(false, true)) {
+            refillExecutor.execute(() -> refill(configuration));
+        }
+    }
+
+    private void refill(PooledConfiguration configuration) {
+        try {
+            while (configuration.boards.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+                MinefieldDenseMap minefield = new MinefieldDenseMap();
+                // pooled maps are served to games without seed, but each still needs its own layout
+                minefield.reset(configuration.height, configuration.width, configuration.mineCount, seeds.nextLong());
+                minefield.placeMinesInAdvance();
+                configuration.boards.offer(minefield);
+            }
+        } catch (RuntimeException e) {
+            log.error("Cannot prepare board " + configuration.getKey() + ", configuration is not pooled anymore", e);
+            configurations.remove(configuration.getKey());
+        } finally {
+            configuration.refillScheduled.set(false);
+        }
+    }
+
+    private static String toKey(int height, int width, int mineCount) {
+        return height + "x" + width + "x" + mineCount;
+    }
+
+    /**
+     * Ready maps of single configuration
+     */
+    private static final class PooledConfiguration {
+        private final int height;
+        private final int width;
+        private final int mineCount;
+        private final BlockingQueue<MinefieldDenseMap> boards;
+        private final AtomicBoolean refillScheduled = new AtomicBoolean();
+
+        private PooledConfiguration(int height, int width, int mineCount, int boardsPerConfiguration) {
+            this.height = height;
+            this.width = width;
+            this.mineCount = mineCount;
+            this.boards = new ArrayBlockingQueue<>(boardsPerConfiguration);
+        }
+
+        private String getKey() {
+            return toKey(height, width, mineCount);
+        }
+    }
+}
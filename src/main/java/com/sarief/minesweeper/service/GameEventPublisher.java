@@ -0,0 +1,298 @@
+package com.sarief.minesweeper.service;
+
+import com.sarief.minesweeper.dto.GameEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes {@link GameEvent}s to clients subscribed to the game through Server-Sent Events.
+ *
+ * Each subscriber has its own bounded queue that is drained by shared sender threads, so a slow client never
+ * blocks the move that produced the event. Subscriber that lets its queue fill up is disconnected
+ * and has to subscribe again and request whole game status.
+ *
+ * Write to a client that doesn't read blocks the sender thread until the connector gives up on it
+ * (server.tomcat.connection-timeout), the write can't be cut short from another thread. A watchdog drops
+ * subscriber whose send takes longer than the send timeout and adds a sender thread in place of the blocked one,
+ * so other games don't wait. Extra thread is taken back once the blocked send returns. Dropped subscriber's emitter
+ * is completed by its sender thread, because emitter stays locked while it sends
+ */
+@Component
+@Slf4j
+public class GameEventPublisher {
+
+    private final Map<String, Set<Subscriber>> subscribersByGame = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor sender;
+    private final ScheduledExecutorService watchdog;
+    private final int queueCapacity;
+    private final long timeoutInMillis;
+    private final long sendTimeoutInNanos;
+
+    public GameEventPublisher(@Value("${minesweeper.events.queue-capacity:256}") int queueCapacity,
+                              @Value("${minesweeper.events.timeout-millis:1800000}") long timeoutInMillis,
+                              @Value("${minesweeper.events.sender-threads:4}") int senderThreads,
+                              @Value("${minesweeper.events.send-timeout-millis:5000}") long sendTimeoutInMillis) {
+        this.queueCapacity = queueCapacity;
+        this.timeoutInMillis = timeoutInMillis;
+        this.sendTimeoutInNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutInMillis);
+        AtomicInteger threadCounter = new AtomicInteger();
+        // same as fixed thread pool, but its size can change while sends are blocked
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "game-events-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-events-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // stuck send is noticed at most half of the timeout late
+        long checkIntervalInMillis = Math.max(sendTimeoutInMillis / 2, 1);
+        watchdog.scheduleWithFixedDelay(this::disconnectStuckSubscribers, checkIntervalInMillis,
+                checkIntervalInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribe to events of the game. Initial event is sent right away, so client knows
+     * which version following events are based on
+     *
+     * @param initialEvent first event for the subscriber, carries id, state and version of the game
+     * @return emitter to return to the client
+     */
+    public SseEmitter subscribe(GameEvent initialEvent) {
+        String gameId = initialEvent.getGameId();
+        SseEmitter emitter = new SseEmitter(timeoutInMillis);
+        Subscriber subscriber = new Subscriber(gameId, emitter);
+
+        emitter.onCompletion(subscriber::disconnected);
+        emitter.onTimeout(subscriber::disconnected);
+        emitter.onError(error -> subscriber.disconnected());
+
+        try {
+            // emitter isn't returned to the client yet, so this is only buffered and goes out with response headers
+            emitter.send(toSseEvent(initialEvent));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        subscribersByGame.computeIfAbsent(gameId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Check if anyone listens to the game, so events don't have to be built for nobody
+     *
+     * @param gameId id of the game
+     * @return true if game has subscribers
+     */
+    public boolean hasSubscribers(String gameId) {
+        Set<Subscriber> subscribers = subscribersByGame.get(gameId);
+        return subscribers != null && !subscribers.isEmpty();
+    }
+
+    /**
+     * Send event to all subscribers of the game. Doesn't wait for event to be delivered
+     *
+     * @param event event to send
+     */
+    public void publish(GameEvent event) {
+        Set<Subscriber> subscribers = subscribersByGame.get(event.getGameId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribersByGame.computeIfPresent(subscriber.gameId, (gameId, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private void disconnectStuckSubscribers() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subscribers : subscribersByGame.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.abandonStuckSend(now);
+            }
+        }
+    }
+
+    /**
+     * Change number of sender threads, blocked ones don't count
+     *
+     * @param delta - number of threads to add, negative to remove
+     */
+    private void resizeSender(int delta) {
+        synchronized (sender) {
+            int size = sender.getCorePoolSize() + delta;
+            // core size must never be above maximum size
+            if (delta > 0) {
+                sender.setMaximumPoolSize(size);
+                sender.setCorePoolSize(size);
+            } else {
+                sender.setCorePoolSize(size);
+                sender.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        sender.shutdownNow();
+        subscribersByGame.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+    }
+
+    private static SseEmitter.SseEventBuilder toSseEvent(GameEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.getVersion()))
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private final class Subscriber {
+        private final String gameId;
+        private final SseEmitter emitter;
+        private final Queue<GameEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean dropped;
+        // shared by the sender thread and the watchdog, so the watchdog never acts on a send that already ended
+        private final Object sendLock = new Object();
+        // whether an event is being sent and since when. Guarded by sendLock
+        private boolean sending;
+        private long sendStartTime;
+        // watchdog gave up on the send in progress and added a sender thread. Guarded by sendLock
+        private boolean sendAbandoned;
+
+        private Subscriber(String gameId, SseEmitter emitter) {
+            this.gameId = gameId;
+            this.emitter = emitter;
+        }
+
+        private void offer(GameEvent event) {
+            if (!queue.offer(event)) {
+                log.warn("Subscriber of game {} is too slow, disconnecting", gameId);
+                drop();
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * Stop sending to the subscriber. Emitter is completed by the sender thread, so the caller doesn't wait
+         * for a send in progress
+         */
+        private void drop() {
+            dropped = true;
+            unsubscribe(this);
+            queue.clear();
+        }
+
+        /**
+         * Connection is already finished by the container, emitter must not be completed again
+         */
+        private void disconnected() {
+            closed.set(true);
+            unsubscribe(this);
+        }
+
+        private void close() {
+            unsubscribe(this);
+            queue.clear();
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("Subscriber of game {} is already gone: {}", gameId, e.getMessage());
+            }
+        }
+
+        private void abandonStuckSend(long now) {
+            synchronized (sendLock) {
+                if (!sending || sendAbandoned || now - sendStartTime <= sendTimeoutInNanos) {
+                    return;
+                }
+                log.warn("Subscriber of game {} doesn't read events, disconnecting", gameId);
+                sendAbandoned = true;
+                drop();
+                resizeSender(1);
+            }
+        }
+
+        private void startSend() {
+            synchronized (sendLock) {
+                sending = true;
+                sendStartTime = System.nanoTime();
+            }
+        }
+
+        private void finishSend() {
+            synchronized (sendLock) {
+                sending = false;
+                if (sendAbandoned) {
+                    sendAbandoned = false;
+                    resizeSender(-1);
+                }
+            }
+        }
+
+        private void scheduleDrain() {
+            // only one thread sends to the subscriber at a time, so events keep their order
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                GameEvent event;
+                while (!closed.get() && !dropped && (event = queue.poll()) != null) {
+                    startSend();
+                    try {
+                        emitter.send(toSseEvent(event));
+                    } finally {
+                        finishSend();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Subscriber of game {} is gone: {}", gameId, e.getMessage());
+                disconnected();
+                queue.clear();
+            } finally {
+                draining.set(false);
+            }
+            if (dropped) {
+                close();
+            } else if (!closed.get() && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sarief.minesweeper.service;
+
+import com.sarief.minesweeper.store.GameStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of game operations. Timers and summaries are tagged with bucket of board size,
+ * so latency of small and huge boards is not mixed:
+ * small - up to 100 cells, medium - up to 10 000, large - up to 1 000 000, huge - more than that
+ */
+@Component
+public class GameMetrics {
+    public static final String OPERATION_OPEN = "open";
+    public static final String OPERATION_FLAG = "flag";
+    public static final String OPERATION_UNFLAG = "unflag";
+    public static final String OPERATION_CHORD = "chord";
+    public static final String OPERATION_RESET = "reset";
+    public static final String OPERATION_STATUS = "status";
+    public static final String OPERATION_BATCH = "batch";
+    public static final String OPERATION_HINT = "hint";
+    public static final String OPERATION_PROBABILITIES = "probabilities";
+
+    private static final double[] PUBLISHED_PERCENTILES = {0.5, 0.95, 0.99};
+    private static final long SMALL_BOARD_CELLS = 100;
+    private static final long MEDIUM_BOARD_CELLS = 10_000;
+    private static final long LARGE_BOARD_CELLS = 1_000_000;
+
+    private final MeterRegistry meterRegistry;
+    // meters are looked up on every operation, so they are kept here instead of being built each time
+    private final Map<String, Timer> operationTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> revealedCellsSummaries = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> responseSizeSummaries = new ConcurrentHashMap<>();
+    private final Counter poolHits;
+    private final Counter poolMisses;
+
+    public GameMetrics(MeterRegistry meterRegistry, GameStore gameStore) {
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("minesweeper.games.active", gameStore, GameStore::size)
+                .description("Number of games in progress")
+                .register(meterRegistry);
+        Gauge.builder("minesweeper.cells.total", gameStore,
+                        store -> store.getLoadedSessions().stream().mapToLong(GameSession::getNumberOfCells).sum())
+                .description("Number of cells in games loaded into memory")
+                .register(meterRegistry);
+        Gauge.builder("minesweeper.boards.memory", gameStore,
+                        store -> store.getLoadedSessions().stream()
+                                // read without the lock, estimate may be slightly behind for maps that grow
+                                .mapToLong(session -> session.getMinefield().estimateMemoryBytes()).sum())
+                .description("Estimated memory taken by cells of games loaded into memory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        poolHits = Counter.builder("minesweeper.pool.requests")
+                .description("Resets of pooled configurations")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        poolMisses = Counter.builder("minesweeper.pool.requests")
+                .description("Resets of pooled configurations")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Expose number of ready maps in the pool
+     *
+     * @param boardPool pool of ready maps
+     */
+    public void monitorBoardPool(BoardPool boardPool) {
+        Gauge.builder("minesweeper.pool.boards", boardPool, BoardPool::size)
+                .description("Number of ready maps waiting in the pool")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record whether reset of pooled configuration got ready map
+     *
+     * @param hit true if ready map was taken from the pool
+     */
+    public void recordPoolRequest(boolean hit) {
+        (hit ? poolHits : poolMisses).increment();
+    }
+
+    /**
+     * Record how long operation took, including waiting for the lock of the game
+     *
+     * @param operation name of the operation, one of OPERATION_ constants
+     * @param numberOfCells size of the board
+     * @param durationInNanos duration of the operation
+     */
+    public void recordOperation(String operation, long numberOfCells, long durationInNanos) {
+        String boardSize = toBoardSizeBucket(numberOfCells);
+        operationTimers.computeIfAbsent(operation + '/' + boardSize, key -> Timer.builder("minesweeper.operation")
+                        .description("Duration of game operations")
+                        .tag("operation", operation)
+                        .tag("board.size", boardSize)
+                        .publishPercentiles(PUBLISHED_PERCENTILES)
+                        .register(meterRegistry))
+                .record(durationInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record number of cells opened by single click
+     *
+     * @param numberOfCells size of the board
+     * @param revealedCells number of opened cells
+     */
+    public void recordRevealedCells(long numberOfCells, int revealedCells) {
+        String boardSize = toBoardSizeBucket(numberOfCells);
+        revealedCellsSummaries.computeIfAbsent(boardSize, key -> DistributionSummary.builder("minesweeper.open.revealed")
+                        .description("Number of cells opened by single click")
+                        .baseUnit("cells")
+                        .tag("board.size", boardSize)
+                        .publishPercentiles(PUBLISHED_PERCENTILES)
+                        .register(meterRegistry))
+                .record(revealedCells);
+    }
+
+    /**
+     * Record size of the response body sent to the client
+     *
+     * @param operation name of the operation
+     * @param sizeInBytes size of the body
+     */
+    public void recordResponseSize(String operation, long sizeInBytes) {
+        responseSizeSummaries.computeIfAbsent(operation, key -> DistributionSummary.builder("minesweeper.response.size")
+                        .description("Size of rendered responses")
+                        .baseUnit("bytes")
+                        .tag("operation", operation)
+                        .publishPercentiles(PUBLISHED_PERCENTILES)
+                        .register(meterRegistry))
+                .record(sizeInBytes);
+    }
+
+    static String toBoardSizeBucket(long numberOfCells) {
+        if (numberOfCells <= SMALL_BOARD_CELLS) {
+            return "small";
+        }
+        if (numberOfCells <= MEDIUM_BOARD_CELLS) {
+            return "medium";
+        }
+        if (numberOfCells <= LARGE_BOARD_CELLS) {
+            return "large";
+        }
+        return "huge";
+    }
+}
@@ -0,0 +1,59 @@
+package com.sarief.minesweeper.service;
+
+import com.sarief.minesweeper.entity.MinefieldMap;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single game in progress. All access to the map has to be done while holding the lock of the game
+ * (see {@link com.sarief.minesweeper.store.GameLocks}), maps themselves are not thread-safe
+ */
+@Getter
+public class GameSession {
+    // started from the clock, so generations of games created after restart don't repeat the old ones
+    private static final AtomicLong GENERATIONS = new AtomicLong(System.currentTimeMillis());
+
+    private final String gameId;
+    private final MinefieldMap minefield;
+    // size of the map doesn't change during the game, so it can be read without the lock
+    private final long numberOfCells;
+    // mines are placed on the first click so that the game can be cleared without guessing
+    private final boolean noGuess;
+    // versions of the map start from 0 after every reset, generation tells sessions of the same game apart
+    private final long generation;
+    // set once the game is replaced or moved out of memory by the store, the session must not be used after that
+    private boolean closed;
+
+    public GameSession(String gameId, MinefieldMap minefield) {
+        this(gameId, minefield, false);
+    }
+
+    public GameSession(String gameId, MinefieldMap minefield, boolean noGuess) {
+        this(gameId, minefield, noGuess, GENERATIONS.incrementAndGet());
+    }
+
+    /**
+     * Create session of a game that existed before, e.g. one restored from snapshot
+     *
+     * @param gameId id of the game
+     * @param minefield map of the game
+     * @param noGuess whether mines are placed on the first click
+     * @param generation generation the game had before
+     */
+    public GameSession(String gameId, MinefieldMap minefield, boolean noGuess, long generation) {
+        this.gameId = gameId;
+        this.generation = generation;
+        this.minefield = minefield;
+        this.numberOfCells = (long) minefield.getHeight() * minefield.getWidth();
+        this.noGuess = noGuess;
+    }
+
+    /**
+     * Release the map of the game, it is not available anymore. Lock of the game must be held
+     */
+    public void close() {
+        closed = true;
+        minefield.release();
+    }
+}
@@ -1,157 +1,607 @@
 package com.sarief.minesweeper.service;
 
+import com.sarief.minesweeper.dto.CellChange;
+import com.sarief.minesweeper.dto.CellPosition;
+import com.sarief.minesweeper.dto.GameEvent;
+import com.sarief.minesweeper.dto.GameEventType;
 import com.sarief.minesweeper.dto.GameStatusResponse;
-import com.sarief.minesweeper.entity.GameState;
-import com.sarief.minesweeper.entity.MineCell;
+import com.sarief.minesweeper.dto.HintResponse;
+import com.sarief.minesweeper.dto.ProbabilityResponse;
+import com.sarief.minesweeper.dto.ResponseMode;
+import com.sarief.minesweeper.dto.Viewport;
+import com.sarief.minesweeper.engine.MineProbabilities;
+import com.sarief.minesweeper.engine.MineProbabilityCalculator;
+import com.sarief.minesweeper.engine.MinefieldSolver;
+import com.sarief.minesweeper.engine.Move;
+import com.sarief.minesweeper.engine.MoveExecutor;
+import com.sarief.minesweeper.engine.NoGuessGenerator;
+import com.sarief.minesweeper.engine.SolverResult;
+import com.sarief.minesweeper.entity.CellChangeJournal;
 import com.sarief.minesweeper.entity.MinefieldMap;
 import com.sarief.minesweeper.entity.MinefieldSquaredMap;
-import com.sarief.minesweeper.exception.MinesweeperGameLostException;
-import org.apache.commons.lang3.StringUtils;
+import com.sarief.minesweeper.entity.MinefieldType;
+import com.sarief.minesweeper.exception.MinesweeperException;
+import com.sarief.minesweeper.store.GameLocks;
+import com.sarief.minesweeper.store.GameStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for logic that works with minefield
  */
 @Service
 public class MinefieldService {
+    // on one core a layout of 100x100 board with 16% of mines is usually found in half a second,
+    // on larger or denser boards search mostly runs out of time and the game falls back to random layout
+    private static final long MAXIMUM_NUMBER_OF_NO_GUESS_CELLS = 10_000;
+    // search runs under the lock of the game, so the first click waits for it
+    private static final long NO_GUESS_TIMEOUT_MILLIS = 1000;
+    // response has a number for every cell
+    private static final long MAXIMUM_NUMBER_OF_PROBABILITY_CELLS = 1_000_000;
+    // solver takes about a second on a million cells with a hundred thousand frontier cells
+    private static final long MAXIMUM_NUMBER_OF_HINT_CELLS = 1_000_000;
+    // every cell is two chars of the response. Bigger chunked and off-heap maps are sent by viewports and changes
+    private static final long MAXIMUM_NUMBER_OF_RENDERED_CELLS = 1_000_000;
 
-    // normally each user would have his own map on backend, but we'll compromise with this since this is not going prod
-    // if needs to be moved to prod: add user handling + store gamestate in redis or, worst case, postgres
-    private MinefieldMap currentMinefield;
+    // each game has its own lock, so games don't wait for each other.
+    // if needs to be moved to prod: add user handling + GameStore backed by redis or, worst case, postgres
+    @Autowired
+    private GameStore gameStore;
+
+    @Autowired
+    private GameLocks gameLocks;
+
+    @Autowired
+    private GameEventPublisher gameEventPublisher;
+
+    @Autowired
+    private GameMetrics gameMetrics;
+
+    @Autowired
+    private BoardPool boardPool;
+
+    private final NoGuessGenerator noGuessGenerator = new NoGuessGenerator(ForkJoinPool.commonPool(),
+            NO_GUESS_TIMEOUT_MILLIS);
+    private final MineProbabilityCalculator mineProbabilityCalculator =
+            new MineProbabilityCalculator(ForkJoinPool.commonPool());
 
 
     /**
      * Open cell by specific coordinates. Game lost if cell contains Mine.
-     * Will open nearby cells if there are no mine nearby (recursive)
+     * Will open nearby cells if there are no mine nearby
      *
+     * @param gameId - id of the game. null for default game
      * @param x - x coordinate
      * @param y - y coordinate
+     * @param responseMode - whole map or only changed cells. null for whole map
+     * @param viewport - part of the map to send back. null for whole map
      * @return current game status
      */
-    public GameStatusResponse openCell(int x, int y) {
-        if (currentMinefield.isGameLost()) {
-            throw new MinesweeperGameLostException();
-        }
+    public GameStatusResponse openCell(String gameId, int x, int y, ResponseMode responseMode,
+                                        Viewport viewport) {
+        return withGame(gameId, GameMetrics.OPERATION_OPEN, session -> {
+            Viewport region = toRegion(session.getMinefield(), viewport, responseMode);
+            session.getMinefield().startRecordingChanges();
 
-        GameState currentGameState = currentMinefield.getGameState();
-        if (currentGameState == GameState.PREPARED) {
-            // initiate field, skip x,y point
-            currentMinefield.initiate(x, y);
-        }
+            int revealedCells = createMoveExecutor(session).open(session.getMinefield(), x, y);
+            gameMetrics.recordRevealedCells(session.getNumberOfCells(), revealedCells);
 
-        MineCell selectedMineCell = currentMinefield.findByCoordinates(x, y);
+            GameStatusResponse gameStatus = finishMove(session, GameEventType.OPEN, responseMode, region);
+            gameStatus.setRevealedCells(revealedCells);
+            return gameStatus;
+        });
+    }
 
-        if (selectedMineCell.isMarked()) {
-            throw new UnsupportedOperationException("Cannot open flagged cell");
-        }
+    /**
+     * Apply moves in order while holding the lock of the game once. Moves after the one that finished the game
+     * are skipped. Subscribers get a single event with all changes
+     *
+     * @param gameId - id of the game. null for default game
+     * @param moves - moves to apply
+     * @param responseMode - whole map or only changed cells. null for whole map
+     * @param viewport - part of the map to send back. null for whole map
+     * @return current game status with number of applied moves
+     */
+    public GameStatusResponse applyMoves(String gameId, List<Move> moves, ResponseMode responseMode,
+                                         Viewport viewport) {
+        return withGame(gameId, GameMetrics.OPERATION_BATCH, session -> {
+            Viewport region = toRegion(session.getMinefield(), viewport, responseMode);
+            session.getMinefield().startRecordingChanges();
 
-        openCell(selectedMineCell);
+            MoveExecutor moveExecutor = createMoveExecutor(session);
+            int appliedMoves;
+            try {
+                appliedMoves = moveExecutor.applyAll(session.getMinefield(), moves);
+            } catch (RuntimeException e) {
+                // moves before the failed one are already applied, subscribers must not miss them
+                publishMove(session, GameEventType.BATCH, null);
+                throw e;
+            } finally {
+                gameMetrics.recordRevealedCells(session.getNumberOfCells(), moveExecutor.getRevealedCells());
+            }
 
-        return getGameStatus();
+            GameStatusResponse gameStatus = finishMove(session, GameEventType.BATCH, responseMode, region);
+            gameStatus.setRevealedCells(moveExecutor.getRevealedCells());
+            gameStatus.setAppliedMoves(appliedMoves);
+            return gameStatus;
+        });
+    }
 
-//        currentMinefield.checkGameStatus();
+    /**
+     * reset game state with specified parameters
+     *
+     * @param gameId id of the game. null for default game
+     * @param height number of rows
+     * @param width number of columns
+     * @param mineCount mine count
+     * @param seed seed for mine placing algorithm. null for random
+     * @param mapType implementation of the map to use. null for default squared map
+     * @return id of the game
+     */
+    public String reset(String gameId, int height, int width, int mineCount, Long seed, MinefieldType mapType) {
+        return reset(gameId, height, width, mineCount, seed, mapType, false);
     }
 
-    private void openCell(MineCell selectedMineCell) {
-        if (selectedMineCell.isOpen()) {
-            return;
+    /**
+     * reset game state with specified parameters
+     *
+     * @param gameId id of the game. null for default game
+     * @param height number of rows
+     * @param width number of columns
+     * @param mineCount mine count
+     * @param seed seed for mine placing algorithm. null for random
+     * @param mapType implementation of the map to use. null for default squared map
+     * @param noGuess place mines on the first click so that the game can be cleared without guessing.
+     *                Same seed and first click give the same layout, unless the search runs out of time,
+     *                then mines are placed as usual
+     * @return id of the game
+     */
+    public String reset(String gameId, int height, int width, int mineCount, Long seed, MinefieldType mapType,
+                        boolean noGuess) {
+        long startTime = System.nanoTime();
+        if (noGuess) {
+            checkNoGuessSupported(height, width, mapType);
         }
-
-        if (currentMinefield.isGameWon()) {
-            return;
+        MinefieldMap minefield = null;
+        if (seed == null && mapType == MinefieldType.DENSE && !noGuess) {
+            minefield = boardPool.take(height, width, mineCount);
         }
-
-        if (currentMinefield.isGameLost()) {
-            throw new MinesweeperGameLostException();
+        if (minefield == null) {
+            minefield = createMinefield(mapType);
+            // new map is not visible to anyone yet, so there is no need to lock it
+            minefield.reset(height, width, mineCount, seed);
         }
 
-        if (selectedMineCell.isMarked()) { // remove flag if opened from nearby cell
-            selectedMineCell.setMarked(false);
+        String resolvedGameId = GameStore.resolveGameId(gameId);
+        // requests waiting for the lock of the game find the new one
+        gameLocks.lock(resolvedGameId);
+        try {
+            GameSession replacedSession = gameStore.put(new GameSession(resolvedGameId, minefield, noGuess));
+            if (replacedSession != null) {
+                replacedSession.close();
+            }
+        } catch (RuntimeException e) {
+            // store didn't take the map, off-heap memory would stay taken
+            minefield.release();
+            throw e;
+        } finally {
+            gameLocks.unlock(resolvedGameId);
         }
 
-        // step 1: check if it has mines
-        if(selectedMineCell.containsMine()){
-            selectedMineCell.setOpen(true);
-            currentMinefield.finishGameLost();
-            return;
-        }
+        gameEventPublisher.publish(GameEvent.builder()
+                .gameId(resolvedGameId)
+                .type(GameEventType.RESET)
+                .gameState(minefield.getGameState())
+                .version(minefield.getVersion())
+                .resyncRequired(true)
+                .build());
 
-        // step 2: no mine = open cell
-        selectedMineCell.setOpen(true);
-        currentMinefield.addToCountOfOpenCells();
+        gameMetrics.recordOperation(GameMetrics.OPERATION_RESET, (long) height * width, System.nanoTime() - startTime);
+        return resolvedGameId;
+    }
 
-        // step 3: if there are no adjacent mines - open all adjacent cells;
-        if (currentMinefield.getNumberOfAdjecentMines(selectedMineCell) == 0) {
-            openAdjacentCells(selectedMineCell);
+    private static void checkNoGuessSupported(int height, int width, MinefieldType mapType) {
+        // every candidate is played on a scratch copy of the whole map
+        if (mapType == MinefieldType.CHUNKED || mapType == MinefieldType.OFF_HEAP) {
+            throw new MinesweeperException("No-guess generation is not supported for " + mapType + " map",
+                    "error.code.noguess.unsupported");
         }
+        if ((long) height * width > MAXIMUM_NUMBER_OF_NO_GUESS_CELLS) {
+            throw new MinesweeperException("Too many cells for no-guess generation: "
+                    + MAXIMUM_NUMBER_OF_NO_GUESS_CELLS, "error.code.limit.noguess");
+        }
+    }
+
+    private MoveExecutor createMoveExecutor(GameSession session) {
+        return new MoveExecutor(session.isNoGuess() ? noGuessGenerator : null);
     }
 
-    private void openAdjacentCells(MineCell selectedMineCell) {
-        List<MineCell> adjacentCells = currentMinefield.getAdjacentCells(selectedMineCell.getCoordinates());
+    private static MinefieldMap createMinefield(MinefieldType mapType) {
+        return mapType != null ? mapType.createMap() : new MinefieldSquaredMap();
+    }
+
+    /**
+     * get current game status
+     *
+     * @param gameId id of the game. null for default game
+     * @return current game status
+     */
+    public GameStatusResponse getGameStatus(String gameId) {
+        return getGameStatus(gameId, null, null);
+    }
+
+    /**
+     * get current game status, only for part of the map
+     *
+     * @param gameId id of the game. null for default game
+     * @param viewport part of the map to send. null for whole map
+     * @param knownTag tag of the status client already has, see {@link GameStatusResponse#getTag}. null if none
+     * @return current game status. If its tag equals the known tag, map is not sent
+     */
+    public GameStatusResponse getGameStatus(String gameId, Viewport viewport, String knownTag) {
+        return withGame(gameId, GameMetrics.OPERATION_STATUS, session -> {
+            MinefieldMap currentMinefield = session.getMinefield();
+            Viewport region = toRegion(currentMinefield, viewport, null);
+            String tag = session.getGeneration() + "." + currentMinefield.getVersion();
+            if (region != null) {
+                // status of another viewport has another field
+                tag += ":" + region.getX() + "." + region.getY() + "." + region.getWidth() + "x" + region.getHeight();
+            }
+            if (tag.equals(knownTag)) {
+                return GameStatusResponse.builder()
+                        .gameState(currentMinefield.getGameState())
+                        .version(currentMinefield.getVersion())
+                        .tag(tag)
+                        .build();
+            }
+
+            GameStatusResponse gameStatus = toGameStatus(currentMinefield, region);
+            gameStatus.setTag(tag);
+            return gameStatus;
+        });
+    }
+
+    /**
+     * Find cells that can be proven safe or mined from open numbers and flags. Flags are trusted to be right
+     *
+     * @param gameId id of the game. null for default game
+     * @return proven cells
+     */
+    public HintResponse getHint(String gameId) {
+        return withGame(gameId, GameMetrics.OPERATION_HINT, session -> {
+            MinefieldMap currentMinefield = session.getMinefield();
+            if (session.getNumberOfCells() > MAXIMUM_NUMBER_OF_HINT_CELLS) {
+                throw new MinesweeperException("Hints are available for maps up to "
+                        + MAXIMUM_NUMBER_OF_HINT_CELLS + " cells", "error.code.limit.hint");
+            }
+            SolverResult result = new MinefieldSolver().solve(currentMinefield);
+            return HintResponse.builder()
+                    .version(currentMinefield.getVersion())
+                    .safeCells(toCellPositions(currentMinefield, result.getSafeCells()))
+                    .mineCells(toCellPositions(currentMinefield, result.getMineCells()))
+                    .build();
+        });
+    }
+
+    /**
+     * Calculate probability of mine in every cell from open numbers and flags. Flags are trusted to be right
+     *
+     * @param gameId id of the game. null for default game
+     * @return probabilities of all cells
+     */
+    public ProbabilityResponse getProbabilities(String gameId) {
+        return withGame(gameId, GameMetrics.OPERATION_PROBABILITIES, session -> {
+            MinefieldMap currentMinefield = session.getMinefield();
+            int height = currentMinefield.getHeight();
+            int width = currentMinefield.getWidth();
+            if ((long) height * width > MAXIMUM_NUMBER_OF_PROBABILITY_CELLS) {
+                throw new MinesweeperException("Probabilities are available for maps up to "
+                        + MAXIMUM_NUMBER_OF_PROBABILITY_CELLS + " cells", "error.code.limit.probabilities");
+            }
+
+            MineProbabilities result = mineProbabilityCalculator.calculate(currentMinefield);
+            double[][] probabilities = new double[height][];
+            for (int y = 0; y < height; y++) {
+                probabilities[y] = Arrays.copyOfRange(result.getProbabilities(), y * width, (y + 1) * width);
+            }
+            return ProbabilityResponse.builder()
+                    .version(currentMinefield.getVersion())
+                    .exact(result.isExact())
+                    .probabilities(probabilities)
+                    .build();
+        });
+    }
 
-        for (MineCell adjacentCell : adjacentCells) {
-            openCell(adjacentCell);
+    private static List<CellPosition> toCellPositions(MinefieldMap currentMinefield, int[] cells) {
+        int width = currentMinefield.getWidth();
+        List<CellPosition> cellPositions = new ArrayList<>(cells.length);
+        for (int index : cells) {
+            cellPositions.add(CellPosition.builder().x(index % width).y(index / width).build());
         }
+        return cellPositions;
     }
 
+    private static GameStatusResponse toGameStatus(MinefieldMap currentMinefield, Viewport region) {
+        String[] field = region == null ? currentMinefield.getDisplayField()
+                : currentMinefield.getDisplayField(region.getX(), region.getY(), region.getWidth(), region.getHeight());
+        return GameStatusResponse.builder()
+                .gameState(currentMinefield.getGameState())
+                .version(currentMinefield.getVersion())
+                .field(field)
+                // rows are odd or even by their y on the whole map, not by the position in viewport
+                .oddRowsShifted(currentMinefield.getType() == MinefieldType.HEXAGONAL ? Boolean.TRUE : null)
+                .viewport(region)
+                .build();
+    }
 
     /**
-     * reset game state with specified parameters
+     * Check viewport and cut it to the map. Moves check it before they change anything,
+     * so wrong viewport can't fail the request after the move is made
      *
-     * @param height number of rows
-     * @param width number of columns
-     * @param mineCount mine count
-     * @param seed seed for mine placing algorithm. null for random
+     * @param currentMinefield map the viewport is for
+     * @param viewport requested viewport. null for whole map
+     * @param responseMode whole map or only changed cells. null for whole map
+     * @return viewport inside the map, null for whole map
      */
-    public void reset(int height, int width, int mineCount, Long seed) {
-        currentMinefield = new MinefieldSquaredMap();
+    private static Viewport toRegion(MinefieldMap currentMinefield, Viewport viewport, ResponseMode responseMode) {
+        if (viewport == null) {
+            if (responseMode != ResponseMode.DELTA && !isRenderable(currentMinefield, null)) {
+                throw new MinesweeperException("Map is too big to be sent whole, request viewport of up to "
+                        + MAXIMUM_NUMBER_OF_RENDERED_CELLS + " cells", "error.code.limit.render");
+            }
+            return null;
+        }
+        if (viewport.getX() < 0 || viewport.getY() < 0 || viewport.getWidth() < 1 || viewport.getHeight() < 1
+                || viewport.getX() >= currentMinefield.getWidth() || viewport.getY() >= currentMinefield.getHeight()) {
+            throw new MinesweeperException("Viewport is outside of the map", "error.code.viewport.invalid");
+        }
+        Viewport region = Viewport.builder()
+                .x(viewport.getX())
+                .y(viewport.getY())
+                .width(Math.min(viewport.getWidth(), currentMinefield.getWidth() - viewport.getX()))
+                .height(Math.min(viewport.getHeight(), currentMinefield.getHeight() - viewport.getY()))
+                .build();
+        if (!isRenderable(currentMinefield, region)) {
+            throw new MinesweeperException("Viewport is too big, maximum is " + MAXIMUM_NUMBER_OF_RENDERED_CELLS
+                    + " cells", "error.code.limit.render");
+        }
+        return region;
+    }
+
+    /**
+     * Check if map or its part is small enough to be sent as field. Only maps made for giant boards are limited,
+     * others already keep every cell in memory
+     *
+     * @param currentMinefield map to send
+     * @param region part of the map to send, see toRegion. null for whole map
+     * @return true if field can be sent
+     */
+    private static boolean isRenderable(MinefieldMap currentMinefield, Viewport region) {
+        long numberOfCells = region == null ? (long) currentMinefield.getHeight() * currentMinefield.getWidth()
+                : (long) region.getHeight() * region.getWidth();
+        MinefieldType mapType = currentMinefield.getType();
+        return mapType != MinefieldType.CHUNKED && mapType != MinefieldType.OFF_HEAP
+                || numberOfCells <= MAXIMUM_NUMBER_OF_RENDERED_CELLS;
+    }
 
-        currentMinefield.reset(height, width, mineCount, seed);
+    private static boolean isInside(Viewport region, CellChange cellChange) {
+        return cellChange.getX() >= region.getX() && cellChange.getX() - region.getX() < region.getWidth()
+                && cellChange.getY() >= region.getY() && cellChange.getY() - region.getY() < region.getHeight();
     }
 
     /**
-     * get current game status
+     * Finish recording changes of the move, notify subscribers of the game and build response
      *
+     * @param session game the move was made in. Lock of the game must be held
+     * @param eventType kind of the move
+     * @param responseMode whole map or only changed cells. null for whole map
+     * @param region part of the map to send back, see toRegion. null for whole map
      * @return current game status
      */
-    public GameStatusResponse getGameStatus() {
+    private GameStatusResponse finishMove(GameSession session, GameEventType eventType, ResponseMode responseMode,
+                                          Viewport region) {
+        MinefieldMap currentMinefield = session.getMinefield();
+        List<CellChange> cellChanges = publishMove(session, eventType, responseMode);
+
+        if (responseMode != ResponseMode.DELTA) {
+            return toGameStatus(currentMinefield, region);
+        }
+        if (cellChanges == null) {
+            // changes are too many to list. Viewport is small enough to send instead, whole map may be not
+            if (region != null) {
+                return toGameStatus(currentMinefield, region);
+            }
+            return GameStatusResponse.builder()
+                    .gameState(currentMinefield.getGameState())
+                    .version(currentMinefield.getVersion())
+                    .resyncRequired(true)
+                    .build();
+        }
+
+        // subscribers got all changes, only the response is limited to the viewport
+        if (region != null) {
+            cellChanges = cellChanges.stream()
+                    .filter(cellChange -> isInside(region, cellChange))
+                    .collect(Collectors.toList());
+        }
         return GameStatusResponse.builder()
                 .gameState(currentMinefield.getGameState())
-                .field(toDisplayField(currentMinefield.getField()))
+                .version(currentMinefield.getVersion())
+                .oddRowsShifted(currentMinefield.getType() == MinefieldType.HEXAGONAL ? Boolean.TRUE : null)
+                .viewport(region)
+                .changes(cellChanges)
                 .build();
     }
 
-    private String[] toDisplayField(char[][] field) {
-        String[] stringField = new String[field.length];
-        for (int i = 0; i < field.length; i++) {
-            stringField[i] = StringUtils.join(field[i], ' ');
+    /**
+     * Finish recording changes of the move and notify subscribers of the game
+     *
+     * @param session game the move was made in. Lock of the game must be held
+     * @param eventType kind of the move
+     * @param responseMode whole map or only changed cells. null for whole map
+     * @return changed cells, null if they are not needed for response and event or not known
+     */
+    private List<CellChange> publishMove(GameSession session, GameEventType eventType, ResponseMode responseMode) {
+        MinefieldMap currentMinefield = session.getMinefield();
+        CellChangeJournal changes = currentMinefield.finishRecordingChanges();
+
+        // overflowed journal doesn't know what changed, so whole map has to be sent
+        List<CellChange> cellChanges = null;
+        if (!changes.isOverflowed() && (responseMode == ResponseMode.DELTA
+                || !changes.isEmpty() && gameEventPublisher.hasSubscribers(session.getGameId()))) {
+            cellChanges = toCellChanges(currentMinefield, changes.getChangedCells());
+        }
+
+        if (!changes.isEmpty()) {
+            // published while the lock is held, so subscribers get events in the order moves were made
+            gameEventPublisher.publish(GameEvent.builder()
+                    .gameId(session.getGameId())
+                    .type(eventType)
+                    .gameState(currentMinefield.getGameState())
+                    .version(currentMinefield.getVersion())
+                    .changes(cellChanges)
+                    .resyncRequired(changes.isOverflowed())
+                    .build());
+        }
+        return cellChanges;
+    }
+
+    private static List<CellChange> toCellChanges(MinefieldMap currentMinefield, int[] changedCells) {
+        int width = currentMinefield.getWidth();
+        List<CellChange> cellChanges = new ArrayList<>(changedCells.length);
+        for (int index : changedCells) {
+            cellChanges.add(CellChange.builder()
+                    .x(index % width)
+                    .y(index / width)
+                    .mark(currentMinefield.getMark(index))
+                    .build());
         }
-        return stringField;
+        return cellChanges;
     }
 
     /**
      * Flag cell in specified coordinates
      *
+     * @param gameId - id of the game. null for default game
      * @param x - x coordinate
      * @param y - y coordinate
+     * @param responseMode - whole map or only changed cells. null for whole map
+     * @param viewport - part of the map to send back. null for whole map
      * @return current game status
      */
-    public GameStatusResponse flagCell(int x, int y) {
-        currentMinefield.flagCell(x, y);
-        return getGameStatus();
+    public GameStatusResponse flagCell(String gameId, int x, int y, ResponseMode responseMode,
+                                        Viewport viewport) {
+        return withGame(gameId, GameMetrics.OPERATION_FLAG, session -> {
+            Viewport region = toRegion(session.getMinefield(), viewport, responseMode);
+            session.getMinefield().startRecordingChanges();
+            session.getMinefield().flagCell(x, y);
+            return finishMove(session, GameEventType.FLAG, responseMode, region);
+        });
     }
 
     /**
      * Remove flag from cell in specified coordinates
      *
+     * @param gameId - id of the game. null for default game
      * @param x - x coordinate
      * @param y - y coordinate
+     * @param responseMode - whole map or only changed cells. null for whole map
+     * @param viewport - part of the map to send back. null for whole map
      * @return current game status
      */
-    public GameStatusResponse unflagCell(int x, int y) {
-        currentMinefield.unflagCell(x, y);
-        return getGameStatus();
+    public GameStatusResponse unflagCell(String gameId, int x, int y, ResponseMode responseMode,
+                                        Viewport viewport) {
+        return withGame(gameId, GameMetrics.OPERATION_UNFLAG, session -> {
+            Viewport region = toRegion(session.getMinefield(), viewport, responseMode);
+            session.getMinefield().startRecordingChanges();
+            session.getMinefield().unflagCell(x, y);
+            return finishMove(session, GameEventType.UNFLAG, responseMode, region);
+        });
+    }
+
+    /**
+     * Open all unflagged neighbours of open cell, if number of flags around it equals number of adjacent mines.
+     * Game lost if any of them contains Mine
+     *
+     * @param gameId - id of the game. null for default game
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @param responseMode - whole map or only changed cells. null for whole map
+     * @param viewport - part of the map to send back. null for whole map
+     * @return current game status
+     */
+    public GameStatusResponse chordCell(String gameId, int x, int y, ResponseMode responseMode,
+                                        Viewport viewport) {
+        return withGame(gameId, GameMetrics.OPERATION_CHORD, session -> {
+            Viewport region = toRegion(session.getMinefield(), viewport, responseMode);
+            session.getMinefield().startRecordingChanges();
+
+            int revealedCells = createMoveExecutor(session).chord(session.getMinefield(), x, y);
+            gameMetrics.recordRevealedCells(session.getNumberOfCells(), revealedCells);
+
+            GameStatusResponse gameStatus = finishMove(session, GameEventType.CHORD, responseMode, region);
+            gameStatus.setRevealedCells(revealedCells);
+            return gameStatus;
+        });
+    }
+
+    /**
+     * Subscribe to events of the game
+     *
+     * @param gameId id of the game. null for default game
+     * @return emitter that sends events of the game
+     */
+    public SseEmitter subscribeToEvents(String gameId) {
+        // subscribed under the lock, so no move happens between reading the version and the first event
+        return withGame(gameId, null, session -> gameEventPublisher.subscribe(GameEvent.builder()
+                .gameId(session.getGameId())
+                .type(GameEventType.SUBSCRIBED)
+                .gameState(session.getMinefield().getGameState())
+                .version(session.getMinefield().getVersion())
+                .build()));
+    }
+
+    /**
+     * Run action on the game while holding the lock of that game and record how long it took.
+     * Game is saved to the store if the action changed it, even if the action failed
+     *
+     * @param gameId id of the game. null for default game
+     * @param operation name of the operation for metrics. null if not recorded
+     * @param action action to run
+     * @param <T> type of the result
+     * @return result of the action
+     */
+    private <T> T withGame(String gameId, String operation, Function<GameSession, T> action) {
+        long startTime = System.nanoTime();
+        String resolvedGameId = GameStore.resolveGameId(gameId);
+        GameSession session = null;
+        gameLocks.lock(resolvedGameId);
+        try {
+            session = gameStore.find(resolvedGameId);
+            if (session == null) {
+                throw new MinesweeperException("Game not found: " + resolvedGameId, "error.code.game.not.found");
+            }
+            long version = session.getMinefield().getVersion();
+            try {
+                return action.apply(session);
+            } finally {
+                if (session.getMinefield().getVersion() != version) {
+                    gameStore.save(session);
+                }
+            }
+        } finally {
+            gameLocks.unlock(resolvedGameId);
+            if (session != null && operation != null) {
+                gameMetrics.recordOperation(operation, session.getNumberOfCells(), System.nanoTime() - startTime);
+            }
+        }
     }
 }
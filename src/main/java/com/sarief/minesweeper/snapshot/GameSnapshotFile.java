@@ -0,0 +1,273 @@
+package com.sarief.minesweeper.snapshot;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldSnapshot;
+import com.sarief.minesweeper.entity.MinefieldType;
+import com.sarief.minesweeper.exception.MinesweeperException;
+import com.sarief.minesweeper.service.GameSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary snapshot of a single game, written and read through memory-mapped files.
+ * Same layout can be kept in memory compressed with {@link Deflater}, see {@link #compress(GameSession)}.
+ *
+ * Layout, big-endian:
+ * <pre>
+ * int    magic "MSSN"
+ * byte   format version
+ * byte   map type (ordinal of MinefieldType)
+ * byte   game state (ordinal of GameState)
+ * byte   flags: 1 if starting time is set, 2 if game is no-guess (format 1 has only the first one)
+ * int    height, width, mine count
+ * long   seed
+ * int    opened cells, flags used
+ * long   starting time in millis
+ * long   version of the map
+ * long   generation of the game (format 2 and later)
+ * short  length of game id, followed by game id in UTF-8
+ * cells  4 bits per cell (mine, open, flagged), even index in the low half of the byte
+ * </pre>
+ * Counts of adjacent mines are not stored, they are counted again when the map is restored
+ */
+public final class GameSnapshotFile {
+    /**
+     * Extension of snapshot files
+     */
+    public static final String EXTENSION = ".mss";
+
+    private static final int MAGIC = ('M' << 24) | ('S' << 16) | ('S' << 8) | 'N';
+    private static final byte FORMAT_VERSION = 2;
+    private static final byte FIRST_FORMAT_VERSION = 1;
+    private static final int FLAG_STARTING_TIME = 1;
+    private static final int FLAG_NO_GUESS = 1 << 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 4 + Integer.BYTES * 3 + Long.BYTES
+            + Integer.BYTES * 2 + Long.BYTES * 3 + Short.BYTES;
+    private static final int FIRST_FORMAT_HEADER_SIZE = HEADER_SIZE - Long.BYTES;
+    private static final int CELL_STATE_BITS = 4;
+    private static final int CELL_STATE_MASK = 0xF;
+
+    private GameSnapshotFile() {
+    }
+
+    /**
+     * Write snapshot of the game. Snapshot is written to temporary file first and then moved in place,
+     * so existing snapshot is never left half written. Lock of the game must be held
+     *
+     * @param file file to write to
+     * @param session game to take snapshot of
+     * @throws IOException if file can't be written
+     */
+    public static void write(Path file, GameSession session) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, getSize(session));
+            encode(session, buffer);
+            buffer.force();
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read game from snapshot
+     *
+     * @param file snapshot file
+     * @return restored game
+     * @throws IOException if file can't be read
+     */
+    public static GameSession read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    /**
+     * Take snapshot of the game and compress it. Lock of the game must be held
+     *
+     * @param session game to take snapshot of
+     * @return compressed snapshot
+     */
+    public static byte[] compress(GameSession session) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(getSize(session)));
+        encode(session, buffer);
+
+        // most cells are closed and without mine, so cell bytes repeat a lot
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(buffer.array());
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(buffer.capacity() / 8 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Restore game from compressed snapshot
+     *
+     * @param compressed snapshot made by {@link #compress(GameSession)}
+     * @return restored game
+     */
+    public static GameSession decompress(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length * 8);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(chunk);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw invalidSnapshot("compressed snapshot");
+                }
+                output.write(chunk, 0, length);
+            }
+            return decode(ByteBuffer.wrap(output.toByteArray()), "compressed snapshot");
+        } catch (DataFormatException e) {
+            throw invalidSnapshot("compressed snapshot");
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Get name of the snapshot file of the game. Game id comes from clients,
+     * so it is encoded instead of being used as file name directly
+     *
+     * @param gameId id of the game
+     * @return file name with extension
+     */
+    public static String toFileName(String gameId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(gameId.getBytes(StandardCharsets.UTF_8))
+                + EXTENSION;
+    }
+
+    private static long getSize(GameSession session) {
+        MinefieldMap minefield = session.getMinefield();
+        long numberOfCells = (long) minefield.getHeight() * minefield.getWidth();
+        return HEADER_SIZE + session.getGameId().getBytes(StandardCharsets.UTF_8).length + (numberOfCells + 1) / 2;
+    }
+
+    private static void encode(GameSession session, ByteBuffer buffer) {
+        MinefieldMap minefield = session.getMinefield();
+        MinefieldSnapshot snapshot = minefield.createSnapshot();
+        byte[] gameId = session.getGameId().getBytes(StandardCharsets.UTF_8);
+        int numberOfCells = snapshot.getHeight() * snapshot.getWidth();
+
+        int flags = (snapshot.getStartingTimeInMillis() != null ? FLAG_STARTING_TIME : 0)
+                | (session.isNoGuess() ? FLAG_NO_GUESS : 0);
+        buffer.putInt(MAGIC);
+        buffer.put(FORMAT_VERSION);
+        buffer.put((byte) snapshot.getType().ordinal());
+        buffer.put((byte) snapshot.getGameState().ordinal());
+        buffer.put((byte) flags);
+        buffer.putInt(snapshot.getHeight());
+        buffer.putInt(snapshot.getWidth());
+        buffer.putInt(snapshot.getMineCount());
+        buffer.putLong(snapshot.getSeed());
+        buffer.putInt(snapshot.getOpenedCells());
+        buffer.putInt(snapshot.getFlagsUsed());
+        buffer.putLong(snapshot.getStartingTimeInMillis() != null ? snapshot.getStartingTimeInMillis() : 0);
+        buffer.putLong(snapshot.getVersion());
+        buffer.putLong(session.getGeneration());
+        buffer.putShort((short) gameId.length);
+        buffer.put(gameId);
+
+        for (int index = 0; index < numberOfCells; index += 2) {
+            int lowCell = toCellState(minefield, index);
+            int highCell = index + 1 < numberOfCells ? toCellState(minefield, index + 1) : 0;
+            buffer.put((byte) (lowCell | highCell << CELL_STATE_BITS));
+        }
+    }
+
+    private static GameSession decode(ByteBuffer buffer, String source) {
+        if (buffer.remaining() < FIRST_FORMAT_HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw invalidSnapshot(source);
+        }
+        byte formatVersion = buffer.get();
+        if (formatVersion != FORMAT_VERSION && formatVersion != FIRST_FORMAT_VERSION
+                || formatVersion == FORMAT_VERSION && buffer.limit() < HEADER_SIZE) {
+            throw invalidSnapshot(source);
+        }
+        MinefieldType type = MinefieldType.values()[buffer.get()];
+        GameState gameState = GameState.values()[buffer.get()];
+        int flags = buffer.get();
+        int height = buffer.getInt();
+        int width = buffer.getInt();
+        int mineCount = buffer.getInt();
+        long seed = buffer.getLong();
+        int openedCells = buffer.getInt();
+        int flagsUsed = buffer.getInt();
+        long startingTimeInMillis = buffer.getLong();
+        long version = buffer.getLong();
+        Long generation = formatVersion == FORMAT_VERSION ? buffer.getLong() : null;
+        byte[] gameId = new byte[buffer.getShort()];
+        if (buffer.remaining() < gameId.length) {
+            throw invalidSnapshot(source);
+        }
+        buffer.get(gameId);
+
+        int cellsStart = buffer.position();
+        if (buffer.limit() < cellsStart + ((long) height * width + 1) / 2) {
+            throw invalidSnapshot(source);
+        }
+
+        MinefieldSnapshot snapshot = MinefieldSnapshot.builder()
+                .type(type)
+                .gameState(gameState)
+                .height(height)
+                .width(width)
+                .mineCount(mineCount)
+                .seed(seed)
+                .openedCells(openedCells)
+                .flagsUsed(flagsUsed)
+                .startingTimeInMillis((flags & FLAG_STARTING_TIME) != 0 ? startingTimeInMillis : null)
+                .version(version)
+                .build();
+        MinefieldMap minefield = type.createMap();
+        minefield.restore(snapshot, index ->
+                (buffer.get(cellsStart + index / 2) >>> (index % 2 * CELL_STATE_BITS)) & CELL_STATE_MASK);
+
+        String restoredGameId = new String(gameId, StandardCharsets.UTF_8);
+        boolean noGuess = (flags & FLAG_NO_GUESS) != 0;
+        return generation != null ? new GameSession(restoredGameId, minefield, noGuess, generation)
+                : new GameSession(restoredGameId, minefield, noGuess);
+    }
+
+    private static int toCellState(MinefieldMap minefield, int index) {
+        int cellState = 0;
+        if (minefield.containsMine(index)) {
+            cellState |= MinefieldSnapshot.CELL_MINE;
+        }
+        if (minefield.isOpen(index)) {
+            cellState |= MinefieldSnapshot.CELL_OPEN;
+        }
+        if (minefield.isFlagged(index)) {
+            cellState |= MinefieldSnapshot.CELL_FLAGGED;
+        }
+        return cellState;
+    }
+
+    private static MinesweeperException invalidSnapshot(String source) {
+        return new MinesweeperException("Not a valid game snapshot: " + source, "error.code.snapshot.invalid");
+    }
+}
@@ -0,0 +1,189 @@
+package com.sarief.minesweeper.snapshot;
+
+import com.sarief.minesweeper.service.GameSession;
+import com.sarief.minesweeper.store.GameLocks;
+import com.sarief.minesweeper.store.GameStore;
+import com.sarief.minesweeper.store.GameStoreListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps games on disk, so they survive restart. Games are restored on startup, saved periodically
+ * if they changed since the last snapshot and saved once more on shutdown. Games the store moves out of memory
+ * are saved right before that, and their snapshot is deleted once the store removes them.
+ *
+ * Disabled unless minesweeper.snapshot.enabled=true
+ */
+@Component
+@ConditionalOnProperty(name = "minesweeper.snapshot.enabled", havingValue = "true")
+@Slf4j
+public class GameSnapshotService implements GameStoreListener {
+
+    private final GameStore gameStore;
+    private final GameLocks gameLocks;
+    private final Path directory;
+    private final long intervalInMillis;
+    // what was written last for each game, so unchanged games are not written again
+    private final Map<String, SavedVersion> savedVersions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public GameSnapshotService(GameStore gameStore, GameLocks gameLocks,
+                               @Value("${minesweeper.snapshot.directory:snapshots}") String directory,
+                               @Value("${minesweeper.snapshot.interval-millis:60000}") long intervalInMillis) {
+        this.gameStore = gameStore;
+        this.gameLocks = gameLocks;
+        this.directory = Paths.get(directory);
+        this.intervalInMillis = intervalInMillis;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        restoreGames();
+        gameStore.addListener(this);
+
+        if (intervalInMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-snapshots");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::snapshotGames, intervalInMillis, intervalInMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        snapshotGames();
+    }
+
+    /**
+     * Restore all games found in the snapshot directory. Broken snapshots are skipped
+     *
+     * @return number of restored games
+     * @throws IOException if snapshot directory can't be read
+     */
+    public int restoreGames() throws IOException {
+        int restoredGames = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + GameSnapshotFile.EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    GameSession session = GameSnapshotFile.read(file);
+                    putSession(session);
+                    savedVersions.put(session.getGameId(), new SavedVersion(session));
+                    restoredGames++;
+                } catch (RuntimeException | IOException e) {
+                    log.warn("Cannot restore game from {}", file, e);
+                }
+            }
+        }
+        log.info("Restored {} games from {}", restoredGames, directory);
+        return restoredGames;
+    }
+
+    /**
+     * Write snapshots of games that changed since their last snapshot
+     *
+     * @return number of written snapshots
+     */
+    public int snapshotGames() {
+        int writtenSnapshots = 0;
+        for (GameSession session : gameStore.getLoadedSessions()) {
+            if (!session.getMinefield().getType().isSnapshotSupported()) {
+                continue;
+            }
+            gameLocks.lock(session.getGameId());
+            try {
+                if (session.isClosed()) {
+                    continue; // replaced or moved out of memory since the sessions were listed
+                }
+                if (writeIfChanged(session)) {
+                    writtenSnapshots++;
+                }
+            } catch (RuntimeException | IOException e) {
+                log.warn("Cannot write snapshot of game {}", session.getGameId(), e);
+            } finally {
+                gameLocks.unlock(session.getGameId());
+            }
+        }
+        return writtenSnapshots;
+    }
+
+    @Override
+    public void beforeUnload(GameSession session) throws IOException {
+        writeIfChanged(session);
+    }
+
+    @Override
+    public void afterRemove(String gameId) {
+        savedVersions.remove(gameId);
+        try {
+            Files.deleteIfExists(toFile(gameId));
+        } catch (IOException e) {
+            log.warn("Cannot delete snapshot of game {}", gameId, e);
+        }
+    }
+
+    private boolean writeIfChanged(GameSession session) throws IOException {
+        SavedVersion savedVersion = savedVersions.get(session.getGameId());
+        if (savedVersion != null && savedVersion.isSameAs(session)) {
+            return false;
+        }
+        GameSnapshotFile.write(toFile(session.getGameId()), session);
+        savedVersions.put(session.getGameId(), new SavedVersion(session));
+        return true;
+    }
+
+    private void putSession(GameSession session) {
+        gameLocks.lock(session.getGameId());
+        try {
+            GameSession replacedSession = gameStore.put(session);
+            if (replacedSession != null) {
+                replacedSession.close();
+            }
+        } finally {
+            gameLocks.unlock(session.getGameId());
+        }
+    }
+
+    private Path toFile(String gameId) {
+        return directory.resolve(GameSnapshotFile.toFileName(gameId));
+    }
+
+    /**
+     * Generation of the game and version of its map that were written last. Reset starts new generation,
+     * so it is compared too
+     */
+    private static final class SavedVersion {
+        private final long generation;
+        private final long version;
+
+        private SavedVersion(GameSession session) {
+            this.generation = session.getGeneration();
+            this.version = session.getMinefield().getVersion();
+        }
+
+        private boolean isSameAs(GameSession session) {
+            return generation == session.getGeneration() && version == session.getMinefield().getVersion();
+        }
+    }
+}
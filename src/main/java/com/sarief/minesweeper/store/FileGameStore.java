@@ -0,0 +1,101 @@
+package com.sarief.minesweeper.store;
+
+import com.sarief.minesweeper.exception.MinesweeperException;
+import com.sarief.minesweeper.service.GameSession;
+import com.sarief.minesweeper.snapshot.GameSnapshotFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+/**
+ * {@link GameStore} that keeps nothing in memory: game is read from its snapshot file on every request
+ * and written back after every change. Stands in for a remote store (every access is a round trip).
+ * Games are locked only within one process, so the directory must not be shared by several instances.
+ *
+ * Only maps with snapshot support can be kept. Enabled by minesweeper.store.type=file
+ */
+@Component
+@ConditionalOnProperty(name = "minesweeper.store.type", havingValue = "file")
+public class FileGameStore implements GameStore {
+
+    private final Path directory;
+
+    @Autowired
+    public FileGameStore(@Value("${minesweeper.store.directory:games}") String directory) {
+        this(Paths.get(directory));
+    }
+
+    public FileGameStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create directory of games " + directory, e);
+        }
+    }
+
+    @Override
+    public GameSession find(String gameId) {
+        Path file = toFile(gameId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return GameSnapshotFile.read(file);
+        } catch (IOException e) {
+            throw storeFailed("Cannot read game " + gameId);
+        }
+    }
+
+    @Override
+    public GameSession put(GameSession session) {
+        if (!session.getMinefield().getType().isSnapshotSupported()) {
+            throw new MinesweeperException(session.getMinefield().getType() + " map can't be kept in file store",
+                    "error.code.store.unsupported");
+        }
+        save(session);
+        // replaced game was never kept in memory
+        return null;
+    }
+
+    @Override
+    public void save(GameSession session) {
+        try {
+            GameSnapshotFile.write(toFile(session.getGameId()), session);
+        } catch (IOException e) {
+            throw storeFailed("Cannot save game " + session.getGameId());
+        }
+    }
+
+    @Override
+    public int size() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(file -> file.toString().endsWith(GameSnapshotFile.EXTENSION)).count();
+        } catch (IOException e) {
+            throw storeFailed("Cannot list games");
+        }
+    }
+
+    @Override
+    public Collection<GameSession> getLoadedSessions() {
+        return Collections.emptyList();
+    }
+
+    private Path toFile(String gameId) {
+        return directory.resolve(GameSnapshotFile.toFileName(gameId));
+    }
+
+    private static MinesweeperException storeFailed(String message) {
+        return new MinesweeperException(message, "error.code.store.failed");
+    }
+}
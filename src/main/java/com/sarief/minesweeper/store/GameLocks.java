@@ -0,0 +1,74 @@
+package com.sarief.minesweeper.store;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks of games by their id. Game may be loaded from {@link GameStore} as a new object every time,
+ * so the lock can't be kept in the game itself. Lock of a game exists only while someone holds it or waits for it,
+ * so locks of abandoned games don't pile up.
+ *
+ * Locks are reentrant, every lock has to be followed by unlock in the same thread
+ */
+@Component
+public class GameLocks {
+
+    private final Map<String, GameLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Wait for the lock of the game
+     *
+     * @param gameId id of the game
+     */
+    public void lock(String gameId) {
+        acquire(gameId).lock.lock();
+    }
+
+    /**
+     * Take the lock of the game if nobody else holds it
+     *
+     * @param gameId id of the game
+     * @return true if the lock is taken
+     */
+    public boolean tryLock(String gameId) {
+        if (acquire(gameId).lock.tryLock()) {
+            return true;
+        }
+        release(gameId);
+        return false;
+    }
+
+    /**
+     * Give up the lock of the game
+     *
+     * @param gameId id of the game
+     */
+    public void unlock(String gameId) {
+        locks.get(gameId).lock.unlock();
+        release(gameId);
+    }
+
+    private GameLock acquire(String gameId) {
+        // counted inside compute, so the lock can't be removed between being found and being waited for
+        return locks.compute(gameId, (id, gameLock) -> {
+            GameLock acquired = gameLock != null ? gameLock : new GameLock();
+            acquired.users++;
+            return acquired;
+        });
+    }
+
+    private void release(String gameId) {
+        locks.computeIfPresent(gameId, (id, gameLock) -> --gameLock.users == 0 ? null : gameLock);
+    }
+
+    /**
+     * Lock with number of threads that hold it or wait for it
+     */
+    private static final class GameLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+}
@@ -0,0 +1,75 @@
+package com.sarief.minesweeper.store;
+
+import com.sarief.minesweeper.service.GameSession;
+
+import java.util.Collection;
+
+/**
+ * Place where games live between requests. Games are found and saved by id while holding the lock of that game
+ * from {@link GameLocks}, so store doesn't need to guard a single game against concurrent requests.
+ *
+ * Implementation is chosen by minesweeper.store.type: memory (default, see {@link InMemoryGameStore})
+ * or file (see {@link FileGameStore})
+ */
+public interface GameStore {
+
+    /**
+     * Id of the game used when client doesn't specify one
+     */
+    String DEFAULT_GAME_ID = "default";
+
+    /**
+     * Find game by id. Lock of the game must be held until the game is not used anymore
+     *
+     * @param gameId id of the game
+     * @return found game, null if there is no such game
+     */
+    GameSession find(String gameId);
+
+    /**
+     * Add new game or replace existing one with the same id. Lock of the game must be held
+     *
+     * @param session game to add
+     * @return replaced game if it was loaded, null otherwise. Caller closes it
+     */
+    GameSession put(GameSession session);
+
+    /**
+     * Save changes of the game found before. Lock of the game must be held
+     *
+     * @param session changed game
+     */
+    void save(GameSession session);
+
+    /**
+     * Get number of games in the store, loaded or not
+     *
+     * @return number of games
+     */
+    int size();
+
+    /**
+     * Get games that are kept in memory right now. Games added or removed later are not visible
+     *
+     * @return loaded games
+     */
+    Collection<GameSession> getLoadedSessions();
+
+    /**
+     * Listen to games the store moves out of memory or removes. Store that never does so ignores listeners
+     *
+     * @param listener listener to add
+     */
+    default void addListener(GameStoreListener listener) {
+    }
+
+    /**
+     * Replace missing id with id of the default game
+     *
+     * @param gameId id of the game, can be null
+     * @return not null id of the game
+     */
+    static String resolveGameId(String gameId) {
+        return gameId != null ? gameId : DEFAULT_GAME_ID;
+    }
+}
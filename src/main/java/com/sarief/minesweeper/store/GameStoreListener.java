@@ -0,0 +1,27 @@
+package com.sarief.minesweeper.store;
+
+import com.sarief.minesweeper.service.GameSession;
+
+import java.io.IOException;
+
+/**
+ * Gets told when {@link GameStore} moves games out of memory or removes them on its own, e.g. when they expire.
+ * Both methods are called while holding the lock of the game
+ */
+public interface GameStoreListener {
+
+    /**
+     * Game is about to be moved out of memory, session can still be read
+     *
+     * @param session game to be moved
+     * @throws IOException if the game can't be kept elsewhere, it stays in memory then
+     */
+    void beforeUnload(GameSession session) throws IOException;
+
+    /**
+     * Game was removed from the store
+     *
+     * @param gameId id of the removed game
+     */
+    void afterRemove(String gameId);
+}
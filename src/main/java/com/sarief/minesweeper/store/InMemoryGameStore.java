@@ -0,0 +1,368 @@
+package com.sarief.minesweeper.store;
+
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.exception.MinesweeperException;
+import com.sarief.minesweeper.service.GameSession;
+import com.sarief.minesweeper.snapshot.GameSnapshotFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link GameStore} that keeps games in memory, in three tiers:
+ * <ul>
+ *     <li>loaded - map is ready to play</li>
+ *     <li>compressed - game wasn't played for minesweeper.store.idle-millis, its snapshot is kept deflated</li>
+ *     <li>spilled - compressed snapshot is moved to minesweeper.store.spill-directory</li>
+ * </ul>
+ * When loaded and compressed games take more than minesweeper.store.memory-budget-bytes, least recently used games
+ * are compressed and spilled until they fit. Game found in lower tier is loaded back on the next request.
+ * Games not played for minesweeper.store.ttl-millis are removed in any tier, so abandoned games don't take memory
+ * or disk forever. Maps without snapshot support can't be compressed, they stay loaded until removed and are not
+ * counted against the budget, spilling other games wouldn't make them any smaller.
+ *
+ * Games are moved between tiers on a background thread, only games nobody holds the lock of are touched.
+ * Spilled games don't survive restart, {@link GameStoreListener} can keep them elsewhere before they leave memory
+ * (see {@link com.sarief.minesweeper.snapshot.GameSnapshotService}).
+ *
+ * Default store, minesweeper.store.type=memory
+ */
+@Component
+@ConditionalOnProperty(name = "minesweeper.store.type", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryGameStore implements GameStore {
+    private static final String SPILL_EXTENSION = ".deflate";
+
+    private final GameLocks gameLocks;
+    private final long memoryBudgetBytes;
+    private final long idleMillis;
+    private final long ttlMillis;
+    private final Path spillDirectory;
+    private final long maintenanceIntervalMillis;
+
+    // access order, least recently used game comes first. Guarded by this store
+    private final LinkedHashMap<String, StoredGame> games = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedMemoryBytes;
+    private final AtomicBoolean maintenanceRequested = new AtomicBoolean();
+    private final List<GameStoreListener> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    public InMemoryGameStore(GameLocks gameLocks,
+                             @Value("${minesweeper.store.memory-budget-bytes:1073741824}") long memoryBudgetBytes,
+                             @Value("${minesweeper.store.idle-millis:600000}") long idleMillis,
+                             @Value("${minesweeper.store.ttl-millis:86400000}") long ttlMillis,
+                             @Value("${minesweeper.store.spill-directory:${java.io.tmpdir}/minesweeper-spill}")
+                                     String spillDirectory,
+                             @Value("${minesweeper.store.maintenance-interval-millis:10000}")
+                                     long maintenanceIntervalMillis) {
+        this.gameLocks = gameLocks;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.idleMillis = idleMillis;
+        this.ttlMillis = ttlMillis;
+        this.spillDirectory = Paths.get(spillDirectory);
+        this.maintenanceIntervalMillis = maintenanceIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(spillDirectory);
+        // games spilled before restart are gone from memory, their files would never be read
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDirectory, "*" + SPILL_EXTENSION)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+
+        if (maintenanceIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-store");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::runMaintenance, maintenanceIntervalMillis,
+                    maintenanceIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public GameSession find(String gameId) {
+        StoredGame game;
+        synchronized (this) {
+            game = games.get(gameId);
+        }
+        if (game == null) {
+            return null;
+        }
+        game.lastAccessMillis = System.currentTimeMillis();
+        if (game.session == null) {
+            load(game);
+        }
+        return game.session;
+    }
+
+    @Override
+    public GameSession put(GameSession session) {
+        StoredGame game = new StoredGame(session.getGameId());
+        game.session = session;
+        game.lastAccessMillis = System.currentTimeMillis();
+
+        StoredGame replacedGame;
+        synchronized (this) {
+            replacedGame = games.put(game.gameId, game);
+            if (replacedGame != null) {
+                usedMemoryBytes -= replacedGame.memoryBytes;
+            }
+            account(game, estimateMemoryBytes(session));
+        }
+        requestMaintenanceIfOverBudget();
+
+        if (replacedGame == null) {
+            return null;
+        }
+        deleteQuietly(replacedGame.spillFile);
+        return replacedGame.session;
+    }
+
+    @Override
+    public void save(GameSession session) {
+        // loaded game is the saved one, only its size may change, e.g. when mines are placed
+        StoredGame game;
+        synchronized (this) {
+            game = games.get(session.getGameId());
+            if (game != null && game.session == session) {
+                account(game, estimateMemoryBytes(session));
+            }
+        }
+        requestMaintenanceIfOverBudget();
+    }
+
+    @Override
+    public synchronized int size() {
+        return games.size();
+    }
+
+    @Override
+    public synchronized List<GameSession> getLoadedSessions() {
+        List<GameSession> sessions = new ArrayList<>();
+        for (StoredGame game : games.values()) {
+            GameSession session = game.session;
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    @Override
+    public void addListener(GameStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Get memory taken by loaded and compressed games that can be moved out of memory
+     *
+     * @return estimated number of bytes
+     */
+    public synchronized long getUsedMemoryBytes() {
+        return usedMemoryBytes;
+    }
+
+    /**
+     * Remove expired games, compress idle ones and move games out of memory until they fit into the budget.
+     * Runs periodically, public so that it can be run right away
+     */
+    public void runMaintenance() {
+        maintenanceRequested.set(false);
+        long now = System.currentTimeMillis();
+        for (StoredGame game : listGames()) {
+            if (now - game.lastAccessMillis > Math.min(idleMillis, ttlMillis)) {
+                // checked again under the lock, game could have been played since it was listed
+                withLock(game, lockedGame -> {
+                    if (now - lockedGame.lastAccessMillis > ttlMillis) {
+                        remove(lockedGame);
+                    } else if (now - lockedGame.lastAccessMillis > idleMillis) {
+                        compress(lockedGame);
+                    }
+                });
+            }
+        }
+
+        // least recently used first
+        for (StoredGame game : listGames()) {
+            if (!isOverBudget()) {
+                break;
+            }
+            withLock(game, lockedGame -> {
+                compress(lockedGame);
+                spill(lockedGame);
+            });
+        }
+    }
+
+    private synchronized List<StoredGame> listGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    private synchronized boolean isOverBudget() {
+        return usedMemoryBytes > memoryBudgetBytes;
+    }
+
+    private void requestMaintenanceIfOverBudget() {
+        if (scheduler != null && isOverBudget() && maintenanceRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::runMaintenance);
+        }
+    }
+
+    /**
+     * Run action on the game if nobody holds its lock and it is still in the store.
+     * Games in use are skipped, they are not idle anyway
+     */
+    private void withLock(StoredGame game, GameAction action) {
+        if (!gameLocks.tryLock(game.gameId)) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (games.get(game.gameId) != game) {
+                    return; // replaced or removed since the games were listed
+                }
+            }
+            action.apply(game);
+        } catch (RuntimeException | IOException e) {
+            log.warn("Cannot move game {} out of memory", game.gameId, e);
+        } finally {
+            gameLocks.unlock(game.gameId);
+        }
+    }
+
+    private void remove(StoredGame game) {
+        synchronized (this) {
+            games.remove(game.gameId);
+            usedMemoryBytes -= game.memoryBytes;
+        }
+        if (game.session != null) {
+            game.session.close();
+        }
+        deleteQuietly(game.spillFile);
+        for (GameStoreListener listener : listeners) {
+            listener.afterRemove(game.gameId);
+        }
+    }
+
+    private void compress(StoredGame game) throws IOException {
+        GameSession session = game.session;
+        if (session == null || !session.getMinefield().getType().isSnapshotSupported()) {
+            return;
+        }
+        for (GameStoreListener listener : listeners) {
+            listener.beforeUnload(session);
+        }
+        game.compressed = GameSnapshotFile.compress(session);
+        game.session = null;
+        session.close();
+        synchronized (this) {
+            account(game, game.compressed.length);
+        }
+    }
+
+    private void spill(StoredGame game) throws IOException {
+        if (game.compressed == null) {
+            return;
+        }
+        Path file = spillDirectory.resolve(GameSnapshotFile.toFileName(game.gameId) + SPILL_EXTENSION);
+        Files.write(file, game.compressed);
+        game.spillFile = file;
+        game.compressed = null;
+        synchronized (this) {
+            account(game, 0);
+        }
+    }
+
+    private void load(StoredGame game) {
+        byte[] compressed = game.compressed;
+        if (compressed == null) {
+            try {
+                compressed = Files.readAllBytes(game.spillFile);
+            } catch (IOException e) {
+                throw new MinesweeperException("Cannot load game " + game.gameId, "error.code.store.failed");
+            }
+        }
+        GameSession session = GameSnapshotFile.decompress(compressed);
+        deleteQuietly(game.spillFile);
+        game.spillFile = null;
+        game.compressed = null;
+        game.session = session;
+        synchronized (this) {
+            account(game, estimateMemoryBytes(session));
+        }
+        requestMaintenanceIfOverBudget();
+    }
+
+    private static long estimateMemoryBytes(GameSession session) {
+        MinefieldMap minefield = session.getMinefield();
+        // such maps can't be compressed, and off-heap one doesn't take the heap anyway
+        return minefield.getType().isSnapshotSupported() ? minefield.estimateMemoryBytes() : 0;
+    }
+
+    private void account(StoredGame game, long memoryBytes) {
+        usedMemoryBytes += memoryBytes - game.memoryBytes;
+        game.memoryBytes = memoryBytes;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete spilled game {}", file, e);
+        }
+    }
+
+    /**
+     * Game in one of the tiers. Exactly one of session, compressed and spillFile is set.
+     * Tier is changed only while holding the lock of the game, memoryBytes only while holding the lock of the store
+     */
+    private static final class StoredGame {
+        private final String gameId;
+        private volatile GameSession session;
+        private volatile byte[] compressed;
+        private volatile Path spillFile;
+        private volatile long lastAccessMillis;
+        private long memoryBytes;
+
+        private StoredGame(String gameId) {
+            this.gameId = gameId;
+        }
+    }
+
+    @FunctionalInterface
+    private interface GameAction {
+        void apply(StoredGame game) throws IOException;
+    }
+}
@@ -1,11 +1,24 @@
 package com.sarief.minesweeper;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 @SpringBootTest
 class MinesweeperApplicationTests {
 
+	@TempDir
+	static Path spillDirectory;
+
+	@DynamicPropertySource
+	static void storeProperties(DynamicPropertyRegistry registry) {
+		registry.add("minesweeper.store.spill-directory", spillDirectory::toString);
+	}
+
 	@Test
 	void contextLoads() {
 	}
@@ -0,0 +1,74 @@
+package com.sarief.minesweeper.benchmark;
+
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.service.BoardPool;
+import com.sarief.minesweeper.service.GameEventPublisher;
+import com.sarief.minesweeper.service.GameMetrics;
+import com.sarief.minesweeper.service.MinefieldService;
+import com.sarief.minesweeper.store.GameLocks;
+import com.sarief.minesweeper.store.GameStore;
+import com.sarief.minesweeper.store.InMemoryGameStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Board parameters shared by benchmarks
+ */
+final class BenchmarkBoards {
+    static final long SEED = 42L;
+    // the rest of the cells around the first click has to stay mineless
+    private static final int MINIMUM_NUMBER_OF_MINELESS_CELLS = 9;
+
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * Store that never moves games out of memory, so benchmarks don't measure loading them back
+     *
+     * @return new store
+     */
+    static GameStore createStore() {
+        return new InMemoryGameStore(new GameLocks(), Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, "spill", 0);
+    }
+
+    static MinefieldService createService(GameStore gameStore, GameEventPublisher gameEventPublisher) {
+        MinefieldService minefieldService = new MinefieldService();
+        ReflectionTestUtils.setField(minefieldService, "gameStore", gameStore);
+        ReflectionTestUtils.setField(minefieldService, "gameLocks", new GameLocks());
+        ReflectionTestUtils.setField(minefieldService, "gameEventPublisher", gameEventPublisher);
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry(), gameStore);
+        ReflectionTestUtils.setField(minefieldService, "gameMetrics", gameMetrics);
+        // benchmarks measure building maps, so nothing is pooled
+        ReflectionTestUtils.setField(minefieldService, "boardPool", new BoardPool(gameMetrics, "", 0));
+        return minefieldService;
+    }
+
+    /**
+     * Number of mines for the board. Density of 0 means a single mine, the worst case for flood fill
+     *
+     * @param size - height and width of the board
+     * @param density - part of cells that contain mines
+     * @return number of mines allowed for the board
+     */
+    static int mineCount(int size, double density) {
+        int numberOfCells = size * size;
+        int mineCount = (int) Math.round(numberOfCells * density);
+        return Math.max(1, Math.min(mineCount, numberOfCells - MINIMUM_NUMBER_OF_MINELESS_CELLS));
+    }
+
+    /**
+     * Find closed cell to put flag on
+     *
+     * @param minefield started map
+     * @return index of the first closed cell
+     */
+    static int firstClosedCell(MinefieldMap minefield) {
+        int numberOfCells = minefield.getHeight() * minefield.getWidth();
+        for (int index = 0; index < numberOfCells; index++) {
+            if (!minefield.isOpen(index)) {
+                return index;
+            }
+        }
+        throw new IllegalStateException("Every cell is open");
+    }
+}
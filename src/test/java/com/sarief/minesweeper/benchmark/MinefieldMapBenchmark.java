@@ -0,0 +1,99 @@
+package com.sarief.minesweeper.benchmark;
+
+import com.sarief.minesweeper.engine.RevealEngine;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of map implementations without web and service layers. Flood fill is measured by {@link RevealBenchmark}
+ *
+ * Run with: mvn -P benchmark test -Djmh.args="MinefieldMapBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MinefieldMapBenchmark {
+
+    @Param({"SQUARED", "DENSE"})
+    private MinefieldType mapType;
+
+    @Param({"9", "100", "1000", "2000"})
+    private int size;
+
+    @Param({"0.12", "0.2", "0.6"})
+    private double density;
+
+    private int mineCount;
+    private int center;
+
+    // started map with first click made, used by benchmarks that don't change it
+    private MinefieldMap startedMap;
+    private int closedCell;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mineCount = BenchmarkBoards.mineCount(size, density);
+        center = size / 2;
+
+        startedMap = newPreparedMap(mineCount);
+        startedMap.initiate(center, center);
+        new RevealEngine().reveal(startedMap, startedMap.toIndex(center, center));
+        closedCell = BenchmarkBoards.firstClosedCell(startedMap);
+    }
+
+    private MinefieldMap newPreparedMap(int numberOfMines) {
+        MinefieldMap minefield = mapType.createMap();
+        minefield.reset(size, size, numberOfMines, BenchmarkBoards.SEED);
+        return minefield;
+    }
+
+    @Benchmark
+    public MinefieldMap reset() {
+        return newPreparedMap(mineCount);
+    }
+
+    @Benchmark
+    public MinefieldMap resetAndInitiate() {
+        MinefieldMap minefield = newPreparedMap(mineCount);
+        minefield.initiate(center, center);
+        return minefield;
+    }
+
+    @Benchmark
+    public char[][] getField() {
+        return startedMap.getField();
+    }
+
+    @Benchmark
+    public String[] getDisplayField() {
+        return startedMap.getDisplayField();
+    }
+
+    @Benchmark
+    public long toggleFlag() {
+        int x = closedCell % size;
+        int y = closedCell / size;
+        startedMap.startRecordingChanges();
+        startedMap.flagCell(x, y);
+        startedMap.unflagCell(x, y);
+        startedMap.finishRecordingChanges();
+        return startedMap.getVersion();
+    }
+}
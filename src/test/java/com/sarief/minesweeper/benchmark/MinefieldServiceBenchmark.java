@@ -0,0 +1,92 @@
+package com.sarief.minesweeper.benchmark;
+
+import com.sarief.minesweeper.dto.GameStatusResponse;
+import com.sarief.minesweeper.dto.ResponseMode;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import com.sarief.minesweeper.service.GameEventPublisher;
+import com.sarief.minesweeper.service.MinefieldService;
+import com.sarief.minesweeper.store.GameStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link MinefieldService}, including locking, change recording and building responses.
+ * Service is wired by hand, so Spring context isn't started. Opening cells is measured by {@link OpenCellBenchmark}
+ *
+ * Run with: mvn -P benchmark test -Djmh.args="MinefieldServiceBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MinefieldServiceBenchmark {
+    private static final String GAME_ID = "benchmark";
+
+    @Param({"SQUARED", "DENSE"})
+    private MinefieldType mapType;
+
+    @Param({"9", "100", "1000", "2000"})
+    private int size;
+
+    @Param({"0.12", "0.2"})
+    private double density;
+
+    @Param({"FULL", "DELTA"})
+    private ResponseMode responseMode;
+
+    private MinefieldService minefieldService;
+    private GameEventPublisher gameEventPublisher;
+    private int mineCount;
+    private int center;
+    private int closedCellX;
+    private int closedCellY;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GameStore gameStore = BenchmarkBoards.createStore();
+        gameEventPublisher = new GameEventPublisher(256, 0L, 1, 5000L);
+        minefieldService = BenchmarkBoards.createService(gameStore, gameEventPublisher);
+
+        mineCount = BenchmarkBoards.mineCount(size, density);
+        center = size / 2;
+
+        minefieldService.reset(GAME_ID, size, size, mineCount, BenchmarkBoards.SEED, mapType);
+        minefieldService.openCell(GAME_ID, center, center, responseMode, null);
+        MinefieldMap startedMap = gameStore.find(GAME_ID).getMinefield();
+        int closedCell = BenchmarkBoards.firstClosedCell(startedMap);
+        closedCellX = closedCell % size;
+        closedCellY = closedCell / size;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gameEventPublisher.shutdown();
+    }
+
+    @Benchmark
+    public GameStatusResponse getGameStatus() {
+        return minefieldService.getGameStatus(GAME_ID);
+    }
+
+    @Benchmark
+    public GameStatusResponse toggleFlag() {
+        minefieldService.flagCell(GAME_ID, closedCellX, closedCellY, responseMode, null);
+        return minefieldService.unflagCell(GAME_ID, closedCellX, closedCellY, responseMode, null);
+    }
+}
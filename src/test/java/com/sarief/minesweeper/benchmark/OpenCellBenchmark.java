@@ -0,0 +1,79 @@
+package com.sarief.minesweeper.benchmark;
+
+import com.sarief.minesweeper.dto.GameStatusResponse;
+import com.sarief.minesweeper.dto.ResponseMode;
+import com.sarief.minesweeper.entity.MinefieldType;
+import com.sarief.minesweeper.service.GameEventPublisher;
+import com.sarief.minesweeper.service.MinefieldService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link MinefieldService#openCell} for the first click, which places mines,
+ * opens area around the click and builds the response. Density of 0 places a single mine, so the whole map is opened.
+ * Game is reset before every invocation and that isn't measured.
+ *
+ * Run with: mvn -P benchmark test -Djmh.args="OpenCellBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class OpenCellBenchmark {
+    private static final String GAME_ID = "benchmark";
+
+    @Param({"SQUARED", "DENSE"})
+    private MinefieldType mapType;
+
+    @Param({"9", "100", "1000", "2000"})
+    private int size;
+
+    @Param({"0", "0.12", "0.2"})
+    private double density;
+
+    @Param({"FULL", "DELTA"})
+    private ResponseMode responseMode;
+
+    private MinefieldService minefieldService;
+    private GameEventPublisher gameEventPublisher;
+    private int mineCount;
+    private int center;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameEventPublisher = new GameEventPublisher(256, 0L, 1, 5000L);
+        minefieldService = BenchmarkBoards.createService(BenchmarkBoards.createStore(), gameEventPublisher);
+        mineCount = BenchmarkBoards.mineCount(size, density);
+        center = size / 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gameEventPublisher.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetGame() {
+        minefieldService.reset(GAME_ID, size, size, mineCount, BenchmarkBoards.SEED, mapType);
+    }
+
+    @Benchmark
+    public GameStatusResponse openCellFirstClick() {
+        return minefieldService.openCell(GAME_ID, center, center, responseMode, null);
+    }
+}
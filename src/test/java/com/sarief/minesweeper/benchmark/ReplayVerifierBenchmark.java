@@ -0,0 +1,100 @@
+package com.sarief.minesweeper.benchmark;
+
+import com.sarief.minesweeper.engine.GameLog;
+import com.sarief.minesweeper.engine.MinefieldSolver;
+import com.sarief.minesweeper.engine.Move;
+import com.sarief.minesweeper.engine.MoveExecutor;
+import com.sarief.minesweeper.engine.MoveType;
+import com.sarief.minesweeper.engine.ReplayReport;
+import com.sarief.minesweeper.engine.ReplayVerifier;
+import com.sarief.minesweeper.engine.SolverResult;
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of verifying logs of expert games (16x30, 99 mines) on all cores. Score is games per second.
+ * Logs are played once by the solver with guesses, the same logs are repeated to fill the batch
+ *
+ * Run with: mvn -P benchmark test -Djmh.args="ReplayVerifierBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ReplayVerifierBenchmark {
+    private static final int HEIGHT = 16;
+    private static final int WIDTH = 30;
+    private static final int MINE_COUNT = 99;
+    private static final int DIFFERENT_GAMES = 256;
+    private static final int LOGS_PER_BATCH = 10_000;
+
+    private final ReplayVerifier replayVerifier = new ReplayVerifier(ForkJoinPool.commonPool());
+    private List<GameLog> logs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<GameLog> playedLogs = new ArrayList<>();
+        for (long seed = 0; seed < DIFFERENT_GAMES; seed++) {
+            playedLogs.add(play(seed));
+        }
+        logs = new ArrayList<>(LOGS_PER_BATCH);
+        for (int i = 0; i < LOGS_PER_BATCH; i++) {
+            logs.add(playedLogs.get(i % DIFFERENT_GAMES));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOGS_PER_BATCH)
+    public ReplayReport verify() {
+        return replayVerifier.verify(logs);
+    }
+
+    private static GameLog play(long seed) {
+        MinefieldMap minefield = MinefieldType.SQUARED.createMap();
+        minefield.reset(HEIGHT, WIDTH, MINE_COUNT, seed);
+        MoveExecutor moveExecutor = new MoveExecutor();
+        MinefieldSolver solver = new MinefieldSolver();
+        List<Move> moves = new ArrayList<>();
+
+        Move move = Move.builder().type(MoveType.OPEN).x(WIDTH / 2).y(HEIGHT / 2).build();
+        while (true) {
+            moveExecutor.apply(minefield, move);
+            moves.add(move);
+            if (minefield.getGameState() != GameState.STARTED) {
+                break;
+            }
+            SolverResult result = solver.solve(minefield);
+            int index = result.getSafeCells().length > 0 ? result.getSafeCells()[0]
+                    : BenchmarkBoards.firstClosedCell(minefield);
+            move = Move.builder().type(MoveType.OPEN).x(index % WIDTH).y(index / WIDTH).build();
+        }
+        return GameLog.builder()
+                .height(HEIGHT)
+                .width(WIDTH)
+                .mineCount(MINE_COUNT)
+                .seed(seed)
+                .moves(moves)
+                .claimedState(minefield.getGameState())
+                .build();
+    }
+}
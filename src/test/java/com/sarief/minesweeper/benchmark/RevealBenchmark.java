@@ -0,0 +1,61 @@
+package com.sarief.minesweeper.benchmark;
+
+import com.sarief.minesweeper.engine.RevealEngine;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the first click on a freshly initiated map. Density of 0 places a single mine,
+ * so the click opens the whole map, which is the worst case for flood fill.
+ * Map is prepared before every invocation and that isn't measured.
+ *
+ * Run with: mvn -P benchmark test -Djmh.args="RevealBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class RevealBenchmark {
+
+    @Param({"SQUARED", "DENSE"})
+    private MinefieldType mapType;
+
+    @Param({"9", "100", "1000", "2000"})
+    private int size;
+
+    @Param({"0", "0.12", "0.2", "0.6"})
+    private double density;
+
+    private MinefieldMap minefield;
+    private int firstClick;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        int center = size / 2;
+        minefield = mapType.createMap();
+        minefield.reset(size, size, BenchmarkBoards.mineCount(size, density), BenchmarkBoards.SEED);
+        minefield.initiate(center, center);
+        firstClick = minefield.toIndex(center, center);
+    }
+
+    @Benchmark
+    public int revealFirstClick() {
+        return new RevealEngine().reveal(minefield, firstClick);
+    }
+}
@@ -0,0 +1,116 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class MineProbabilityCalculatorTest {
+    private static final int MAXIMUM_CLOSED_CELLS_TO_CHECK = 22;
+
+    private final MineProbabilityCalculator calculator = new MineProbabilityCalculator(ForkJoinPool.commonPool());
+
+    @Test
+    public void calculate_smallStartedBoards_sameAsCountingEveryLayout() {
+        int checkedBoards = 0;
+        for (long seed = 1; seed <= 200; seed++) {
+            MinefieldMap minefield = new MinefieldDenseMap();
+            minefield.reset(6, 6, 7, seed);
+            new MoveExecutor().open(minefield, 2, 2);
+            int[] closedCells = getClosedCells(minefield);
+            if (minefield.getGameState() != GameState.STARTED || closedCells.length > MAXIMUM_CLOSED_CELLS_TO_CHECK) {
+                continue;
+            }
+
+            MineProbabilities result = calculator.calculate(minefield);
+
+            double[] expected = countEveryLayout(minefield, closedCells);
+            assertThat(result.isExact()).isTrue();
+            for (int index = 0; index < expected.length; index++) {
+                assertThat(result.getProbabilities()[index]).as("seed %d, cell %d", seed, index)
+                        .isCloseTo(expected[index], within(1e-9));
+            }
+            checkedBoards++;
+        }
+        assertThat(checkedBoards).isGreaterThan(10);
+    }
+
+    @Test
+    public void calculate_gameNotStarted_sameForAllCells() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(10, 10, 10, 1L);
+
+        MineProbabilities result = calculator.calculate(minefield);
+
+        assertThat(result.getProbabilities()).containsOnly(0.1);
+    }
+
+    private static int[] getClosedCells(MinefieldMap minefield) {
+        int numberOfCells = minefield.getHeight() * minefield.getWidth();
+        int[] closedCells = new int[numberOfCells];
+        int size = 0;
+        for (int index = 0; index < numberOfCells; index++) {
+            if (!minefield.isOpen(index)) {
+                closedCells[size++] = index;
+            }
+        }
+        return Arrays.copyOf(closedCells, size);
+    }
+
+    private static double[] countEveryLayout(MinefieldMap minefield, int[] closedCells) {
+        int numberOfCells = minefield.getHeight() * minefield.getWidth();
+        long[] minesByCell = new long[numberOfCells];
+        long layouts = 0;
+        boolean[] mines = new boolean[numberOfCells];
+        int mineCount = minefield.getMineCount();
+        // every subset of closed cells with the right number of mines, as bit masks
+        for (long mask = 0; mask < 1L << closedCells.length; mask++) {
+            if (Long.bitCount(mask) != mineCount) {
+                continue;
+            }
+            for (int i = 0; i < closedCells.length; i++) {
+                mines[closedCells[i]] = (mask & 1L << i) != 0;
+            }
+            if (matchesNumbers(minefield, mines)) {
+                layouts++;
+                for (int i = 0; i < closedCells.length; i++) {
+                    if (mines[closedCells[i]]) {
+                        minesByCell[closedCells[i]]++;
+                    }
+                }
+            }
+        }
+
+        double[] probabilities = new double[numberOfCells];
+        for (int index = 0; index < numberOfCells; index++) {
+            probabilities[index] = (double) minesByCell[index] / layouts;
+        }
+        return probabilities;
+    }
+
+    private static boolean matchesNumbers(MinefieldMap minefield, boolean[] mines) {
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+        for (int index = 0; index < mines.length; index++) {
+            if (!minefield.isOpen(index)) {
+                continue;
+            }
+            int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+            int adjacentMines = 0;
+            for (int i = 0; i < numberOfAdjacentCells; i++) {
+                if (mines[adjacentCells[i]]) {
+                    adjacentMines++;
+                }
+            }
+            if (adjacentMines != minefield.getNumberOfAdjacentMines(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,98 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.entity.MinefieldHexagonalMap;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class MinefieldSolverTest {
+
+    @Test
+    public void solve_botFollowsHintsOnExpertSizeBoards_neverHitsMineAndWinsSome() {
+        int wins = 0;
+        for (long seed = 1; seed <= 30; seed++) {
+            MinefieldMap minefield = new MinefieldDenseMap();
+            // fewer mines than expert, so that first click opens an area more often
+            minefield.reset(16, 30, 60, seed);
+            if (playWithHints(minefield, 8, 8) == GameState.FINISHED_WON) {
+                wins++;
+            }
+        }
+        assertThat(wins).isPositive();
+    }
+
+    @Test
+    public void solve_botFollowsHintsOnHexagonalBoards_neverHitsMine() {
+        for (long seed = 1; seed <= 10; seed++) {
+            MinefieldMap minefield = new MinefieldHexagonalMap();
+            minefield.reset(20, 20, 50, seed);
+            playWithHints(minefield, 10, 10);
+        }
+    }
+
+    @Test
+    public void solve_millionCellsWithHugeFrontier_solvedWithinDefaultHeap() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(1000, 1000, 60_000, 11L);
+        minefield.initiate(500, 500);
+        RevealEngine revealEngine = new RevealEngine();
+        // every third cell stays closed, so most open cells are numbers next to closed ones
+        for (int index = 0; index < 1_000_000; index++) {
+            if (index % 3 != 0 && !minefield.containsMine(index) && !minefield.isOpen(index)) {
+                revealEngine.reveal(minefield, index);
+            }
+        }
+        assertThat(Frontier.read(minefield).cells.length).isGreaterThan(50_000);
+
+        SolverResult result = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> new MinefieldSolver().solve(minefield));
+
+        assertThat(result.getMineCells()).hasSize(60_000);
+        for (int index : result.getMineCells()) {
+            assertThat(minefield.containsMine(index)).isTrue();
+        }
+        for (int index : result.getSafeCells()) {
+            assertThat(minefield.containsMine(index)).isFalse();
+        }
+    }
+
+    @Test
+    public void solve_gameNotStarted_nothingFound() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(10, 10, 10, 1L);
+
+        SolverResult result = new MinefieldSolver().solve(minefield);
+
+        assertThat(result.getSafeCells()).isEmpty();
+        assertThat(result.getMineCells()).isEmpty();
+    }
+
+    private static GameState playWithHints(MinefieldMap minefield, int xStart, int yStart) {
+        MoveExecutor moveExecutor = new MoveExecutor();
+        MinefieldSolver solver = new MinefieldSolver();
+        moveExecutor.open(minefield, xStart, yStart);
+
+        while (minefield.getGameState() == GameState.STARTED) {
+            SolverResult result = solver.solve(minefield);
+            if (result.getSafeCells().length == 0 && result.getMineCells().length == 0) {
+                break;
+            }
+            for (int index : result.getMineCells()) {
+                assertThat(minefield.containsMine(index)).isTrue();
+                minefield.flagCell(index % minefield.getWidth(), index / minefield.getWidth());
+            }
+            for (int index : result.getSafeCells()) {
+                assertThat(minefield.containsMine(index)).isFalse();
+                moveExecutor.open(minefield, index % minefield.getWidth(), index / minefield.getWidth());
+            }
+        }
+        assertThat(minefield.getGameState()).isNotEqualTo(GameState.FINISHED_LOST);
+        return minefield.getGameState();
+    }
+}
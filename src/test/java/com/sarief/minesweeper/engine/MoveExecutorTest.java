@@ -0,0 +1,108 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.exception.MinesweeperException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MoveExecutorTest {
+
+    @Test
+    public void chord_flagsMatchNumber_allOtherNeighboursOpened() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(30, 40, 120, 7L);
+        MoveExecutor moveExecutor = new MoveExecutor();
+        moveExecutor.open(minefield, 10, 10);
+
+        int index = findOpenNumberWithClosedNeighbours(minefield, false);
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+        int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            if (minefield.containsMine(adjacentCells[i])) {
+                minefield.flagCell(adjacentCells[i] % minefield.getWidth(), adjacentCells[i] / minefield.getWidth());
+            }
+        }
+
+        int revealedCells = moveExecutor.chord(minefield, index % minefield.getWidth(), index / minefield.getWidth());
+
+        assertThat(revealedCells).isPositive();
+        assertThat(minefield.getGameState()).isNotEqualTo(GameState.FINISHED_LOST);
+        for (int i = 0; i < numberOfAdjacentCells; i++) {
+            assertThat(minefield.isOpen(adjacentCells[i])).isNotEqualTo(minefield.containsMine(adjacentCells[i]));
+        }
+    }
+
+    @Test
+    public void chord_wrongFlag_gameLost() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(30, 40, 120, 7L);
+        MoveExecutor moveExecutor = new MoveExecutor();
+        moveExecutor.open(minefield, 10, 10);
+
+        // every flag has to fit on a safe cell
+        int index = findOpenNumberWithClosedNeighbours(minefield, true);
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+        int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+        int flags = 0;
+        for (int i = 0; i < numberOfAdjacentCells && flags < minefield.getNumberOfAdjacentMines(index); i++) {
+            if (!minefield.isOpen(adjacentCells[i]) && !minefield.containsMine(adjacentCells[i])) {
+                minefield.flagCell(adjacentCells[i] % minefield.getWidth(), adjacentCells[i] / minefield.getWidth());
+                flags++;
+            }
+        }
+        moveExecutor.chord(minefield, index % minefield.getWidth(), index / minefield.getWidth());
+
+        assertThat(minefield.getGameState()).isEqualTo(GameState.FINISHED_LOST);
+    }
+
+    @Test
+    public void applyAll_batchFlagsThenOpensSameCell_nothingApplied() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(30, 40, 120, 7L);
+        MoveExecutor moveExecutor = new MoveExecutor();
+        List<Move> moves = Arrays.asList(
+                Move.builder().type(MoveType.OPEN).x(10).y(10).build(),
+                Move.builder().type(MoveType.FLAG).x(0).y(0).build(),
+                Move.builder().type(MoveType.OPEN).x(0).y(0).build());
+
+        assertThatThrownBy(() -> moveExecutor.applyAll(minefield, moves))
+                .isInstanceOf(MinesweeperException.class)
+                .extracting("code").isEqualTo("error.code.cell.flagged");
+        assertThat(minefield.getGameState()).isEqualTo(GameState.PREPARED);
+        assertThat(minefield.isFlagged(0)).isFalse();
+        assertThat(minefield.getVersion()).isZero();
+
+        // flag removed earlier in the batch doesn't stop the cell from being opened
+        List<Move> unflaggingMoves = Arrays.asList(moves.get(0), moves.get(1),
+                Move.builder().type(MoveType.UNFLAG).x(0).y(0).build(), moves.get(2));
+        assertThat(moveExecutor.applyAll(minefield, unflaggingMoves)).isPositive();
+    }
+
+    private static int findOpenNumberWithClosedNeighbours(MinefieldMap minefield, boolean closedSafeCellForEachMine) {
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+        for (int index = 0; index < minefield.getHeight() * minefield.getWidth(); index++) {
+            if (!minefield.isOpen(index) || minefield.getNumberOfAdjacentMines(index) == 0) {
+                continue;
+            }
+            int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+            int closedSafeCells = 0;
+            for (int i = 0; i < numberOfAdjacentCells; i++) {
+                if (!minefield.isOpen(adjacentCells[i]) && !minefield.containsMine(adjacentCells[i])) {
+                    closedSafeCells++;
+                }
+            }
+            int requiredClosedSafeCells = closedSafeCellForEachMine ? minefield.getNumberOfAdjacentMines(index) : 1;
+            if (closedSafeCells >= requiredClosedSafeCells) {
+                return index;
+            }
+        }
+        throw new IllegalStateException("No cell to chord");
+    }
+}
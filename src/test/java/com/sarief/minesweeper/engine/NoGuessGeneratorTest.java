@@ -0,0 +1,83 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NoGuessGeneratorTest {
+
+    @Test
+    public void findSeed_expertBoard_sameSeedForAnyParallelismAndSolverClearsIt() {
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+        try {
+            Long sequentialSeed = new NoGuessGenerator(singleThreadPool)
+                    .findSeed(MinefieldDenseMap::new, 16, 30, 99, 42L, 8, 8);
+            Long parallelSeed = new NoGuessGenerator(parallelPool)
+                    .findSeed(MinefieldDenseMap::new, 16, 30, 99, 42L, 8, 8);
+
+            assertThat(sequentialSeed).isNotNull();
+            assertThat(parallelSeed).isEqualTo(sequentialSeed);
+
+            MinefieldMap minefield = new MinefieldDenseMap();
+            minefield.reset(16, 30, 99, 42L);
+            minefield.initiate(8, 8, parallelSeed);
+            MoveExecutor moveExecutor = new MoveExecutor();
+            moveExecutor.open(minefield, 8, 8);
+            MinefieldSolver solver = new MinefieldSolver();
+            while (minefield.getGameState() == GameState.STARTED) {
+                int[] safeCells = solver.solve(minefield).getSafeCells();
+                assertThat(safeCells).isNotEmpty();
+                for (int index : safeCells) {
+                    moveExecutor.open(minefield, index % minefield.getWidth(), index / minefield.getWidth());
+                }
+            }
+            assertThat(minefield.getGameState()).isEqualTo(GameState.FINISHED_WON);
+        } finally {
+            singleThreadPool.shutdown();
+            parallelPool.shutdown();
+        }
+    }
+
+    @Test
+    public void findSeed_timeoutDuringSearch_sameSeedAsWithoutTimeoutOrNone() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Long seed = new NoGuessGenerator(pool).findSeed(MinefieldDenseMap::new, 30, 30, 190, 7L, 15, 15);
+            assertThat(seed).isNotNull();
+
+            for (long timeoutMillis = 1; timeoutMillis <= 1024; timeoutMillis *= 4) {
+                Long timedSeed = new NoGuessGenerator(pool, timeoutMillis)
+                        .findSeed(MinefieldDenseMap::new, 30, 30, 190, 7L, 15, 15);
+                if (timedSeed != null) {
+                    assertThat(timedSeed).isEqualTo(seed);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void findSeed_boardTooDenseToClear_stopsAtTimeoutWithoutSeed() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            NoGuessGenerator noGuessGenerator = new NoGuessGenerator(pool, 200);
+
+            long startTime = System.nanoTime();
+            Long seed = noGuessGenerator.findSeed(MinefieldDenseMap::new, 300, 300, 18_000, 42L, 150, 150);
+
+            assertThat(seed).isNull();
+            // candidate that is being played stops at its next solver step
+            assertThat(System.nanoTime() - startTime).isLessThan(TimeUnit.SECONDS.toNanos(2));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
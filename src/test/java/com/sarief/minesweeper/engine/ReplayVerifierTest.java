@@ -0,0 +1,181 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplayVerifierTest {
+    private static final int HEIGHT = 16;
+    private static final int WIDTH = 30;
+    private static final int MINE_COUNT = 99;
+
+    @Test
+    public void verify_logsOfPlayedGames_onlyTamperedLogsReported() {
+        List<GameLog> logs = new ArrayList<>();
+        for (long seed = 0; seed < 300; seed++) {
+            logs.add(play(seed));
+        }
+        assertThat(logs).extracting(GameLog::getClaimedState).contains(GameState.FINISHED_WON, GameState.FINISHED_LOST);
+
+        ReplayVerifier replayVerifier = new ReplayVerifier(ForkJoinPool.commonPool());
+        ReplayReport report = replayVerifier.verify(logs);
+        assertThat(report.getVerifiedLogs()).isEqualTo(300);
+        assertThat(report.getMismatches()).isEmpty();
+
+        int lostGame = indexOf(logs, GameState.FINISHED_LOST);
+        int wonGame = indexOf(logs, GameState.FINISHED_WON);
+        logs.set(lostGame, withClaim(logs.get(lostGame), logs.get(lostGame).getMoves(), GameState.FINISHED_WON));
+        List<Move> unfinishedMoves = logs.get(wonGame).getMoves().subList(0, logs.get(wonGame).getMoves().size() - 1);
+        logs.set(wonGame, withClaim(logs.get(wonGame), unfinishedMoves, GameState.FINISHED_WON));
+        List<Move> invalidMoves = new ArrayList<>(logs.get(250).getMoves());
+        invalidMoves.add(0, Move.builder().type(MoveType.FLAG).x(WIDTH).y(0).build());
+        logs.set(250, withClaim(logs.get(250), invalidMoves, logs.get(250).getClaimedState()));
+
+        report = replayVerifier.verify(logs);
+
+        List<ReplayResult> mismatches = report.getMismatches();
+        assertThat(mismatches).extracting(ReplayResult::getLogIndex)
+                .containsExactlyInAnyOrder(lostGame, wonGame, 250);
+        assertThat(mismatches).extracting(ReplayResult::getLogIndex).isSorted();
+        for (ReplayResult mismatch : mismatches) {
+            if (mismatch.getLogIndex() == lostGame) {
+                assertThat(mismatch.getActualState()).isEqualTo(GameState.FINISHED_LOST);
+            } else if (mismatch.getLogIndex() == wonGame) {
+                assertThat(mismatch.getActualState()).isEqualTo(GameState.STARTED);
+                assertThat(mismatch.getError()).isNull();
+            } else {
+                assertThat(mismatch.getAppliedMoves()).isZero();
+                assertThat(mismatch.getError()).contains("out of bounds");
+            }
+        }
+    }
+
+    @Test
+    public void replay_noGuessGameWithLayoutSeed_sameResultAsSearch() {
+        MinefieldMap minefield = MinefieldType.DENSE.createMap();
+        minefield.reset(HEIGHT, WIDTH, MINE_COUNT, 42L);
+        MoveExecutor moveExecutor = new MoveExecutor(new NoGuessGenerator(ForkJoinPool.commonPool()));
+        MinefieldSolver solver = new MinefieldSolver();
+        List<Move> moves = new ArrayList<>();
+        Move move = Move.builder().type(MoveType.OPEN).x(8).y(8).build();
+        while (true) {
+            moveExecutor.apply(minefield, move);
+            moves.add(move);
+            if (minefield.getGameState() != GameState.STARTED) {
+                break;
+            }
+            move = toMove(MoveType.OPEN, solver.solve(minefield).getSafeCells()[0]);
+        }
+        assertThat(minefield.getGameState()).isEqualTo(GameState.FINISHED_WON);
+
+        GameLog.GameLogBuilder log = GameLog.builder()
+                .height(HEIGHT)
+                .width(WIDTH)
+                .mineCount(MINE_COUNT)
+                .seed(42L)
+                .mapType(MinefieldType.DENSE)
+                .noGuess(true)
+                .moves(moves)
+                .claimedState(GameState.FINISHED_WON);
+        ReplayVerifier replayVerifier = new ReplayVerifier(ForkJoinPool.commonPool());
+
+        assertThat(replayVerifier.replay(log.build()).isMatching()).isTrue();
+        assertThat(replayVerifier.replay(log.layoutSeed(minefield.getSeed()).build()).isMatching()).isTrue();
+        assertThat(replayVerifier.replay(log.layoutSeed(minefield.getSeed() + 1).build()).isMatching()).isFalse();
+    }
+
+    @Test
+    public void replay_layoutSeedEqualToSeed_replayedWithoutSearch() {
+        GameLog played = play(7L);
+        GameLog.GameLogBuilder log = GameLog.builder()
+                .height(HEIGHT)
+                .width(WIDTH)
+                .mineCount(MINE_COUNT)
+                .seed(7L)
+                .moves(played.getMoves())
+                .claimedState(played.getClaimedState());
+        ReplayVerifier replayVerifier = new ReplayVerifier(ForkJoinPool.commonPool());
+
+        // search of no-guess game ran out of time, mines were placed with the seed of the game
+        assertThat(replayVerifier.replay(log.noGuess(true).layoutSeed(7L).build()).isMatching()).isTrue();
+        // layout seed of game without search is not used
+        assertThat(replayVerifier.replay(log.noGuess(false).layoutSeed(8L).build()).isMatching()).isTrue();
+    }
+
+    /**
+     * Play expert game on squared map, as the service does by default: open what solver proves safe,
+     * flag what it proves mined, otherwise guess the first closed cell
+     */
+    private static GameLog play(long seed) {
+        MinefieldMap minefield = MinefieldType.SQUARED.createMap();
+        minefield.reset(HEIGHT, WIDTH, MINE_COUNT, seed);
+        MoveExecutor moveExecutor = new MoveExecutor();
+        MinefieldSolver solver = new MinefieldSolver();
+        List<Move> moves = new ArrayList<>();
+
+        Move move = Move.builder().type(MoveType.OPEN).x(WIDTH / 2).y(HEIGHT / 2).build();
+        while (true) {
+            moveExecutor.apply(minefield, move);
+            moves.add(move);
+            if (minefield.getGameState() != GameState.STARTED) {
+                break;
+            }
+
+            SolverResult result = solver.solve(minefield);
+            if (result.getMineCells().length > 0) {
+                move = toMove(MoveType.FLAG, result.getMineCells()[0]);
+            } else if (result.getSafeCells().length > 0) {
+                move = toMove(MoveType.OPEN, result.getSafeCells()[0]);
+            } else {
+                move = toMove(MoveType.OPEN, firstClosedCell(minefield));
+            }
+        }
+        return GameLog.builder()
+                .height(HEIGHT)
+                .width(WIDTH)
+                .mineCount(MINE_COUNT)
+                .seed(seed)
+                .moves(moves)
+                .claimedState(minefield.getGameState())
+                .build();
+    }
+
+    private static Move toMove(MoveType type, int index) {
+        return Move.builder().type(type).x(index % WIDTH).y(index / WIDTH).build();
+    }
+
+    private static int firstClosedCell(MinefieldMap minefield) {
+        int index = 0;
+        while (minefield.isOpen(index) || minefield.isFlagged(index)) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int indexOf(List<GameLog> logs, GameState claimedState) {
+        for (int i = 0; i < logs.size(); i++) {
+            if (logs.get(i).getClaimedState() == claimedState && i != 250) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No game ended in " + claimedState);
+    }
+
+    private static GameLog withClaim(GameLog log, List<Move> moves, GameState claimedState) {
+        return GameLog.builder()
+                .height(log.getHeight())
+                .width(log.getWidth())
+                .mineCount(log.getMineCount())
+                .seed(log.getSeed())
+                .moves(moves)
+                .claimedState(claimedState)
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.sarief.minesweeper.engine;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldSquaredMap;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RevealEngineTest {
+
+    @Test
+    public void reveal_hugeSparseBoard_opensWholeAreaWithoutRecursion() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(3000, 3000, 1, 42L);
+        minefield.initiate(0, 0);
+
+        int revealedCells = new RevealEngine().reveal(minefield, minefield.toIndex(0, 0));
+
+        // single mine can't split the board, so everything except the mine is opened at once
+        assertThat(revealedCells).isEqualTo(3000 * 3000 - 1);
+        assertThat(minefield.getGameState()).isEqualTo(GameState.FINISHED_WON);
+    }
+
+    @Test
+    public void reveal_sameSeed_sameCellsOpenedOnBothMaps() {
+        MinefieldMap squaredMap = new MinefieldSquaredMap();
+        MinefieldMap denseMap = new MinefieldDenseMap();
+        squaredMap.reset(30, 40, 120, 7L);
+        denseMap.reset(30, 40, 120, 7L);
+        squaredMap.initiate(10, 10);
+        denseMap.initiate(10, 10);
+
+        int squaredRevealed = new RevealEngine().reveal(squaredMap, squaredMap.toIndex(10, 10));
+        int denseRevealed = new RevealEngine().reveal(denseMap, denseMap.toIndex(10, 10));
+
+        assertThat(denseRevealed).isEqualTo(squaredRevealed);
+        assertThat(denseMap.getField()).isEqualTo(squaredMap.getField());
+    }
+}
@@ -0,0 +1,56 @@
+package com.sarief.minesweeper.entity;
+
+import com.sarief.minesweeper.engine.RevealEngine;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MinefieldChunkedMapTest {
+
+    @Test
+    public void initiate_denseBoardAcrossChunks_exactNumberOfMinesAndCorrectCounts() {
+        int height = 150;
+        int width = 200;
+        MinefieldMap minefield = new MinefieldChunkedMap();
+        minefield.reset(height, width, height * width - 9, 11L);
+        minefield.initiate(70, 130);
+
+        int mines = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = minefield.toIndex(x, y);
+                if (minefield.containsMine(index)) {
+                    mines++;
+                }
+
+                int adjacentMines = 0;
+                for (int adjacentY = y - 1; adjacentY <= y + 1; adjacentY++) {
+                    for (int adjacentX = x - 1; adjacentX <= x + 1; adjacentX++) {
+                        if ((adjacentX != x || adjacentY != y) && minefield.isWithinBounds(adjacentX, adjacentY)
+                                && minefield.containsMine(minefield.toIndex(adjacentX, adjacentY))) {
+                            adjacentMines++;
+                        }
+                    }
+                }
+                assertThat(minefield.getNumberOfAdjacentMines(index)).isEqualTo(adjacentMines);
+            }
+        }
+        assertThat(mines).isEqualTo(height * width - 9);
+        assertThat(minefield.containsMine(minefield.toIndex(70, 130))).isFalse();
+    }
+
+    @Test
+    public void reveal_hugeBoard_onlyTouchedChunksCreated() {
+        MinefieldMap minefield = new MinefieldChunkedMap();
+        minefield.reset(40_000, 40_000, 240_000_000, 5L);
+        minefield.flagCell(39_999, 39_999);
+        minefield.initiate(20_000, 20_000);
+
+        int revealedCells = new RevealEngine().reveal(minefield, minefield.toIndex(20_000, 20_000));
+
+        assertThat(revealedCells).isPositive();
+        assertThat(minefield.isFlagged(minefield.toIndex(39_999, 39_999))).isTrue();
+        // table of chunk references and a handful of chunks instead of 1.6 billion cells
+        assertThat(minefield.estimateMemoryBytes()).isLessThan(10_000_000L);
+    }
+}
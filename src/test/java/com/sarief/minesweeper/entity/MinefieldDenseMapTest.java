@@ -0,0 +1,51 @@
+package com.sarief.minesweeper.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MinefieldDenseMapTest {
+
+    @Test
+    public void initiate_minesPlacedInAdvanceAndFirstClickOnMine_mineMovedAndCountsCorrect() {
+        MinefieldDenseMap minefield = new MinefieldDenseMap();
+        minefield.reset(20, 30, 150, 3L);
+        minefield.placeMinesInAdvance();
+
+        int firstClick = 0;
+        while (!minefield.containsMine(firstClick)) {
+            firstClick++;
+        }
+        boolean[] minedBefore = new boolean[20 * 30];
+        for (int index = 0; index < 20 * 30; index++) {
+            minedBefore[index] = minefield.containsMine(index);
+        }
+
+        minefield.initiate(firstClick % 30, firstClick / 30);
+
+        assertThat(minefield.getGameState()).isEqualTo(GameState.STARTED);
+        assertThat(minefield.containsMine(firstClick)).isFalse();
+
+        int mines = 0;
+        int movedMines = 0;
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+        for (int index = 0; index < 20 * 30; index++) {
+            if (minefield.containsMine(index)) {
+                mines++;
+                if (!minedBefore[index]) {
+                    movedMines++;
+                }
+            }
+            int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+            int adjacentMines = 0;
+            for (int i = 0; i < numberOfAdjacentCells; i++) {
+                if (minefield.containsMine(adjacentCells[i])) {
+                    adjacentMines++;
+                }
+            }
+            assertThat(minefield.getNumberOfAdjacentMines(index)).isEqualTo(adjacentMines);
+        }
+        assertThat(mines).isEqualTo(150);
+        assertThat(movedMines).isEqualTo(1);
+    }
+}
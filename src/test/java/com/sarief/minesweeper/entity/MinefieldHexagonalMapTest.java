@@ -0,0 +1,61 @@
+package com.sarief.minesweeper.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MinefieldHexagonalMapTest {
+
+    @Test
+    public void getAdjacentCells_evenAndOddRows_sixNeighborsShiftedByRow() {
+        MinefieldMap minefield = new MinefieldHexagonalMap();
+        minefield.reset(6, 6, 5, 1L);
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+
+        int numberOfAdjacentCells = minefield.getAdjacentCells(minefield.toIndex(2, 2), adjacentCells);
+        assertThat(Arrays.copyOf(adjacentCells, numberOfAdjacentCells)).containsExactly(
+                minefield.toIndex(1, 1), minefield.toIndex(2, 1),
+                minefield.toIndex(1, 2), minefield.toIndex(3, 2),
+                minefield.toIndex(1, 3), minefield.toIndex(2, 3));
+
+        numberOfAdjacentCells = minefield.getAdjacentCells(minefield.toIndex(2, 3), adjacentCells);
+        assertThat(Arrays.copyOf(adjacentCells, numberOfAdjacentCells)).containsExactly(
+                minefield.toIndex(2, 2), minefield.toIndex(3, 2),
+                minefield.toIndex(1, 3), minefield.toIndex(3, 3),
+                minefield.toIndex(2, 4), minefield.toIndex(3, 4));
+
+        // last cell of odd row has nothing to the right
+        numberOfAdjacentCells = minefield.getAdjacentCells(minefield.toIndex(5, 1), adjacentCells);
+        assertThat(Arrays.copyOf(adjacentCells, numberOfAdjacentCells)).containsExactly(
+                minefield.toIndex(5, 0), minefield.toIndex(4, 1), minefield.toIndex(5, 2));
+    }
+
+    @Test
+    public void initiate_randomBoard_countsMatchHexagonalNeighbors() {
+        MinefieldMap minefield = new MinefieldHexagonalMap();
+        minefield.reset(30, 40, 400, 7L);
+        minefield.initiate(10, 10);
+
+        int[] adjacentCells = new int[minefield.getMaximumNumberOfAdjacentCells()];
+        for (int index = 0; index < 30 * 40; index++) {
+            int numberOfAdjacentCells = minefield.getAdjacentCells(index, adjacentCells);
+            int adjacentMines = 0;
+            for (int i = 0; i < numberOfAdjacentCells; i++) {
+                // neighborhood is symmetric on hexagonal board
+                int[] neighborsOfNeighbor = new int[minefield.getMaximumNumberOfAdjacentCells()];
+                int numberOfNeighborsOfNeighbor = minefield.getAdjacentCells(adjacentCells[i], neighborsOfNeighbor);
+                assertThat(Arrays.copyOf(neighborsOfNeighbor, numberOfNeighborsOfNeighbor)).contains(index);
+
+                if (minefield.containsMine(adjacentCells[i])) {
+                    adjacentMines++;
+                }
+            }
+            assertThat(minefield.getNumberOfAdjacentMines(index)).isEqualTo(adjacentMines);
+        }
+        // rows look like rows of square board, shift is drawn by clients
+        assertThat(minefield.getDisplayField())
+                .allSatisfy(row -> assertThat(row).hasSize(minefield.getWidth() * 2 - 1));
+    }
+}
@@ -0,0 +1,45 @@
+package com.sarief.minesweeper.entity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MinefieldOffHeapMapTest {
+
+    @Test
+    public void initiate_sameSeedAsDenseMap_sameCells() {
+        // taller than one counting strip, so counts across strip borders are checked too
+        MinefieldMap denseMap = new MinefieldDenseMap();
+        denseMap.reset(150, 40, 1200, 42L);
+        denseMap.flagCell(5, 5);
+        denseMap.initiate(20, 70);
+        MinefieldOffHeapMap offHeapMap = new MinefieldOffHeapMap();
+        offHeapMap.reset(150, 40, 1200, 42L);
+        offHeapMap.flagCell(5, 5);
+        offHeapMap.initiate(20, 70);
+
+        for (int index = 0; index < 150 * 40; index++) {
+            assertThat(offHeapMap.containsMine(index)).isEqualTo(denseMap.containsMine(index));
+            assertThat(offHeapMap.getNumberOfAdjacentMines(index)).isEqualTo(denseMap.getNumberOfAdjacentMines(index));
+            assertThat(offHeapMap.getMark(index)).isEqualTo(denseMap.getMark(index));
+        }
+        offHeapMap.release();
+        assertThat(offHeapMap.estimateMemoryBytes()).isZero();
+    }
+
+    @Test
+    public void release_mappedStorage_fileDeleted(@TempDir Path directory) {
+        OffHeapCellStorage storage = OffHeapCellStorage.map(directory, 1000);
+        storage.set(999, (byte) 7);
+        assertThat(storage.get(999)).isEqualTo((byte) 7);
+        assertThat(storage.get(0)).isZero();
+        assertThat(directory.toFile().list()).hasSize(1);
+
+        storage.release();
+
+        assertThat(directory.toFile().list()).isEmpty();
+    }
+}
@@ -1,21 +1,59 @@
 package com.sarief.minesweeper.rest;
 
 import com.sarief.minesweeper.dto.CellCoordinateRequest;
+import com.sarief.minesweeper.dto.GameStatusResponse;
+import com.sarief.minesweeper.dto.MoveRequest;
+import com.sarief.minesweeper.dto.MovesRequest;
 import com.sarief.minesweeper.dto.ResetGameRequest;
+import com.sarief.minesweeper.dto.ResponseMode;
+import com.sarief.minesweeper.engine.MoveType;
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldType;
+import com.sarief.minesweeper.rest.converter.BoardBinaryCodec;
+import com.sarief.minesweeper.rest.converter.BoardBinaryHttpMessageConverter;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMetrics
 public class GameplayRestControllerTest {
 
+    @TempDir
+    static Path spillDirectory;
+
+    @DynamicPropertySource
+    static void storeProperties(DynamicPropertyRegistry registry) {
+        registry.add("minesweeper.store.spill-directory", spillDirectory::toString);
+    }
+
     @Value(value = "${local.server.port}")
     private int port;
 
@@ -113,14 +151,45 @@ public class GameplayRestControllerTest {
         assertThat(openCellResponse.getBody()).isNotNull();
         assertThat(openCellResponse.getBody().contains("STARTED")).isTrue();
 
+        openCell(2, 0);
+        openCell(4, 4);
         openCell(0, 0);
+        openCell(0, 2);
+        openCell(1, 2);
+        openCell(0, 4);
+        openCell(1, 4);
+
+
+        String gameStatusUrl = "http://localhost:" + port + "/api/v1/minesweeper/gameStatus";
+        ResponseEntity<String> gameStatusResponse = restTemplate.getForEntity(gameStatusUrl, String.class);
+        assertThat(gameStatusResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(gameStatusResponse.getBody().contains("FINISHED_WON")).isTrue();
+
+    }
+
+    @Test
+    public void playGameToWin_denseMapSeedAndStepsPredefined_resultWin() {
+        Long predefinedSeed = 15625765L;
+        setGame(predefinedSeed, MinefieldType.DENSE);
+
+        String openCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/openCell";
+
+        CellCoordinateRequest firstTurnRequest = new CellCoordinateRequest();
+        firstTurnRequest.setX(1);
+        firstTurnRequest.setY(1);
+        ResponseEntity<String> openCellResponse = restTemplate.postForEntity(openCellUrl, firstTurnRequest, String.class);
+
+        assertThat(openCellResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(openCellResponse.getBody()).isNotNull();
+        assertThat(openCellResponse.getBody().contains("STARTED")).isTrue();
+
+        openCell(2, 0);
         openCell(4, 4);
-        openCell(4, 0);
+        openCell(0, 0);
+        openCell(0, 2);
+        openCell(1, 2);
         openCell(0, 4);
-        openCell(4, 1);
-        openCell(2, 4);
-        openCell(3, 2);
-        openCell(3, 1);
+        openCell(1, 4);
 
 
         String gameStatusUrl = "http://localhost:" + port + "/api/v1/minesweeper/gameStatus";
@@ -130,6 +199,290 @@ public class GameplayRestControllerTest {
 
     }
 
+    @Test
+    public void applyMoves_predefinedWinningMovesAndOneExtra_gameWonAndExtraMoveSkipped() {
+        setGame("batch", 15625765L, MinefieldType.DENSE);
+
+        MovesRequest movesRequest = new MovesRequest();
+        movesRequest.setGameId("batch");
+        movesRequest.setResponseMode(ResponseMode.DELTA);
+        movesRequest.setMoves(Arrays.asList(move(MoveType.FLAG, 3, 3), move(MoveType.UNFLAG, 3, 3),
+                move(MoveType.OPEN, 1, 1), move(MoveType.OPEN, 2, 0), move(MoveType.OPEN, 4, 4),
+                move(MoveType.OPEN, 0, 0), move(MoveType.OPEN, 0, 2), move(MoveType.OPEN, 1, 2),
+                move(MoveType.OPEN, 0, 4), move(MoveType.OPEN, 1, 4), move(MoveType.FLAG, 3, 3)));
+
+        String applyMovesUrl = "http://localhost:" + port + "/api/v1/minesweeper/applyMoves";
+        ResponseEntity<GameStatusResponse> response = restTemplate.postForEntity(applyMovesUrl, movesRequest,
+                GameStatusResponse.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getGameState()).isEqualTo(GameState.FINISHED_WON);
+        assertThat(response.getBody().getAppliedMoves()).isEqualTo(10);
+        // all moves together are one change of the map
+        assertThat(response.getBody().getVersion()).isEqualTo(1);
+        assertThat(response.getBody().getChanges().size()).isEqualTo(20);
+    }
+
+    @Test
+    public void getHint_gameStarted_provenCellsReturned() {
+        setGame("hint", 15625765L);
+
+        // predefined winning moves except the last one
+        MovesRequest movesRequest = new MovesRequest();
+        movesRequest.setGameId("hint");
+        movesRequest.setMoves(Arrays.asList(move(MoveType.OPEN, 1, 1), move(MoveType.OPEN, 2, 0),
+                move(MoveType.OPEN, 4, 4), move(MoveType.OPEN, 0, 0), move(MoveType.OPEN, 0, 2),
+                move(MoveType.OPEN, 1, 2), move(MoveType.OPEN, 0, 4)));
+        String applyMovesUrl = "http://localhost:" + port + "/api/v1/minesweeper/applyMoves";
+        restTemplate.postForEntity(applyMovesUrl, movesRequest, String.class);
+
+        String hintUrl = "http://localhost:" + port + "/api/v1/minesweeper/hint?gameId=hint";
+        ResponseEntity<String> hintResponse = restTemplate.getForEntity(hintUrl, String.class);
+
+        assertThat(hintResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        // last winning move is the only safe cell left
+        assertThat(hintResponse.getBody().contains("\"safeCells\":[{\"x\":1,\"y\":4}]")).isTrue();
+    }
+
+    @Test
+    public void flagCell_twoGames_gamesIndependent() {
+        setGame("first", 123L);
+        setGame("second", 123L);
+
+        CellCoordinateRequest flagRequest = new CellCoordinateRequest();
+        flagRequest.setGameId("first");
+        flagRequest.setX(3);
+        flagRequest.setY(2);
+
+        String flagCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/flagCell";
+        ResponseEntity<String> flagCellResponse = restTemplate.postForEntity(flagCellUrl, flagRequest, String.class);
+        assertThat(flagCellResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(flagCellResponse.getBody().contains("⚑")).isTrue();
+
+        String gameStatusUrl = "http://localhost:" + port + "/api/v1/minesweeper/gameStatus?gameId=second";
+        ResponseEntity<String> gameStatusResponse = restTemplate.getForEntity(gameStatusUrl, String.class);
+        assertThat(gameStatusResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(gameStatusResponse.getBody().contains("⚑")).isFalse();
+    }
+
+    @Test
+    public void flagCell_deltaResponseMode_onlyChangedCellReturned() {
+        setGame("delta", 123L);
+
+        CellCoordinateRequest flagRequest = new CellCoordinateRequest();
+        flagRequest.setGameId("delta");
+        flagRequest.setX(3);
+        flagRequest.setY(2);
+        flagRequest.setResponseMode(ResponseMode.DELTA);
+
+        String flagCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/flagCell";
+        ResponseEntity<String> flagCellResponse = restTemplate.postForEntity(flagCellUrl, flagRequest, String.class);
+
+        assertThat(flagCellResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(flagCellResponse.getBody()).isNotNull();
+        assertThat(flagCellResponse.getBody().contains("\"version\":1")).isTrue();
+        assertThat(flagCellResponse.getBody().contains("{\"x\":3,\"y\":2,\"mark\":\"⚑\"}")).isTrue();
+        assertThat(flagCellResponse.getBody().contains("\"field\"")).isFalse();
+    }
+
+    @Test
+    public void openCell_giantChunkedMapWithoutViewport_onlyDeltaAccepted() {
+        ResetGameRequest resetGameRequest = new ResetGameRequest();
+        resetGameRequest.setGameId("giant");
+        resetGameRequest.setHeight(2000);
+        resetGameRequest.setWidth(2000);
+        resetGameRequest.setMineCount(10);
+        resetGameRequest.setSeed(123L);
+        resetGameRequest.setMapType(MinefieldType.CHUNKED);
+        String resetUrl = "http://localhost:" + port + "/api/v1/minesweeper/resetGame";
+        assertThat(restTemplate.postForEntity(resetUrl, resetGameRequest, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+
+        String gameStatusUrl = "http://localhost:" + port + "/api/v1/minesweeper/gameStatus?gameId=giant";
+        ResponseEntity<String> gameStatusResponse = restTemplate.getForEntity(gameStatusUrl, String.class);
+        assertThat(gameStatusResponse.getBody()).contains("error.code.limit.render");
+
+        CellCoordinateRequest openRequest = new CellCoordinateRequest();
+        openRequest.setGameId("giant");
+        openRequest.setX(1000);
+        openRequest.setY(1000);
+        String openCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/openCell";
+        ResponseEntity<String> fullResponse = restTemplate.postForEntity(openCellUrl, openRequest, String.class);
+        assertThat(fullResponse.getBody()).contains("error.code.limit.render");
+
+        // flood fill opens nearly the whole map, more cells than journal of changes keeps
+        openRequest.setResponseMode(ResponseMode.DELTA);
+        ResponseEntity<String> deltaResponse = restTemplate.postForEntity(openCellUrl, openRequest, String.class);
+        assertThat(deltaResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(deltaResponse.getBody()).contains("\"resyncRequired\":true");
+        assertThat(deltaResponse.getBody()).doesNotContain("\"field\"", "\"changes\"");
+
+        ResponseEntity<String> viewportResponse = restTemplate.getForEntity(
+                gameStatusUrl + "&x=0&y=0&width=10&height=10", String.class);
+        assertThat(viewportResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(viewportResponse.getBody()).contains("\"field\"");
+    }
+
+    @Test
+    public void getGameStatus_giantOffHeapMapWithoutViewport_rejected() {
+        ResetGameRequest resetGameRequest = new ResetGameRequest();
+        resetGameRequest.setGameId("offHeap");
+        resetGameRequest.setHeight(1001);
+        resetGameRequest.setWidth(1000);
+        resetGameRequest.setMineCount(100);
+        resetGameRequest.setMapType(MinefieldType.OFF_HEAP);
+        String resetUrl = "http://localhost:" + port + "/api/v1/minesweeper/resetGame";
+        assertThat(restTemplate.postForEntity(resetUrl, resetGameRequest, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+
+        String gameStatusUrl = "http://localhost:" + port + "/api/v1/minesweeper/gameStatus?gameId=offHeap";
+        assertThat(restTemplate.getForEntity(gameStatusUrl, String.class).getBody())
+                .contains("error.code.limit.render");
+        assertThat(restTemplate.getForEntity(gameStatusUrl + "&height=1000", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void getGameStatus_binaryAccepted_binaryBoardReturned() throws IOException {
+        setGame("binary", 123L);
+
+        CellCoordinateRequest flagRequest = new CellCoordinateRequest();
+        flagRequest.setGameId("binary");
+        flagRequest.setX(3);
+        flagRequest.setY(2);
+        String flagCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/flagCell";
+        restTemplate.postForEntity(flagCellUrl, flagRequest, String.class);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(BoardBinaryHttpMessageConverter.MEDIA_TYPE));
+        String gameStatusUrl = "http://localhost:" + port + "/api/v1/minesweeper/gameStatus?gameId=binary";
+        ResponseEntity<byte[]> gameStatusResponse = restTemplate.exchange(gameStatusUrl, HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+
+        assertThat(gameStatusResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(gameStatusResponse.getHeaders().getContentType()).isEqualTo(BoardBinaryHttpMessageConverter.MEDIA_TYPE);
+        GameStatusResponse gameStatus = BoardBinaryCodec.decode(new ByteArrayInputStream(gameStatusResponse.getBody()));
+        assertThat(gameStatus.getGameState()).isEqualTo(GameState.PREPARED);
+        assertThat(gameStatus.getField()).containsExactly("? ? ? ? ?", "? ? ? ? ?", "? ? ? ⚑ ?", "? ? ? ? ?", "? ? ? ? ?");
+        assertThat(gameStatusResponse.getHeaders().getFirst(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+
+        // cached binary status must not be taken for JSON one
+        String binaryTag = gameStatusResponse.getHeaders().getETag();
+        HttpHeaders jsonHeaders = new HttpHeaders();
+        jsonHeaders.setIfNoneMatch(binaryTag);
+        ResponseEntity<String> jsonResponse = restTemplate.exchange(gameStatusUrl, HttpMethod.GET,
+                new HttpEntity<>(jsonHeaders), String.class);
+        assertThat(jsonResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(jsonResponse.getHeaders().getETag()).isNotEqualTo(binaryTag);
+
+        ResponseEntity<byte[]> viewportResponse = restTemplate.exchange(gameStatusUrl + "&x=3&y=2&width=2&height=2",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        GameStatusResponse viewportStatus =
+                BoardBinaryCodec.decode(new ByteArrayInputStream(viewportResponse.getBody()));
+        assertThat(viewportStatus.getViewport().getX()).isEqualTo(3);
+        assertThat(viewportStatus.getViewport().getY()).isEqualTo(2);
+        assertThat(viewportStatus.getField()).containsExactly("⚑ ?", "? ?");
+    }
+
+    @Test
+    public void getGameStatus_viewportAndKnownTag_viewportSentThenNotModified() {
+        setGame("viewport", 123L);
+
+        CellCoordinateRequest flagRequest = new CellCoordinateRequest();
+        flagRequest.setGameId("viewport");
+        flagRequest.setX(3);
+        flagRequest.setY(2);
+        String flagCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/flagCell";
+        restTemplate.postForEntity(flagCellUrl, flagRequest, String.class);
+
+        String gameStatusUrl = "http://localhost:" + port
+                + "/api/v1/minesweeper/gameStatus?gameId=viewport&x=2&y=1&width=10&height=2";
+        ResponseEntity<String> gameStatusResponse = restTemplate.getForEntity(gameStatusUrl, String.class);
+        assertThat(gameStatusResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(gameStatusResponse.getBody().contains("\"field\":[\"? ? ?\",\"? ⚑ ?\"]")).isTrue();
+        assertThat(gameStatusResponse.getBody().contains("\"viewport\":{\"x\":2,\"y\":1,\"width\":3,\"height\":2}"))
+                .isTrue();
+        String tag = gameStatusResponse.getHeaders().getETag();
+        assertThat(tag).isNotNull();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(tag);
+        ResponseEntity<String> notModifiedResponse = restTemplate.exchange(gameStatusUrl, HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertThat(notModifiedResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModifiedResponse.getBody()).isNull();
+
+        ResponseEntity<String> otherViewportResponse = restTemplate.exchange(gameStatusUrl.replace("y=1", "y=0"),
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(otherViewportResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(otherViewportResponse.getHeaders().getETag()).isNotEqualTo(tag);
+    }
+
+    @Test
+    public void subscribeToEvents_cellFlagged_flagEventPushed() throws Exception {
+        setGame("events", 123L);
+
+        URL eventsUrl = new URL("http://localhost:" + port + "/api/v1/minesweeper/events?gameId=events");
+        HttpURLConnection eventsConnection = (HttpURLConnection) eventsUrl.openConnection();
+        assertThat(eventsConnection.getResponseCode()).isEqualTo(HttpStatus.OK.value());
+        BufferedReader events = new BufferedReader(
+                new InputStreamReader(eventsConnection.getInputStream(), StandardCharsets.UTF_8));
+
+        CellCoordinateRequest flagRequest = new CellCoordinateRequest();
+        flagRequest.setGameId("events");
+        flagRequest.setX(3);
+        flagRequest.setY(2);
+        String flagCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/flagCell";
+        restTemplate.postForEntity(flagCellUrl, flagRequest, String.class);
+
+        String flagEventData = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (!events.readLine().equals("event:FLAG")) {
+                // skip until flag event
+            }
+            return events.readLine();
+        });
+        eventsConnection.disconnect();
+        assertThat(flagEventData.contains("\"version\":1")).isTrue();
+        assertThat(flagEventData.contains("{\"x\":3,\"y\":2,\"mark\":\"⚑\"}")).isTrue();
+    }
+
+    @Test
+    public void prometheus_cellFlagged_operationMetricsExposed() {
+        setGame("metrics", 123L);
+
+        CellCoordinateRequest flagRequest = new CellCoordinateRequest();
+        flagRequest.setGameId("metrics");
+        flagRequest.setX(3);
+        flagRequest.setY(2);
+        String flagCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/flagCell";
+        restTemplate.postForEntity(flagCellUrl, flagRequest, String.class);
+
+        String prometheusUrl = "http://localhost:" + port + "/actuator/prometheus";
+        ResponseEntity<String> prometheusResponse = restTemplate.getForEntity(prometheusUrl, String.class);
+        assertThat(prometheusResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String metrics = prometheusResponse.getBody();
+        assertThat(metrics.contains("minesweeper_operation_seconds{board_size=\"small\",operation=\"flag\",quantile=\"0.99\",}")).isTrue();
+        assertThat(metrics.contains("minesweeper_response_size_bytes_count{operation=\"flag\",}")).isTrue();
+        assertThat(metrics.contains("minesweeper_games_active")).isTrue();
+        assertThat(metrics.contains("minesweeper_boards_memory_bytes")).isTrue();
+    }
+
+    @Test
+    public void getGameStatus_unknownGame_internalServerError() {
+        String url = "http://localhost:" + port + "/api/v1/minesweeper/gameStatus?gameId=unknown";
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().contains("error.code.game.not.found")).isTrue();
+    }
+
+    private static MoveRequest move(MoveType type, int x, int y) {
+        MoveRequest move = new MoveRequest();
+        move.setType(type);
+        move.setX(x);
+        move.setY(y);
+        return move;
+    }
+
     private void openCell(int x, int y) {
         String openCellUrl = "http://localhost:" + port + "/api/v1/minesweeper/openCell";
 
@@ -141,11 +494,25 @@ public class GameplayRestControllerTest {
 
 
     private void setGame(Long seed) {
+        setGame(seed, null);
+    }
+
+    private void setGame(String gameId, Long seed) {
+        setGame(gameId, seed, null);
+    }
+
+    private void setGame(Long seed, MinefieldType mapType) {
+        setGame(null, seed, mapType);
+    }
+
+    private void setGame(String gameId, Long seed, MinefieldType mapType) {
         ResetGameRequest resetGameRequest = new ResetGameRequest();
+        resetGameRequest.setGameId(gameId);
         resetGameRequest.setHeight(5);
         resetGameRequest.setWidth(5);
         resetGameRequest.setMineCount(5);
         resetGameRequest.setSeed(seed);
+        resetGameRequest.setMapType(mapType);
 
         String url = "http://localhost:" + port + "/api/v1/minesweeper/resetGame";
         ResponseEntity<String> response = restTemplate.postForEntity(url, resetGameRequest, String.class);
@@ -0,0 +1,42 @@
+package com.sarief.minesweeper.rest.converter;
+
+import com.sarief.minesweeper.dto.GameStatusResponse;
+import com.sarief.minesweeper.engine.Move;
+import com.sarief.minesweeper.engine.MoveExecutor;
+import com.sarief.minesweeper.engine.MoveType;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoardBinaryCodecTest {
+
+    @Test
+    public void decode_encodedHexagonalBoard_sameFieldAndShiftFlag() throws IOException {
+        MinefieldMap minefield = MinefieldType.HEXAGONAL.createMap();
+        minefield.reset(11, 13, 20, 5L);
+        MoveExecutor moveExecutor = new MoveExecutor();
+        moveExecutor.apply(minefield, Move.builder().type(MoveType.OPEN).x(6).y(5).build());
+        moveExecutor.apply(minefield, Move.builder().type(MoveType.FLAG).x(12).y(1).build());
+        GameStatusResponse gameStatus = GameStatusResponse.builder()
+                .gameState(minefield.getGameState())
+                .version(minefield.getVersion())
+                .field(minefield.getDisplayField())
+                .oddRowsShifted(true)
+                .build();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BoardBinaryCodec.encode(gameStatus, output);
+        GameStatusResponse decoded = BoardBinaryCodec.decode(new ByteArrayInputStream(output.toByteArray()));
+
+        assertThat(decoded.getField()).containsExactly(gameStatus.getField());
+        assertThat(decoded.getOddRowsShifted()).isTrue();
+        assertThat(decoded.getGameState()).isEqualTo(minefield.getGameState());
+        assertThat(decoded.getVersion()).isEqualTo(minefield.getVersion());
+    }
+}
@@ -0,0 +1,45 @@
+package com.sarief.minesweeper.service;
+
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.store.GameLocks;
+import com.sarief.minesweeper.store.InMemoryGameStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class BoardPoolTest {
+
+    @Test
+    public void take_poolFilled_readyMapReturnedAndHitRecorded() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InMemoryGameStore gameStore =
+                new InMemoryGameStore(new GameLocks(), Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, "spill", 0);
+        BoardPool boardPool = new BoardPool(new GameMetrics(meterRegistry, gameStore), "16x30x99", 2);
+        boardPool.start();
+        try {
+            assertThat(boardPool.take(10, 10, 10)).isNull();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                while (boardPool.size() < 2) {
+                    Thread.sleep(10);
+                }
+            });
+            MinefieldDenseMap minefield = boardPool.take(16, 30, 99);
+
+            assertThat(minefield).isNotNull();
+            assertThat(minefield.getGameState()).isEqualTo(GameState.PREPARED);
+            minefield.initiate(5, 5);
+            assertThat(minefield.containsMine(minefield.toIndex(5, 5))).isFalse();
+            assertThat(meterRegistry.get("minesweeper.pool.requests").tag("result", "hit").counter().count())
+                    .isEqualTo(1);
+        } finally {
+            boardPool.stop();
+        }
+    }
+}
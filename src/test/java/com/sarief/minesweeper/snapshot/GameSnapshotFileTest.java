@@ -0,0 +1,55 @@
+package com.sarief.minesweeper.snapshot;
+
+import com.sarief.minesweeper.engine.RevealEngine;
+import com.sarief.minesweeper.entity.GameState;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldType;
+import com.sarief.minesweeper.service.GameSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void read_snapshotOfStartedGame_sameGameRestored() throws IOException {
+        for (MinefieldType mapType : MinefieldType.values()) {
+            if (!mapType.isSnapshotSupported()) {
+                continue;
+            }
+            MinefieldMap minefield = mapType.createMap();
+            minefield.reset(31, 17, 60, 7L);
+            minefield.initiate(5, 5);
+            minefield.startRecordingChanges();
+            new RevealEngine().reveal(minefield, minefield.toIndex(5, 5));
+            minefield.flagCell(0, 30);
+            minefield.finishRecordingChanges();
+
+            Path file = directory.resolve(mapType + GameSnapshotFile.EXTENSION);
+            GameSnapshotFile.write(file, new GameSession("snapshot-" + mapType, minefield));
+            GameSession restored = GameSnapshotFile.read(file);
+
+            MinefieldMap restoredMinefield = restored.getMinefield();
+            assertThat(restored.getGameId()).isEqualTo("snapshot-" + mapType);
+            assertThat(restoredMinefield.getType()).isEqualTo(mapType);
+            assertThat(restoredMinefield.getGameState()).isEqualTo(GameState.STARTED);
+            assertThat(restoredMinefield.getVersion()).isEqualTo(minefield.getVersion());
+            assertThat(restoredMinefield.getDisplayField()).isEqualTo(minefield.getDisplayField());
+            assertThat(restoredMinefield.createSnapshot()).usingRecursiveComparison().isEqualTo(minefield.createSnapshot());
+
+            // counts of adjacent mines are restored too, so the game goes on the same way
+            for (int index = 0; index < 31 * 17; index++) {
+                assertThat(restoredMinefield.containsMine(index)).isEqualTo(minefield.containsMine(index));
+                assertThat(restoredMinefield.getNumberOfAdjacentMines(index))
+                        .isEqualTo(minefield.getNumberOfAdjacentMines(index));
+            }
+        }
+    }
+}
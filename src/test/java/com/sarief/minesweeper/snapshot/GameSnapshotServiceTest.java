@@ -0,0 +1,75 @@
+package com.sarief.minesweeper.snapshot;
+
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.service.GameSession;
+import com.sarief.minesweeper.store.GameLocks;
+import com.sarief.minesweeper.store.InMemoryGameStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GameSnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final GameLocks gameLocks = new GameLocks();
+
+    @Test
+    public void start_gameSpilledBeforeRestart_gameRestored() throws IOException {
+        InMemoryGameStore gameStore = createStore(Long.MAX_VALUE);
+        createService(gameStore).start();
+        GameSession session = new GameSession("spilled", startedMap());
+        gameStore.put(session);
+
+        gameStore.runMaintenance();
+
+        assertThat(gameStore.getLoadedSessions()).isEmpty();
+        InMemoryGameStore restartedStore = createStore(Long.MAX_VALUE);
+        assertThat(createService(restartedStore).restoreGames()).isEqualTo(1);
+        GameSession restored = restartedStore.find("spilled");
+        assertThat(restored.getGeneration()).isEqualTo(session.getGeneration());
+        assertThat(restored.getMinefield().getVersion()).isEqualTo(session.getMinefield().getVersion());
+    }
+
+    @Test
+    public void runMaintenance_gameExpired_snapshotDeleted() throws IOException {
+        InMemoryGameStore gameStore = createStore(-1);
+        GameSnapshotService snapshotService = createService(gameStore);
+        snapshotService.start();
+        gameStore.put(new GameSession("expired", startedMap()));
+        assertThat(snapshotService.snapshotGames()).isEqualTo(1);
+
+        gameStore.runMaintenance();
+
+        assertThat(gameStore.size()).isZero();
+        assertThat(Files.exists(directory.resolve("snapshots").resolve(GameSnapshotFile.toFileName("expired"))))
+                .isFalse();
+    }
+
+    private InMemoryGameStore createStore(long ttlMillis) throws IOException {
+        // budget of a single byte spills every game, idle time of -1 makes every game idle right away
+        InMemoryGameStore gameStore = new InMemoryGameStore(gameLocks, 1, -1, ttlMillis,
+                directory.resolve("spill").toString(), 0);
+        gameStore.start();
+        return gameStore;
+    }
+
+    private GameSnapshotService createService(InMemoryGameStore gameStore) {
+        return new GameSnapshotService(gameStore, gameLocks, directory.resolve("snapshots").toString(), 0);
+    }
+
+    private static MinefieldMap startedMap() {
+        MinefieldMap minefield = new MinefieldDenseMap();
+        minefield.reset(30, 40, 100, 5L);
+        minefield.initiate(10, 10);
+        minefield.openCell(minefield.toIndex(10, 10));
+        return minefield;
+    }
+}
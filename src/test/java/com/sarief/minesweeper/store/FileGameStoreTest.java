@@ -0,0 +1,52 @@
+package com.sarief.minesweeper.store;
+
+import com.sarief.minesweeper.entity.MinefieldOffHeapMap;
+import com.sarief.minesweeper.entity.MinefieldSquaredMap;
+import com.sarief.minesweeper.exception.MinesweeperException;
+import com.sarief.minesweeper.service.GameSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FileGameStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void find_savedGame_changesReadBack() {
+        FileGameStore gameStore = new FileGameStore(directory);
+        MinefieldSquaredMap minefield = new MinefieldSquaredMap();
+        minefield.reset(12, 9, 10, 5L);
+        GameSession session = new GameSession("file", minefield);
+
+        assertThat(gameStore.put(session)).isNull();
+        minefield.flagCell(3, 4);
+        gameStore.save(session);
+
+        GameSession found = gameStore.find("file");
+        assertThat(found).isNotSameAs(session);
+        assertThat(found.getGeneration()).isEqualTo(session.getGeneration());
+        assertThat(found.getMinefield().isFlagged(found.getMinefield().toIndex(3, 4))).isTrue();
+        assertThat(gameStore.find("missing")).isNull();
+        assertThat(gameStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void put_mapWithoutSnapshot_rejected() {
+        FileGameStore gameStore = new FileGameStore(directory);
+        MinefieldOffHeapMap minefield = new MinefieldOffHeapMap();
+        minefield.reset(10, 10, 10, 1L);
+        try {
+            assertThatThrownBy(() -> gameStore.put(new GameSession("off-heap", minefield)))
+                    .isInstanceOf(MinesweeperException.class)
+                    .extracting("code").isEqualTo("error.code.store.unsupported");
+        } finally {
+            minefield.release();
+        }
+    }
+}
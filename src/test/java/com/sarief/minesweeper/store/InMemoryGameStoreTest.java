@@ -0,0 +1,112 @@
+package com.sarief.minesweeper.store;
+
+import com.sarief.minesweeper.engine.RevealEngine;
+import com.sarief.minesweeper.entity.MinefieldChunkedMap;
+import com.sarief.minesweeper.entity.MinefieldDenseMap;
+import com.sarief.minesweeper.entity.MinefieldMap;
+import com.sarief.minesweeper.entity.MinefieldOffHeapMap;
+import com.sarief.minesweeper.service.GameSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryGameStoreTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    public void find_gameSpilledOverBudget_sameGameLoadedBack() throws IOException {
+        InMemoryGameStore gameStore = createStore(1, Long.MAX_VALUE);
+        GameSession session = new GameSession("spilled", startedMap(new MinefieldDenseMap()), true);
+        gameStore.put(session);
+        String[] displayField = session.getMinefield().getDisplayField();
+
+        gameStore.runMaintenance();
+
+        assertThat(session.isClosed()).isTrue();
+        assertThat(gameStore.getLoadedSessions()).isEmpty();
+        assertThat(gameStore.getUsedMemoryBytes()).isZero();
+        assertThat(countSpilledFiles()).isEqualTo(1);
+
+        GameSession loaded = gameStore.find("spilled");
+        assertThat(loaded.getGeneration()).isEqualTo(session.getGeneration());
+        assertThat(loaded.isNoGuess()).isTrue();
+        assertThat(loaded.getMinefield().getVersion()).isEqualTo(session.getMinefield().getVersion());
+        assertThat(loaded.getMinefield().getDisplayField()).isEqualTo(displayField);
+        assertThat(countSpilledFiles()).isZero();
+        assertThat(gameStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void runMaintenance_idleAndExpiredGames_idleCompressedAndExpiredRemoved() {
+        InMemoryGameStore idleStore = createStore(Long.MAX_VALUE, Long.MAX_VALUE);
+        idleStore.put(new GameSession("idle", startedMap(new MinefieldDenseMap())));
+        // chunked map has no snapshot, it can only be removed
+        idleStore.put(new GameSession("chunked", startedMap(new MinefieldChunkedMap())));
+        long loadedMemoryBytes = idleStore.getUsedMemoryBytes();
+
+        idleStore.runMaintenance();
+
+        assertThat(idleStore.getLoadedSessions()).extracting(GameSession::getGameId).containsExactly("chunked");
+        assertThat(idleStore.getUsedMemoryBytes()).isPositive().isLessThan(loadedMemoryBytes);
+        assertThat(idleStore.find("idle").getMinefield().getHeight()).isEqualTo(100);
+
+        InMemoryGameStore expiringStore = createStore(Long.MAX_VALUE, -1);
+        GameSession chunked = new GameSession("chunked", startedMap(new MinefieldChunkedMap()));
+        expiringStore.put(chunked);
+
+        expiringStore.runMaintenance();
+
+        assertThat(chunked.isClosed()).isTrue();
+        assertThat(expiringStore.find("chunked")).isNull();
+        assertThat(expiringStore.size()).isZero();
+        assertThat(expiringStore.getUsedMemoryBytes()).isZero();
+    }
+
+    @Test
+    public void runMaintenance_offHeapGameBiggerThanBudget_otherGamesStayLoaded() throws IOException {
+        InMemoryGameStore gameStore = new InMemoryGameStore(new GameLocks(), 1_000_000, Long.MAX_VALUE,
+                Long.MAX_VALUE, spillDirectory.toString(), 0);
+        MinefieldMap offHeap = new MinefieldOffHeapMap();
+        offHeap.reset(2000, 2000, 1000, 3L);
+        gameStore.put(new GameSession("off-heap", offHeap));
+        GameSession dense = new GameSession("dense", startedMap(new MinefieldDenseMap()));
+        gameStore.put(dense);
+
+        gameStore.runMaintenance();
+
+        assertThat(gameStore.getUsedMemoryBytes()).isEqualTo(dense.getMinefield().estimateMemoryBytes());
+        assertThat(gameStore.getLoadedSessions()).hasSize(2);
+        assertThat(countSpilledFiles()).isZero();
+        offHeap.release();
+    }
+
+    private InMemoryGameStore createStore(long memoryBudgetBytes, long ttlMillis) {
+        // idle time of -1 makes every game idle right away
+        return new InMemoryGameStore(new GameLocks(), memoryBudgetBytes, -1, ttlMillis,
+                spillDirectory.toString(), 0);
+    }
+
+    private static MinefieldMap startedMap(MinefieldMap minefield) {
+        minefield.reset(100, 80, 800, 3L);
+        minefield.initiate(40, 50);
+        minefield.startRecordingChanges();
+        new RevealEngine().reveal(minefield, minefield.toIndex(40, 50));
+        minefield.flagCell(0, 0);
+        minefield.finishRecordingChanges();
+        return minefield;
+    }
+
+    private long countSpilledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.count();
+        }
+    }
+}